@@ -55,6 +55,7 @@ import android.widget.Toast;
 import androidx.preference.Preference;
 import androidx.preference.SwitchPreference;
 
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ProxySubscriptionManager;
 
 import java.util.ArrayList;
@@ -729,8 +730,8 @@ public class IccLockSettings extends SettingsPreferenceFragment
 
     private boolean isSubscriptionVisible(CarrierConfigManager carrierConfigManager,
             SubscriptionInfo subInfo) {
-        final PersistableBundle bundle = carrierConfigManager
-                .getConfigForSubId(subInfo.getSubscriptionId());
+        final PersistableBundle bundle = CarrierConfigCache.getConfigForSubId(getContext(),
+                carrierConfigManager, subInfo.getSubscriptionId());
         if (bundle == null) {
             return false;
         }
@@ -32,6 +32,7 @@ import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.res.Resources.Theme;
 import android.graphics.drawable.Icon;
 import android.os.AsyncTask;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.os.UserManager;
@@ -57,6 +58,7 @@ import com.android.settings.core.OnActivityResultListener;
 import com.android.settings.core.SettingsBaseActivity;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.core.gateway.SettingsGateway;
+import com.android.settings.core.instrumentation.StartupTrace;
 import com.android.settings.dashboard.DashboardFeatureProvider;
 import com.android.settings.homepage.TopLevelSettings;
 import com.android.settings.overlay.FeatureFactory;
@@ -149,6 +151,26 @@ public class SettingsActivity extends SettingsBaseActivity
 
     private static final String EXTRA_UI_OPTIONS = "settings:ui_options";
 
+    private static final String TILE_STATE_PREFS = "tile_enabled_state";
+    private static final String KEY_TILE_STATE_BUILD = "build";
+    private static final String KEY_TILE_STATE_INPUTS = "inputs";
+    // Bump when doUpdateTilesList starts to depend on other inputs or components.
+    private static final int TILE_STATE_VERSION = 1;
+    // Bits of the inputs the tile enabled states depend on. Don't reuse the bit of a removed
+    // input without bumping TILE_STATE_VERSION.
+    @VisibleForTesting
+    static final int TILE_STATE_ADMIN = 1 << 0;
+    @VisibleForTesting
+    static final int TILE_STATE_WIFI = 1 << 1;
+    private static final int TILE_STATE_BLUETOOTH = 1 << 2;
+    private static final int TILE_STATE_BANDWIDTH_CONTROL = 1 << 3;
+    private static final int TILE_STATE_DEMO_MODE = 1 << 4;
+    private static final int TILE_STATE_BATTERY = 1 << 5;
+    private static final int TILE_STATE_USERS = 1 << 6;
+    private static final int TILE_STATE_DEVELOPMENT = 1 << 7;
+    private static final int TILE_STATE_WIFI_DISPLAY = 1 << 8;
+    private static Integer sAppliedTileStateInputs;
+
     private String mFragmentClass;
 
     private CharSequence mInitialTitle;
@@ -229,7 +251,9 @@ public class SettingsActivity extends SettingsBaseActivity
 
     @Override
     protected void onCreate(Bundle savedState) {
+        final StartupTrace startupTrace = StartupTrace.begin(getClass().getSimpleName());
         super.onCreate(savedState);
+        getLifecycle().addObserver(startupTrace);
         Log.d(LOG_TAG, "Starting onCreate");
         long startTime = System.currentTimeMillis();
 
@@ -237,6 +261,7 @@ public class SettingsActivity extends SettingsBaseActivity
 
         mDashboardFeatureProvider = factory.getDashboardFeatureProvider(this);
 
+        StartupTrace.beginPhase(StartupTrace.PHASE_RESOLVE_INTENT);
         // Should happen before any call to getIntent()
         getMetaData();
 
@@ -247,6 +272,8 @@ public class SettingsActivity extends SettingsBaseActivity
 
         // Getting Intent properties can only be done after the super.onCreate(...)
         final String initialFragmentName = intent.getStringExtra(EXTRA_SHOW_FRAGMENT);
+        startupTrace.setTarget(initialFragmentName);
+        StartupTrace.endPhase(StartupTrace.PHASE_RESOLVE_INTENT);
 
         // This is a "Sub Settings" when:
         // - this is a real SubSettings
@@ -344,6 +371,7 @@ public class SettingsActivity extends SettingsBaseActivity
         if (DEBUG_TIMING) {
             Log.d(LOG_TAG, "onCreate took " + (System.currentTimeMillis() - startTime) + " ms");
         }
+        startupTrace.finishOnFirstFrame(getWindow().getDecorView());
     }
 
     @Override
@@ -574,7 +602,9 @@ public class SettingsActivity extends SettingsBaseActivity
             throw new IllegalArgumentException("Invalid fragment for this activity: "
                     + fragmentName);
         }
+        StartupTrace.beginPhase(StartupTrace.PHASE_INSTANTIATE_FRAGMENT);
         Fragment f = Utils.getTargetFragment(this, fragmentName, args);
+        StartupTrace.endPhase(StartupTrace.PHASE_INSTANTIATE_FRAGMENT);
         FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
         transaction.replace(R.id.main_content, f);
         if (titleResId > 0) {
@@ -599,48 +629,66 @@ public class SettingsActivity extends SettingsBaseActivity
         PackageManager pm = getPackageManager();
         final UserManager um = UserManager.get(this);
         final boolean isAdmin = um.isAdminUser();
+        final boolean hasWifi = pm.hasSystemFeature(PackageManager.FEATURE_WIFI);
+        final boolean hasBluetooth = pm.hasSystemFeature(PackageManager.FEATURE_BLUETOOTH);
+        final boolean isBandwidthControlEnabled = Utils.isBandwidthControlEnabled();
+        final boolean isDemoMode = UserManager.isDeviceInDemoMode(this);
+        final boolean showUsers = UserHandle.MU_ENABLED && UserManager.supportsMultipleUsers()
+                && !Utils.isMonkeyRunning();
+        final boolean showDev = DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(this)
+                && !Utils.isMonkeyRunning();
+        final boolean isWifiDisplayAvailable = WifiDisplaySettings.isAvailable(this);
+
+        // The enabled states only depend on these inputs, skip the package manager calls if they
+        // are the same as the last time the states were applied.
+        final int tileStateInputs = (isAdmin ? TILE_STATE_ADMIN : 0)
+                | (hasWifi ? TILE_STATE_WIFI : 0)
+                | (hasBluetooth ? TILE_STATE_BLUETOOTH : 0)
+                | (isBandwidthControlEnabled ? TILE_STATE_BANDWIDTH_CONTROL : 0)
+                | (isDemoMode ? TILE_STATE_DEMO_MODE : 0)
+                | (mBatteryPresent ? TILE_STATE_BATTERY : 0)
+                | (showUsers ? TILE_STATE_USERS : 0)
+                | (showDev ? TILE_STATE_DEVELOPMENT : 0)
+                | (isWifiDisplayAvailable ? TILE_STATE_WIFI_DISPLAY : 0);
+        if (isTileStateUpToDate(this, tileStateInputs)) {
+            Log.d(LOG_TAG, "Tile enabled state inputs unchanged, skipping update");
+            return;
+        }
+
         boolean somethingChanged = false;
+        boolean allCategoriesChecked = true;
         final String packageName = getPackageName();
         final StringBuilder changedList = new StringBuilder();
         somethingChanged = setTileEnabled(changedList,
                 new ComponentName(packageName, WifiSettingsActivity.class.getName()),
-                pm.hasSystemFeature(PackageManager.FEATURE_WIFI), isAdmin) || somethingChanged;
+                hasWifi, isAdmin) || somethingChanged;
 
         somethingChanged = setTileEnabled(changedList, new ComponentName(packageName,
                         Settings.BluetoothSettingsActivity.class.getName()),
-                pm.hasSystemFeature(PackageManager.FEATURE_BLUETOOTH), isAdmin)
-                || somethingChanged;
+                hasBluetooth, isAdmin) || somethingChanged;
 
         // Enable DataUsageSummaryActivity if the data plan feature flag is turned on otherwise
         // enable DataPlanUsageSummaryActivity.
         somethingChanged = setTileEnabled(changedList,
                 new ComponentName(packageName, Settings.DataUsageSummaryActivity.class.getName()),
-                Utils.isBandwidthControlEnabled() /* enabled */,
+                isBandwidthControlEnabled /* enabled */,
                 isAdmin) || somethingChanged;
 
         somethingChanged = setTileEnabled(changedList,
                 new ComponentName(packageName,
                         Settings.ConnectedDeviceDashboardActivity.class.getName()),
-                !UserManager.isDeviceInDemoMode(this) /* enabled */,
+                !isDemoMode /* enabled */,
                 isAdmin) || somethingChanged;
 
         somethingChanged = setTileEnabled(changedList, new ComponentName(packageName,
                         Settings.PowerUsageSummaryActivity.class.getName()),
                 mBatteryPresent, isAdmin) || somethingChanged;
 
-        somethingChanged = setTileEnabled(changedList, new ComponentName(packageName,
-                        Settings.DataUsageSummaryActivity.class.getName()),
-                Utils.isBandwidthControlEnabled(), isAdmin)
-                || somethingChanged;
-
         somethingChanged = setTileEnabled(changedList, new ComponentName(packageName,
                         Settings.UserSettingsActivity.class.getName()),
-                UserHandle.MU_ENABLED && UserManager.supportsMultipleUsers()
-                        && !Utils.isMonkeyRunning(), isAdmin)
+                showUsers, isAdmin)
                 || somethingChanged;
 
-        final boolean showDev = DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(this)
-                && !Utils.isMonkeyRunning();
         somethingChanged = setTileEnabled(changedList, new ComponentName(packageName,
                         Settings.DevelopmentSettingsDashboardActivity.class.getName()),
                 showDev, isAdmin)
@@ -648,13 +696,15 @@ public class SettingsActivity extends SettingsBaseActivity
 
         somethingChanged = setTileEnabled(changedList, new ComponentName(packageName,
                         Settings.WifiDisplaySettingsActivity.class.getName()),
-                WifiDisplaySettings.isAvailable(this), isAdmin)
+                isWifiDisplayAvailable, isAdmin)
                 || somethingChanged;
 
         if (UserHandle.MU_ENABLED && !isAdmin) {
             // When on restricted users, disable all extra categories (but only the settings ones).
             final List<DashboardCategory> categories = mDashboardFeatureProvider.getAllCategories();
             synchronized (categories) {
+                // Check again next time if the categories aren't loaded yet.
+                allCategoriesChecked = !categories.isEmpty();
                 for (DashboardCategory category : categories) {
                     final int tileCount = category.getTilesCount();
                     for (int i = 0; i < tileCount; i++) {
@@ -674,6 +724,10 @@ public class SettingsActivity extends SettingsBaseActivity
             }
         }
 
+        if (allCategoriesChecked) {
+            saveTileState(this, tileStateInputs);
+        }
+
         // Final step, refresh categories.
         if (somethingChanged) {
             Log.d(LOG_TAG, "Enabled state changed for some tiles, reloading all categories "
@@ -684,6 +738,60 @@ public class SettingsActivity extends SettingsBaseActivity
         }
     }
 
+    /**
+     * @return whether the tile enabled states were last applied for {@code inputs} on this build.
+     */
+    @VisibleForTesting
+    static boolean isTileStateUpToDate(Context context, int inputs) {
+        synchronized (SettingsActivity.class) {
+            if (sAppliedTileStateInputs == null) {
+                final SharedPreferences prefs = getTileStatePreferences(context);
+                if (TextUtils.equals(prefs.getString(KEY_TILE_STATE_BUILD, null),
+                        getTileStateBuild(context))) {
+                    sAppliedTileStateInputs = prefs.getInt(KEY_TILE_STATE_INPUTS, -1);
+                }
+            }
+            return sAppliedTileStateInputs != null && sAppliedTileStateInputs == inputs;
+        }
+    }
+
+    @VisibleForTesting
+    static void saveTileState(Context context, int inputs) {
+        synchronized (SettingsActivity.class) {
+            sAppliedTileStateInputs = inputs;
+            getTileStatePreferences(context).edit()
+                    .putString(KEY_TILE_STATE_BUILD, getTileStateBuild(context))
+                    .putInt(KEY_TILE_STATE_INPUTS, inputs)
+                    .apply();
+        }
+    }
+
+    @VisibleForTesting
+    static void clearTileState(Context context) {
+        synchronized (SettingsActivity.class) {
+            sAppliedTileStateInputs = null;
+            getTileStatePreferences(context).edit().clear().apply();
+        }
+    }
+
+    private static SharedPreferences getTileStatePreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(TILE_STATE_PREFS,
+                Context.MODE_PRIVATE);
+    }
+
+    private static String getTileStateBuild(Context context) {
+        // Components may come and go with a new build, so apply the states again after an OTA
+        // or an update of Settings itself.
+        long lastUpdateTime = 0L;
+        try {
+            lastUpdateTime = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(LOG_TAG, "Settings package not found", e);
+        }
+        return Build.FINGERPRINT + "/" + lastUpdateTime + "/" + TILE_STATE_VERSION;
+    }
+
     /**
      * @return whether or not the enabled state actually changed.
      */
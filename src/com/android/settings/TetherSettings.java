@@ -49,6 +49,7 @@ import androidx.preference.SwitchPreference;
 
 import com.android.settings.core.FeatureFlags;
 import com.android.settings.datausage.DataSaverBackend;
+import com.android.settings.network.TetherInterfaceMatcher;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settings.wifi.tether.WifiTetherPreferenceController;
 import com.android.settingslib.TetherUtil;
@@ -96,6 +97,7 @@ public class TetherSettings extends RestrictedSettingsFragment
 
     private String[] mUsbRegexs;
     private String[] mBluetoothRegexs;
+    private TetherInterfaceMatcher mInterfaceMatcher;
     private String mEthernetRegex;
     private AtomicReference<BluetoothPan> mBluetoothPan = new AtomicReference<>();
 
@@ -171,6 +173,7 @@ public class TetherSettings extends RestrictedSettingsFragment
         mBluetoothRegexs = mTm.getTetherableBluetoothRegexs();
         mEthernetRegex = getContext().getResources().getString(
                 com.android.internal.R.string.config_ethernet_iface_regex);
+        mInterfaceMatcher = new TetherInterfaceMatcher(mTm, mEthernetRegex);
 
         final boolean usbAvailable = mUsbRegexs.length != 0;
         final boolean bluetoothAvailable = adapter != null && mBluetoothRegexs.length != 0;
@@ -387,26 +390,16 @@ public class TetherSettings extends RestrictedSettingsFragment
         boolean usbAvailable = mUsbConnected && !mMassStorageActive;
         int usbError = ConnectivityManager.TETHER_ERROR_NO_ERROR;
         for (String s : available) {
-            for (String regex : mUsbRegexs) {
-                if (s.matches(regex)) {
-                    if (usbError == ConnectivityManager.TETHER_ERROR_NO_ERROR) {
-                        usbError = mTm.getLastTetherError(s);
-                    }
+            if (TetherInterfaceMatcher.hasType(mInterfaceMatcher.getTypes(s), TETHERING_USB)) {
+                if (usbError == ConnectivityManager.TETHER_ERROR_NO_ERROR) {
+                    usbError = mTm.getLastTetherError(s);
                 }
             }
         }
-        boolean usbTethered = false;
-        for (String s : tethered) {
-            for (String regex : mUsbRegexs) {
-                if (s.matches(regex)) usbTethered = true;
-            }
-        }
-        boolean usbErrored = false;
-        for (String s: errored) {
-            for (String regex : mUsbRegexs) {
-                if (s.matches(regex)) usbErrored = true;
-            }
-        }
+        boolean usbTethered = TetherInterfaceMatcher.hasType(
+                mInterfaceMatcher.getTypes(tethered), TETHERING_USB);
+        boolean usbErrored = TetherInterfaceMatcher.hasType(
+                mInterfaceMatcher.getTypes(errored), TETHERING_USB);
 
         if (usbTethered) {
             mUsbTether.setEnabled(!mDataSaverEnabled);
@@ -459,16 +452,10 @@ public class TetherSettings extends RestrictedSettingsFragment
     @VisibleForTesting
     void updateEthernetState(String[] available, String[] tethered) {
 
-        boolean isAvailable = false;
-        boolean isTethered = false;
-
-        for (String s : available) {
-            if (s.matches(mEthernetRegex)) isAvailable = true;
-        }
-
-        for (String s : tethered) {
-            if (s.matches(mEthernetRegex)) isTethered = true;
-        }
+        boolean isAvailable = TetherInterfaceMatcher.hasType(
+                mInterfaceMatcher.getTypes(available), TETHERING_ETHERNET);
+        boolean isTethered = TetherInterfaceMatcher.hasType(
+                mInterfaceMatcher.getTypes(tethered), TETHERING_ETHERNET);
 
         if (isTethered) {
             mEthernetTether.setEnabled(!mDataSaverEnabled);
@@ -27,6 +27,7 @@ import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
@@ -56,6 +57,12 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
 
     private static final String TAG = "SettingsPrefController";
 
+    // Controller constructors found through reflection, keyed by "<class name>/<param count>".
+    private static final ArrayMap<String, Constructor<?>> sConstructorCache = new ArrayMap<>();
+    // Failed constructor lookups, with the same keys, rethrown as they were first thrown.
+    private static final ArrayMap<String, ReflectiveOperationException> sConstructorFailures =
+            new ArrayMap<>();
+
     /**
      * Denotes the availability of the Setting.
      * <p>
@@ -134,9 +141,8 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
         try {
-            final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
+                    getConstructor(controllerName, Context.class, String.class);
             final Object[] params = new Object[]{context, key};
             return (BasePreferenceController) preferenceConstructor.newInstance(params);
         } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException |
@@ -153,8 +159,8 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
         try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
+            final Constructor<?> preferenceConstructor =
+                    getConstructor(controllerName, Context.class);
             final Object[] params = new Object[]{context};
             return (BasePreferenceController) preferenceConstructor.newInstance(params);
         } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException |
@@ -177,9 +183,8 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
         try {
-            final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
+                    getConstructor(controllerName, Context.class, String.class);
             final Object[] params = new Object[]{context, key};
             final BasePreferenceController controller =
                     (BasePreferenceController) preferenceConstructor.newInstance(params);
@@ -192,6 +197,41 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
         }
     }
 
+    /**
+     * Look up the public constructor of {@code controllerName} taking {@code parameterTypes}.
+     * Results, including missing constructors, are cached since the same controllers are created
+     * on every page visit, slice bind and search indexing pass.
+     */
+    private static Constructor<?> getConstructor(String controllerName,
+            Class<?>... parameterTypes) throws ClassNotFoundException, NoSuchMethodException {
+        final String cacheKey = controllerName + "/" + parameterTypes.length;
+        synchronized (sConstructorCache) {
+            final Constructor<?> constructor = sConstructorCache.get(cacheKey);
+            if (constructor != null) {
+                return constructor;
+            }
+            final ReflectiveOperationException failure = sConstructorFailures.get(cacheKey);
+            if (failure instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) failure;
+            } else if (failure != null) {
+                throw (NoSuchMethodException) failure;
+            }
+        }
+        try {
+            final Constructor<?> constructor =
+                    Class.forName(controllerName).getConstructor(parameterTypes);
+            synchronized (sConstructorCache) {
+                sConstructorCache.put(cacheKey, constructor);
+            }
+            return constructor;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            synchronized (sConstructorCache) {
+                sConstructorFailures.put(cacheKey, e);
+            }
+            throw e;
+        }
+    }
+
     public BasePreferenceController(Context context, String preferenceKey) {
         super(context);
         mPreferenceKey = preferenceKey;
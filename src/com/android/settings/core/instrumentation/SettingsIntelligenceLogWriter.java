@@ -38,22 +38,28 @@ import com.android.settingslib.core.instrumentation.LogWriter;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 public class SettingsIntelligenceLogWriter implements LogWriter {
     private static final String TAG = "IntelligenceLogWriter";
 
     private static final String LOG = "logs";
     private static final long MESSAGE_DELAY = DateUtils.MINUTE_IN_MILLIS; // 1 minute
+    @VisibleForTesting
+    static final int LOG_CAPACITY = 256;
+    // Send the logs before the buffer is full, so a burst doesn't overwrite pending events.
+    private static final int FLUSH_THRESHOLD = LOG_CAPACITY * 3 / 4;
 
-    private List<SettingsLog> mSettingsLogList;
+    // Only accessed on the thread of mLogHandler.
+    private final LogBuffer mLogBuffer;
     private SendLogHandler mLogHandler;
 
     public SettingsIntelligenceLogWriter() {
-        mSettingsLogList = new LinkedList<>();
+        mLogBuffer = new LogBuffer(LOG_CAPACITY);
         final HandlerThread workerThread = new HandlerThread("SettingsIntelligenceLogWriter",
                 Process.THREAD_PRIORITY_BACKGROUND);
         workerThread.start();
@@ -116,50 +122,18 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
 
     @Override
     public void action(int attribution, int action, int pageId, String key, int value) {
-        final ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
-        final SettingsLog settingsLog = SettingsLog.newBuilder()
-                .setAttribution(attribution)
-                .setAction(action)
-                .setPageId(pageId)
-                .setChangedPreferenceKey(key != null ? key : "")
-                .setChangedPreferenceIntValue(value)
-                .setTimestamp(now.toString())
-                .build();
+        final long timestamp = System.currentTimeMillis();
         mLogHandler.post(() -> {
-            mSettingsLogList.add(settingsLog);
-        });
-        if (action == SettingsEnums.ACTION_CONTEXTUAL_CARD_DISMISS) {
-            // Directly send this event to notify SI instantly that the card is dismissed
-            mLogHandler.sendLog();
-        } else {
-            mLogHandler.scheduleSendLog();
-        }
-    }
-
-    @VisibleForTesting
-    static byte[] serialize(List<SettingsLog> settingsLogs) {
-        final int size = settingsLogs.size();
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        final DataOutputStream output = new DataOutputStream(bout);
-        // The data format is "size, length, byte array, length, byte array ..."
-        try {
-            output.writeInt(size);
-            for (SettingsLog settingsLog : settingsLogs) {
-                final byte[] data = settingsLog.toByteArray();
-                output.writeInt(data.length);
-                output.write(data);
-            }
-            return bout.toByteArray();
-        } catch (Exception e) {
-            Log.e(TAG, "serialize error", e);
-            return null;
-        } finally {
-            try {
-                output.close();
-            } catch (Exception e) {
-                Log.e(TAG, "close error", e);
+            mLogBuffer.add(attribution, action, pageId, key, value, timestamp);
+            if (action == SettingsEnums.ACTION_CONTEXTUAL_CARD_DISMISS
+                    || mLogBuffer.size() >= FLUSH_THRESHOLD) {
+                // Directly send this event to notify SI instantly that the card is dismissed,
+                // or when the buffer is about to overflow.
+                mLogHandler.sendLog();
+            } else {
+                mLogHandler.scheduleSendLog();
             }
-        }
+        });
     }
 
     private class SendLogHandler extends Handler {
@@ -169,8 +143,10 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
         }
 
         void scheduleSendLog() {
-            removeCallbacks(mSendLogsRunnable);
-            postDelayed(mSendLogsRunnable, MESSAGE_DELAY);
+            // Send at most MESSAGE_DELAY after the oldest pending event, even if more keep coming.
+            if (!hasCallbacks(mSendLogsRunnable)) {
+                postDelayed(mSendLogsRunnable, MESSAGE_DELAY);
+            }
         }
 
         void sendLog() {
@@ -187,14 +163,117 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
         }
         final String action = context.getString(R.string
                 .config_settingsintelligence_log_action);
-        if (!TextUtils.isEmpty(action) && !mSettingsLogList.isEmpty()) {
+        if (!TextUtils.isEmpty(action) && !mLogBuffer.isEmpty()) {
+            if (mLogBuffer.getDroppedCount() > 0) {
+                Log.w(TAG, "Dropped " + mLogBuffer.getDroppedCount() + " logs on overflow");
+            }
             final Intent intent = new Intent();
             intent.setPackage(context.getString(R.string
                     .config_settingsintelligence_package_name));
             intent.setAction(action);
-            intent.putExtra(LOG, serialize(mSettingsLogList));
+            intent.putExtra(LOG, mLogBuffer.serialize());
             context.sendBroadcastAsUser(intent, UserHandle.CURRENT);
-            mSettingsLogList.clear();
         }
+        // Nobody receives the logs if there is no action, don't keep them around either.
+        mLogBuffer.clear();
     };
+
+    /**
+     * Fixed capacity ring buffer of log events, stored as primitive fields. When it is full, the
+     * oldest event is overwritten and counted as dropped.
+     */
+    @VisibleForTesting
+    static class LogBuffer {
+        private final int mCapacity;
+        private final int[] mAttributions;
+        private final int[] mActions;
+        private final int[] mPageIds;
+        private final int[] mValues;
+        private final long[] mTimestamps;
+        private final String[] mKeys;
+        private final ByteArrayOutputStream mBytes = new ByteArrayOutputStream();
+        private final SettingsLog.Builder mBuilder = SettingsLog.newBuilder();
+        private int mStart;
+        private int mSize;
+        private int mDroppedCount;
+
+        LogBuffer(int capacity) {
+            mCapacity = capacity;
+            mAttributions = new int[capacity];
+            mActions = new int[capacity];
+            mPageIds = new int[capacity];
+            mValues = new int[capacity];
+            mTimestamps = new long[capacity];
+            mKeys = new String[capacity];
+        }
+
+        void add(int attribution, int action, int pageId, String key, int value,
+                long timestamp) {
+            if (mSize == mCapacity) {
+                mStart = (mStart + 1) % mCapacity;
+                mSize--;
+                mDroppedCount++;
+            }
+            final int index = (mStart + mSize) % mCapacity;
+            mAttributions[index] = attribution;
+            mActions[index] = action;
+            mPageIds[index] = pageId;
+            mKeys[index] = key != null ? key : "";
+            mValues[index] = value;
+            mTimestamps[index] = timestamp;
+            mSize++;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        int getDroppedCount() {
+            return mDroppedCount;
+        }
+
+        void clear() {
+            Arrays.fill(mKeys, null);
+            mStart = 0;
+            mSize = 0;
+            mDroppedCount = 0;
+        }
+
+        /**
+         * Serialize the events from oldest to newest. The data format is "size, length, byte
+         * array, length, byte array ...", where each byte array is a {@link SettingsLog}.
+         */
+        byte[] serialize() {
+            mBytes.reset();
+            final DataOutputStream output = new DataOutputStream(mBytes);
+            final ZoneId zone = ZoneId.systemDefault();
+            try {
+                output.writeInt(mSize);
+                for (int i = 0; i < mSize; i++) {
+                    final int index = (mStart + i) % mCapacity;
+                    final byte[] data = mBuilder.clear()
+                            .setAttribution(mAttributions[index])
+                            .setAction(mActions[index])
+                            .setPageId(mPageIds[index])
+                            .setChangedPreferenceKey(mKeys[index])
+                            .setChangedPreferenceIntValue(mValues[index])
+                            .setTimestamp(ZonedDateTime.ofInstant(
+                                    Instant.ofEpochMilli(mTimestamps[index]), zone).toString())
+                            .build()
+                            .toByteArray();
+                    output.writeInt(data.length);
+                    output.write(data);
+                }
+                output.flush();
+                return mBytes.toByteArray();
+            } catch (IOException e) {
+                Log.e(TAG, "serialize error", e);
+                return null;
+            }
+        }
+    }
 }
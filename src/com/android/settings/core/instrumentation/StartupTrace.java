@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static androidx.lifecycle.Lifecycle.Event.ON_DESTROY;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+
+/**
+ * Records how long the named phases of one Settings launch take, from the activity's onCreate to
+ * its first frame.
+ *
+ * <p>Only one launch is traced at a time. Phases are recorded through the static helpers, which
+ * do nothing when no launch is being traced, and are also emitted as async systrace sections
+ * with a cookie per launch. The last {@link #MAX_HISTORY} launches are kept for
+ * {@code SettingsDumpService}.
+ *
+ * <p>Add the trace as an observer of the launching activity's lifecycle, so it stops being
+ * traced if the activity is destroyed before drawing.
+ */
+@MainThread
+public class StartupTrace implements LifecycleObserver {
+
+    private static final String TAG = "StartupTrace";
+    private static final String SECTION_PREFIX = "Settings:";
+
+    public static final String PHASE_RESOLVE_INTENT = "resolve_intent";
+    public static final String PHASE_INSTANTIATE_FRAGMENT = "instantiate_fragment";
+    public static final String PHASE_CREATE_CONTROLLERS = "create_controllers";
+    public static final String PHASE_INFLATE_PREFERENCES = "inflate_preferences";
+    public static final String PHASE_FIRST_UPDATE_STATE = "first_update_state";
+
+    /** Launches taking longer than this to draw their first frame are logged as warnings. */
+    @VisibleForTesting
+    static final long LATENCY_BUDGET_MS = 500L;
+    @VisibleForTesting
+    static final int MAX_HISTORY = 10;
+
+    private static final ArrayDeque<StartupTrace> sHistory = new ArrayDeque<>(MAX_HISTORY);
+    private static StartupTrace sActiveTrace;
+    private static int sLastCookie;
+
+    private final String mName;
+    private final long mStartTime;
+    // Identifies the systrace sections of this launch.
+    private final int mCookie;
+    private final ArrayMap<String, Long> mPhaseStartTimes = new ArrayMap<>();
+    private final ArrayMap<String, Long> mPhaseDurations = new ArrayMap<>();
+    private String mTarget;
+    private long mFirstFrameTime = -1L;
+    // Whether the sections left open were ended, once the launch stopped being traced.
+    private boolean mSectionsClosed;
+    private boolean mDestroyed;
+
+    @VisibleForTesting
+    StartupTrace(String name, long startTime) {
+        mName = name;
+        mStartTime = startTime;
+        mCookie = ++sLastCookie;
+    }
+
+    /** Start tracing the launch of {@code name}, replacing any launch still being traced. */
+    public static StartupTrace begin(String name) {
+        if (sActiveTrace != null) {
+            sActiveTrace.endOpenSections();
+        }
+        sActiveTrace = new StartupTrace(name, SystemClock.elapsedRealtime());
+        return sActiveTrace;
+    }
+
+    /** Start {@code phase} of the launch being traced, unless it was already recorded. */
+    public static void beginPhase(String phase) {
+        final StartupTrace trace = sActiveTrace;
+        if (trace == null || trace.mPhaseStartTimes.containsKey(phase)) {
+            return;
+        }
+        trace.mPhaseStartTimes.put(phase, SystemClock.elapsedRealtime());
+        Trace.beginAsyncSection(SECTION_PREFIX + phase, trace.mCookie);
+    }
+
+    /** End {@code phase} of the launch being traced. */
+    public static void endPhase(String phase) {
+        final StartupTrace trace = sActiveTrace;
+        if (trace == null) {
+            return;
+        }
+        final Long startTime = trace.mPhaseStartTimes.get(phase);
+        if (startTime == null || trace.mPhaseDurations.containsKey(phase)) {
+            return;
+        }
+        Trace.endAsyncSection(SECTION_PREFIX + phase, trace.mCookie);
+        trace.mPhaseDurations.put(phase, SystemClock.elapsedRealtime() - startTime);
+    }
+
+    /** End the sections of the phases which were begun but not ended, once. */
+    private void endOpenSections() {
+        if (mSectionsClosed) {
+            return;
+        }
+        mSectionsClosed = true;
+        for (int i = 0; i < mPhaseStartTimes.size(); i++) {
+            final String phase = mPhaseStartTimes.keyAt(i);
+            if (!mPhaseDurations.containsKey(phase)) {
+                Trace.endAsyncSection(SECTION_PREFIX + phase, mCookie);
+            }
+        }
+    }
+
+    /** Set the page, usually a fragment class name, shown by the launch. */
+    public void setTarget(String target) {
+        mTarget = target;
+    }
+
+    /** Finish this trace when {@code view} draws for the first time. */
+    public void finishOnFirstFrame(View view) {
+        final ViewTreeObserver observer = view.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                finish(SystemClock.elapsedRealtime());
+                return true;
+            }
+        });
+    }
+
+    /** Stop tracing the launch if its activity is destroyed before its first frame. */
+    @OnLifecycleEvent(ON_DESTROY)
+    public void onDestroy() {
+        mDestroyed = true;
+        if (sActiveTrace == this) {
+            sActiveTrace = null;
+        }
+        endOpenSections();
+    }
+
+    @VisibleForTesting
+    void finish(long firstFrameTime) {
+        if (sActiveTrace == this) {
+            sActiveTrace = null;
+        }
+        if (mFirstFrameTime >= 0 || mDestroyed) {
+            return;
+        }
+        endOpenSections();
+        mFirstFrameTime = firstFrameTime;
+        synchronized (sHistory) {
+            if (sHistory.size() == MAX_HISTORY) {
+                sHistory.removeFirst();
+            }
+            sHistory.addLast(this);
+        }
+
+        if (getFirstFrameLatency() > LATENCY_BUDGET_MS) {
+            Log.w(TAG, "Over budget: " + this);
+        } else {
+            Log.d(TAG, toString());
+        }
+    }
+
+    /** Return the active trace, or {@code null} if no launch is being traced. */
+    @Nullable
+    public static StartupTrace getActive() {
+        return sActiveTrace;
+    }
+
+    /** Return the duration of {@code phase} in milliseconds, or -1 if it wasn't recorded. */
+    public long getPhaseDuration(String phase) {
+        final Long duration = mPhaseDurations.get(phase);
+        return duration == null ? -1L : duration;
+    }
+
+    /** Return the time from onCreate to the first frame, or -1 if it wasn't drawn yet. */
+    public long getFirstFrameLatency() {
+        return mFirstFrameTime < 0 ? -1L : mFirstFrameTime - mStartTime;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(mName);
+        if (mTarget != null) {
+            builder.append('/').append(mTarget);
+        }
+        builder.append(" first_frame=").append(getFirstFrameLatency()).append("ms");
+        for (int i = 0; i < mPhaseDurations.size(); i++) {
+            builder.append(' ').append(mPhaseDurations.keyAt(i))
+                    .append('=').append(mPhaseDurations.valueAt(i)).append("ms");
+        }
+        return builder.toString();
+    }
+
+    /** Return the recent launches as JSON, oldest first. */
+    public static JSONArray dumpHistory() throws JSONException {
+        final JSONArray array = new JSONArray();
+        synchronized (sHistory) {
+            for (StartupTrace trace : sHistory) {
+                final JSONObject obj = new JSONObject();
+                obj.put("name", trace.mName);
+                obj.put("target", trace.mTarget);
+                obj.put("first_frame", trace.getFirstFrameLatency());
+                for (int i = 0; i < trace.mPhaseDurations.size(); i++) {
+                    obj.put(trace.mPhaseDurations.keyAt(i), trace.mPhaseDurations.valueAt(i));
+                }
+                array.put(obj);
+            }
+        }
+        return array;
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        sActiveTrace = null;
+        synchronized (sHistory) {
+            sHistory.clear();
+        }
+    }
+}
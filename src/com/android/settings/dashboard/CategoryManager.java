@@ -17,6 +17,10 @@ package com.android.settings.dashboard;
 
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.pm.ChangedPackages;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.provider.Settings;
 import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
@@ -54,6 +58,16 @@ public class CategoryManager {
 
     private List<DashboardCategory> mCategories;
 
+    // Package change sequence number at which the categories were last loaded.
+    private int mPackageSequenceNumber;
+    // User profiles and provisioning state the categories were last loaded for, the tiles depend
+    // on them as well.
+    private List<UserHandle> mUserProfiles;
+    private boolean mDeviceProvisioned;
+    // Whether tiles were removed from the loaded categories by the blacklist. They have to be
+    // loaded again to bring back the tiles removed from the blacklist since.
+    private boolean mTilesBlacklisted;
+
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
             sInstance = new CategoryManager(context);
@@ -82,6 +96,17 @@ public class CategoryManager {
     public synchronized void reloadAllCategories(Context context) {
         final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
                 context.getResources());
+        if (!forceClearCache && mCategories != null && !mTilesBlacklisted
+                && !hasOtherProfiles() && !updatePackageSequenceNumber(context)
+                && !isUserStateChanged(context)) {
+            // No package has been installed, removed, updated or had a component toggled, and
+            // the profiles and provisioning state are the same since the last load, so querying
+            // PackageManager again would produce the same tiles.
+            if (DEBUG) {
+                Log.d(TAG, "No package change, skip reloading categories");
+            }
+            return;
+        }
         mCategories = null;
         tryInitCategories(context, forceClearCache);
     }
@@ -97,6 +122,7 @@ public class CategoryManager {
                 Tile tile = category.getTile(j);
                 if (tileBlacklist.contains(tile.getIntent().getComponent())) {
                     category.removeTile(j--);
+                    mTilesBlacklisted = true;
                 }
             }
         }
@@ -140,6 +166,10 @@ public class CategoryManager {
                 mTileByComponentCache.clear();
             }
             mCategoryByKeyMap.clear();
+            updatePackageSequenceNumber(context);
+            mUserProfiles = getUserProfiles(context);
+            mDeviceProvisioned = isDeviceProvisioned(context);
+            mTilesBlacklisted = false;
             mCategories = TileUtils.getCategories(context, mTileByComponentCache);
             for (DashboardCategory category : mCategories) {
                 mCategoryByKeyMap.put(category.key, category);
@@ -153,6 +183,45 @@ public class CategoryManager {
         }
     }
 
+    /**
+     * Catch up with the package changes made since the last call.
+     *
+     * @return whether any package changed since the last call.
+     */
+    private boolean updatePackageSequenceNumber(Context context) {
+        final ChangedPackages changedPackages =
+                context.getPackageManager().getChangedPackages(mPackageSequenceNumber);
+        if (changedPackages == null) {
+            return false;
+        }
+        mPackageSequenceNumber = changedPackages.getSequenceNumber();
+        return true;
+    }
+
+    /**
+     * Return whether the categories were loaded with other profiles than the current user.
+     * Package changes are only reported for the calling user, so tiles injected by the packages
+     * of other profiles always have to be loaded again.
+     */
+    private boolean hasOtherProfiles() {
+        return mUserProfiles.size() > 1;
+    }
+
+    /** Return whether the profiles or provisioning state changed since the last load. */
+    private boolean isUserStateChanged(Context context) {
+        return !getUserProfiles(context).equals(mUserProfiles)
+                || isDeviceProvisioned(context) != mDeviceProvisioned;
+    }
+
+    private static List<UserHandle> getUserProfiles(Context context) {
+        return context.getSystemService(UserManager.class).getUserProfiles();
+    }
+
+    private static boolean isDeviceProvisioned(Context context) {
+        return Settings.Global.getInt(context.getContentResolver(),
+                Settings.Global.DEVICE_PROVISIONED, 0) != 0;
+    }
+
     @VisibleForTesting
     synchronized void backwardCompatCleanupForCategory(
             Map<Pair<String, String>, Tile> tileByComponentCache,
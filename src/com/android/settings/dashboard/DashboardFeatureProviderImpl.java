@@ -34,11 +34,15 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_TITL
 import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_TITLE_URI;
 
 import android.app.settings.SettingsEnums;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.IContentProvider;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Icon;
 import android.net.Uri;
@@ -48,6 +52,7 @@ import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.Pair;
 import android.widget.Toast;
 
@@ -81,12 +86,23 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private static final String TAG = "DashboardFeatureImpl";
     private static final String DASHBOARD_TILE_PREF_KEY_PREFIX = "dashboard_tile_pref_";
     private static final String META_DATA_KEY_INTENT_ACTION = "com.android.settings.intent.action";
+    private static final int MAX_CACHED_TILE_ICONS = 64;
+
+    // Decoded tile icons keyed by (package, resource id, tint, ui mode, density), shared by all
+    // dashboard pages. Icons of a package are dropped when it is updated, as its resources may
+    // have changed.
+    @VisibleForTesting
+    static final LruCache<String, Drawable.ConstantState> sTileIconCache =
+            new LruCache<>(MAX_CACHED_TILE_ICONS);
+    // Application context the package update receiver of sTileIconCache is registered with.
+    private static Context sTileIconCacheContext;
 
     protected final Context mContext;
 
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private final CategoryManager mCategoryManager;
     private final PackageManager mPackageManager;
+    private final TileDataFetcher mTileDataFetcher = new TileDataFetcher();
 
     public DashboardFeatureProviderImpl(Context context) {
         mContext = context.getApplicationContext();
@@ -244,13 +260,13 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshTitle(Uri uri, Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
+        mTileDataFetcher.enqueue(providerMap -> {
             final String titleFromUri = TileUtils.getTextFromUri(
                     mContext, uri, providerMap, META_DATA_PREFERENCE_TITLE);
-            if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
-                ThreadUtils.postOnMainThread(() -> preference.setTitle(titleFromUri));
+            if (TextUtils.equals(titleFromUri, preference.getTitle())) {
+                return null;
             }
+            return () -> preference.setTitle(titleFromUri);
         });
     }
 
@@ -275,13 +291,13 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshSummary(Uri uri, Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
+        mTileDataFetcher.enqueue(providerMap -> {
             final String summaryFromUri = TileUtils.getTextFromUri(
                     mContext, uri, providerMap, META_DATA_PREFERENCE_SUMMARY);
-            if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
-                ThreadUtils.postOnMainThread(() -> preference.setSummary(summaryFromUri));
+            if (TextUtils.equals(summaryFromUri, preference.getSummary())) {
+                return null;
             }
+            return () -> preference.setSummary(summaryFromUri);
         });
     }
 
@@ -328,14 +344,13 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshSwitch(Uri uri, Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
+        mTileDataFetcher.enqueue(providerMap -> {
             final boolean checked = TileUtils.getBooleanFromUri(mContext, uri, providerMap,
                     EXTRA_SWITCH_CHECKED_STATE);
-            ThreadUtils.postOnMainThread(() -> {
+            return () -> {
                 setSwitchChecked(preference, checked);
                 setSwitchEnabled(preference, true);
-            });
+            };
         });
     }
 
@@ -361,16 +376,39 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         // to get the style to tint the icon. Using mContext here won't get the correct style.
         final Icon tileIcon = tile.getIcon(preference.getContext());
         if (tileIcon != null) {
-            Drawable iconDrawable = tileIcon.loadDrawable(preference.getContext());
-            if (forceRoundedIcon
-                    && !TextUtils.equals(mContext.getPackageName(), tile.getPackageName())) {
-                iconDrawable = new AdaptiveIcon(mContext, iconDrawable);
-                ((AdaptiveIcon) iconDrawable).setBackgroundColor(mContext, tile);
+            final boolean roundIcon = forceRoundedIcon
+                    && !TextUtils.equals(mContext.getPackageName(), tile.getPackageName());
+            final String cacheKey = getIconCacheKey(preference.getContext(), tileIcon);
+            final Drawable.ConstantState cachedIcon =
+                    cacheKey != null ? sTileIconCache.get(cacheKey) : null;
+            if (cacheKey != null) {
+                registerTileIconCacheReceiverIfNeeded(mContext);
             }
-            preference.setIcon(iconDrawable);
+            if (cachedIcon != null) {
+                setTileIcon(preference, tile,
+                        cachedIcon.newDrawable(preference.getContext().getResources()),
+                        roundIcon);
+                return;
+            }
+            if (preference.getIcon() == null) {
+                // Reserve the icon space until the icon is decoded, so the title doesn't shift.
+                preference.setIcon(R.drawable.empty_icon);
+            }
+            // Decode the icon off the main thread, it's applied along with the other tile data.
+            mTileDataFetcher.enqueue(providerMap -> {
+                final Drawable iconDrawable = tileIcon.loadDrawable(preference.getContext());
+                if (iconDrawable == null) {
+                    return null;
+                }
+                final Drawable.ConstantState state = iconDrawable.getConstantState();
+                if (cacheKey != null && state != null) {
+                    sTileIconCache.put(cacheKey, state);
+                }
+                return () -> setTileIcon(preference, tile, iconDrawable, roundIcon);
+            });
         } else if (tile.getMetaData() != null
                 && tile.getMetaData().containsKey(META_DATA_PREFERENCE_ICON_URI)) {
-            ThreadUtils.postOnBackgroundThread(() -> {
+            mTileDataFetcher.enqueue(providerMap -> {
                 final Intent intent = tile.getIntent();
                 String packageName = null;
                 if (!TextUtils.isEmpty(intent.getPackage())) {
@@ -378,23 +416,79 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                 } else if (intent.getComponent() != null) {
                     packageName = intent.getComponent().getPackageName();
                 }
-                final Map<String, IContentProvider> providerMap = new ArrayMap<>();
                 final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
                         METHOD_GET_PROVIDER_ICON);
                 final Pair<String, Integer> iconInfo = TileUtils.getIconFromUri(
                         mContext, packageName, uri, providerMap);
                 if (iconInfo == null) {
                     Log.w(TAG, "Failed to get icon from uri " + uri);
-                    return;
+                    return null;
                 }
                 final Icon icon = Icon.createWithResource(iconInfo.first, iconInfo.second);
-                ThreadUtils.postOnMainThread(() ->
-                        preference.setIcon(icon.loadDrawable(preference.getContext()))
-                );
+                return () -> preference.setIcon(icon.loadDrawable(preference.getContext()));
             });
         }
     }
 
+    private void setTileIcon(Preference preference, Tile tile, Drawable iconDrawable,
+            boolean roundIcon) {
+        if (roundIcon) {
+            iconDrawable = new AdaptiveIcon(mContext, iconDrawable);
+            ((AdaptiveIcon) iconDrawable).setBackgroundColor(mContext, tile);
+        }
+        preference.setIcon(iconDrawable);
+    }
+
+    /**
+     * Return the key to cache {@code icon} loaded with {@code context} with, or {@code null} if it
+     * isn't a resource icon and can't be cached. Resources may differ by night mode and density,
+     * so they are part of the key.
+     */
+    @VisibleForTesting
+    static String getIconCacheKey(Context context, Icon icon) {
+        if (icon.getType() != Icon.TYPE_RESOURCE) {
+            return null;
+        }
+        final ColorStateList tint = icon.getTintList();
+        final Configuration config = context.getResources().getConfiguration();
+        return icon.getResPackage() + "/" + icon.getResId() + "/"
+                + (tint != null ? tint.getDefaultColor() : 0) + "/" + config.uiMode + "/"
+                + config.densityDpi;
+    }
+
+    @VisibleForTesting
+    static void clearTileIconCache() {
+        sTileIconCache.evictAll();
+    }
+
+    private static synchronized void registerTileIconCacheReceiverIfNeeded(Context appContext) {
+        if (appContext == null || appContext == sTileIconCacheContext) {
+            return;
+        }
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        appContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (intent.getData() != null) {
+                    evictTileIcons(intent.getData().getSchemeSpecificPart());
+                }
+            }
+        }, filter);
+        sTileIconCacheContext = appContext;
+    }
+
+    /** Drop the cached icons of {@code packageName}. */
+    @VisibleForTesting
+    static void evictTileIcons(String packageName) {
+        final String prefix = packageName + "/";
+        for (String key : sTileIconCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                sTileIconCache.remove(key);
+            }
+        }
+    }
+
     private void launchIntentOrSelectProfile(FragmentActivity activity, Tile tile, Intent intent,
             int sourceMetricCategory) {
         if (!isIntentResolvable(intent)) {
@@ -39,6 +39,7 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.FeatureFlags;
 import com.android.settings.core.PreferenceControllerListHelper;
 import com.android.settings.core.SettingsBaseActivity;
+import com.android.settings.core.instrumentation.StartupTrace;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.widget.MasterSwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -89,6 +90,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 R.array.config_suppress_injected_tile_keys));
         mDashboardFeatureProvider = FeatureFactory.getFactory(context).
                 getDashboardFeatureProvider(context);
+        StartupTrace.beginPhase(StartupTrace.PHASE_CREATE_CONTROLLERS);
         // Load preference controllers from code
         final List<AbstractPreferenceController> controllersFromCode =
                 createPreferenceControllers(context);
@@ -128,6 +130,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         for (AbstractPreferenceController controller : mControllers) {
             addPreferenceController(controller);
         }
+        StartupTrace.endPhase(StartupTrace.PHASE_CREATE_CONTROLLERS);
     }
 
     @VisibleForTesting
@@ -181,7 +184,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         checkUiBlocker(mControllers);
+        StartupTrace.beginPhase(StartupTrace.PHASE_INFLATE_PREFERENCES);
         refreshAllPreferences(getLogTag());
+        StartupTrace.endPhase(StartupTrace.PHASE_INFLATE_PREFERENCES);
         mControllers.stream()
                 .map(controller -> (Preference) findPreference(controller.getPreferenceKey()))
                 .filter(Objects::nonNull)
@@ -218,7 +223,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onResume() {
         super.onResume();
+        StartupTrace.beginPhase(StartupTrace.PHASE_FIRST_UPDATE_STATE);
         updatePreferenceStates();
+        StartupTrace.endPhase(StartupTrace.PHASE_FIRST_UPDATE_STATE);
         writeElapsedTimeMetric(SettingsEnums.ACTION_DASHBOARD_VISIBLE_TIME,
                 "isParalleledControllers:" + isParalleledControllers());
     }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.IContentProvider;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches the content provider lookups made for injected tiles (dynamic title, summary, switch
+ * state and icon).
+ *
+ * <p>Requests enqueued while a batch is pending or running are run together on one background
+ * task that shares a single provider map, so each provider authority is acquired once per batch
+ * instead of once per lookup. The UI update of each request is posted to the main thread as soon
+ * as its lookup completes, and a failing lookup doesn't affect the others.
+ */
+class TileDataFetcher {
+
+    private static final String TAG = "TileDataFetcher";
+
+    /** A single provider lookup. */
+    interface Request {
+        /**
+         * Run the lookup on a background thread.
+         *
+         * @param providerMap providers already acquired in this batch, keyed by authority.
+         * @return the update to apply on the main thread, or {@code null} if there is none.
+         */
+        Runnable fetch(Map<String, IContentProvider> providerMap);
+    }
+
+    private final Object mLock = new Object();
+    private List<Request> mPendingRequests = new ArrayList<>();
+    private boolean mBatchScheduled;
+
+    /** Queue {@code request} to run with the next batch. */
+    void enqueue(Request request) {
+        synchronized (mLock) {
+            mPendingRequests.add(request);
+            if (mBatchScheduled) {
+                return;
+            }
+            mBatchScheduled = true;
+        }
+        ThreadUtils.postOnBackgroundThread(this::runBatch);
+    }
+
+    private void runBatch() {
+        final Map<String, IContentProvider> providerMap = new ArrayMap<>();
+        while (true) {
+            final List<Request> requests;
+            synchronized (mLock) {
+                if (mPendingRequests.isEmpty()) {
+                    mBatchScheduled = false;
+                    return;
+                }
+                requests = mPendingRequests;
+                mPendingRequests = new ArrayList<>();
+            }
+
+            for (Request request : requests) {
+                final Runnable update;
+                try {
+                    update = request.fetch(providerMap);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to fetch tile data", e);
+                    continue;
+                }
+                if (update != null) {
+                    ThreadUtils.postOnMainThread(update);
+                }
+            }
+        }
+    }
+}
@@ -42,6 +42,7 @@ import androidx.preference.PreferenceCategory;
 
 import com.android.settings.R;
 import com.android.settings.applications.AppInfoBase;
+import com.android.settings.datausage.lib.NetworkUsageCache;
 import com.android.settings.widget.EntityHeaderController;
 import com.android.settingslib.AppItem;
 import com.android.settingslib.RestrictedLockUtils.EnforcedAdmin;
@@ -104,6 +105,8 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
     private Context mContext;
     private ArrayList<Long> mCycles;
     private long mSelectedCycle;
+    @VisibleForTesting
+    NetworkUsageCache mUsageCache = NetworkUsageCache.getInstance();
 
     @Override
     public void onCreate(Bundle icicle) {
@@ -219,8 +222,14 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
         if (mDataSaverBackend != null) {
             mDataSaverBackend.addListener(this);
         }
-        LoaderManager.getInstance(this).restartLoader(LOADER_APP_USAGE_DATA, null /* args */,
-                mUidDataCallbacks);
+        final List<NetworkCycleDataForUid> cachedUsageData = mUsageCache.getUidCycleData(
+                mTemplate, getUsageUids(), mCycles, System.currentTimeMillis());
+        if (cachedUsageData != null) {
+            mUidDataCallbacks.onLoadFinished(null /* loader */, cachedUsageData);
+        } else {
+            LoaderManager.getInstance(this).restartLoader(LOADER_APP_USAGE_DATA,
+                    null /* args */, mUidDataCallbacks);
+        }
         updatePrefs();
     }
 
@@ -303,6 +312,18 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
         }
     }
 
+    /** Return the uids whose usage is shown for {@link #mAppItem}. */
+    private int[] getUsageUids() {
+        if (mAppItem.category == AppItem.CATEGORY_USER) {
+            final int[] uids = new int[mAppItem.uids.size()];
+            for (int i = 0; i < uids.length; i++) {
+                uids[i] = mAppItem.uids.keyAt(i);
+            }
+            return uids;
+        }
+        return new int[] {mAppItem.key};
+    }
+
     @VisibleForTesting
     void bindData(int position) {
         final long backgroundBytes, foregroundBytes;
@@ -394,12 +415,8 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
                     = NetworkCycleDataForUidLoader.builder(mContext);
                 builder.setRetrieveDetail(true)
                     .setNetworkTemplate(mTemplate);
-                if (mAppItem.category == AppItem.CATEGORY_USER) {
-                    for (int i = 0; i < mAppItem.uids.size(); i++) {
-                        builder.addUid(mAppItem.uids.keyAt(i));
-                    }
-                } else {
-                    builder.addUid(mAppItem.key);
+                for (int uid : getUsageUids()) {
+                    builder.addUid(uid);
                 }
                 if (mCycles != null) {
                     builder.setCycles(mCycles);
@@ -410,6 +427,10 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
             @Override
             public void onLoadFinished(Loader<List<NetworkCycleDataForUid>> loader,
                     List<NetworkCycleDataForUid> data) {
+                if (loader != null) {
+                    mUsageCache.putUidCycleData(mTemplate, getUsageUids(), mCycles, data,
+                            System.currentTimeMillis());
+                }
                 mUsageData = data;
                 mCycleAdapter.updateCycleList(data);
                 if (mSelectedCycle > 0L) {
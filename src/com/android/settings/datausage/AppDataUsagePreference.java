@@ -32,13 +32,16 @@ public class AppDataUsagePreference extends AppPreference {
 
     private final AppItem mItem;
     private final int mPercent;
+    private final UidDetailProvider mProvider;
     private UidDetail mDetail;
+    private boolean mDetailRequested;
 
     public AppDataUsagePreference(Context context, AppItem item, int percent,
             UidDetailProvider provider) {
         super(context);
         mItem = item;
         mPercent = percent;
+        mProvider = provider;
 
         if (item.restricted && item.total <= 0) {
             setSummary(com.android.settings.R.string.data_usage_app_restricted);
@@ -48,17 +51,21 @@ public class AppDataUsagePreference extends AppPreference {
         mDetail = provider.getUidDetail(item.key, false /* blocking */);
         if (mDetail != null) {
             setAppInfo();
-        } else {
-            ThreadUtils.postOnBackgroundThread(() -> {
-                mDetail = provider.getUidDetail(mItem.key, true /* blocking */);
-                ThreadUtils.postOnMainThread(() -> setAppInfo());
-            });
         }
+        // Otherwise the detail is loaded when the row is first bound, so lists with many apps
+        // only pay for the icons and labels that are actually shown.
     }
 
     @Override
     public void onBindViewHolder(PreferenceViewHolder holder) {
         super.onBindViewHolder(holder);
+        if (mDetail == null && !mDetailRequested) {
+            mDetailRequested = true;
+            ThreadUtils.postOnBackgroundThread(() -> {
+                mDetail = mProvider.getUidDetail(mItem.key, true /* blocking */);
+                ThreadUtils.postOnMainThread(() -> setAppInfo());
+            });
+        }
         final ProgressBar progress = (ProgressBar) holder.findViewById(
                 android.R.id.progress);
 
@@ -24,7 +24,6 @@ import android.app.Activity;
 import android.app.ActivityManager;
 import android.app.settings.SettingsEnums;
 import android.app.usage.NetworkStats;
-import android.app.usage.NetworkStats.Bucket;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.UserInfo;
@@ -41,6 +40,7 @@ import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.util.Log;
 import android.util.SparseArray;
+import android.util.SparseLongArray;
 import android.view.View;
 import android.view.View.AccessibilityDelegate;
 import android.view.accessibility.AccessibilityEvent;
@@ -58,6 +58,7 @@ import androidx.preference.PreferenceGroup;
 import com.android.settings.R;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.datausage.CycleAdapter.SpinnerInterface;
+import com.android.settings.datausage.lib.NetworkUsageCache;
 import com.android.settings.network.MobileDataEnabledListener;
 import com.android.settings.network.ProxySubscriptionManager;
 import com.android.settings.widget.LoadingViewController;
@@ -111,6 +112,9 @@ public class DataUsageList extends DataUsageBaseFragment
     @VisibleForTesting
     LoadingViewController mLoadingViewController;
 
+    @VisibleForTesting
+    NetworkUsageCache mUsageCache = NetworkUsageCache.getInstance();
+
     private ChartDataUsagePreference mChart;
     private List<NetworkCycleChartData> mCycleData;
     private ArrayList<Long> mCycles;
@@ -203,11 +207,19 @@ public class DataUsageList extends DataUsageBaseFragment
         super.onResume();
         mDataStateListener.start(mSubId);
 
-        // kick off loader for network history
+        // show the last known network history right away, then kick off loader to refresh it
+        // if it is stale
         // TODO: consider chaining two loaders together instead of reloading
         // network history when showing app detail.
-        getLoaderManager().restartLoader(LOADER_CHART_DATA,
-                buildArgs(mTemplate), mNetworkCycleDataCallbacks);
+        final List<NetworkCycleChartData> cachedCycleData = mUsageCache.getCycleData(mTemplate);
+        if (cachedCycleData != null && mCycleAdapter != null) {
+            mNetworkCycleDataCallbacks.onLoadFinished(null /* loader */, cachedCycleData);
+        }
+        if (cachedCycleData == null || mCycleAdapter == null
+                || mUsageCache.isCycleDataStale(mTemplate, System.currentTimeMillis())) {
+            getLoaderManager().restartLoader(LOADER_CHART_DATA,
+                    buildArgs(mTemplate), mNetworkCycleDataCallbacks);
+        }
 
         updateBody();
     }
@@ -329,9 +341,17 @@ public class DataUsageList extends DataUsageBaseFragment
     private void updateDetailData() {
         if (LOGD) Log.d(TAG, "updateDetailData()");
 
-        // kick off loader for detailed stats
-        getLoaderManager().restartLoader(LOADER_SUMMARY, null /* args */,
-                mNetworkStatsDetailCallbacks);
+        // serve detailed stats from memory when this cycle was already loaded, otherwise
+        // kick off loader for them
+        final SparseLongArray cachedUsage = mUsageCache.getUidUsage(mTemplate,
+                mChart.getInspectStart(), mChart.getInspectEnd(), System.currentTimeMillis());
+        if (cachedUsage != null) {
+            getLoaderManager().destroyLoader(LOADER_SUMMARY);
+            mNetworkStatsDetailCallbacks.bindUsage(cachedUsage);
+        } else {
+            getLoaderManager().restartLoader(LOADER_SUMMARY, null /* args */,
+                    mNetworkStatsDetailCallbacks);
+        }
 
         final long totalBytes = mCycleData != null && !mCycleData.isEmpty()
             ? mCycleData.get(mCycleSpinner.getSelectedItemPosition()).getTotalUsage() : 0;
@@ -340,11 +360,11 @@ public class DataUsageList extends DataUsageBaseFragment
     }
 
     /**
-     * Bind the given {@link NetworkStats}, or {@code null} to clear list.
+     * Bind the given per-UID usage, or {@code null} to clear list.
      */
-    private void bindStats(NetworkStats stats, int[] restrictedUids) {
+    private void bindStats(SparseLongArray usage, int[] restrictedUids) {
         mApps.removeAll();
-        if (stats == null) {
+        if (usage == null) {
             if (LOGD) {
                 Log.d(TAG, "No network stats data. App list cleared.");
             }
@@ -359,10 +379,10 @@ public class DataUsageList extends DataUsageBaseFragment
         final List<UserHandle> profiles = userManager.getUserProfiles();
         final SparseArray<AppItem> knownItems = new SparseArray<AppItem>();
 
-        final Bucket bucket = new Bucket();
-        while (stats.hasNextBucket() && stats.getNextBucket(bucket)) {
+        for (int i = 0, size = usage.size(); i < size; i++) {
             // Decide how to collapse items together
-            final int uid = bucket.getUid();
+            final int uid = usage.keyAt(i);
+            final long bytes = usage.valueAt(i);
             final int collapseKey;
             final int category;
             final int userId = UserHandle.getUserId(uid);
@@ -371,7 +391,7 @@ public class DataUsageList extends DataUsageBaseFragment
                     if (userId != currentUserId) {
                         // Add to a managed user item.
                         final int managedKey = UidDetailProvider.buildKeyForUser(userId);
-                        largest = accumulate(managedKey, knownItems, bucket,
+                        largest = accumulate(managedKey, knownItems, uid, bytes,
                             AppItem.CATEGORY_USER, items, largest);
                     }
                     // Add to app item.
@@ -397,9 +417,8 @@ public class DataUsageList extends DataUsageBaseFragment
                 collapseKey = android.os.Process.SYSTEM_UID;
                 category = AppItem.CATEGORY_APP;
             }
-            largest = accumulate(collapseKey, knownItems, bucket, category, items, largest);
+            largest = accumulate(collapseKey, knownItems, uid, bytes, category, items, largest);
         }
-        stats.close();
 
         final int restrictedUidsMax = restrictedUids.length;
         for (int i = 0; i < restrictedUidsMax; ++i) {
@@ -424,19 +443,17 @@ public class DataUsageList extends DataUsageBaseFragment
             final int percentTotal = largest != 0 ? (int) (items.get(i).total * 100 / largest) : 0;
             final AppDataUsagePreference preference = new AppDataUsagePreference(getContext(),
                     items.get(i), percentTotal, mUidDetailProvider);
-            preference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
-                @Override
-                public boolean onPreferenceClick(Preference preference) {
-                    AppDataUsagePreference pref = (AppDataUsagePreference) preference;
-                    AppItem item = pref.getItem();
-                    startAppDataUsage(item);
-                    return true;
-                }
-            });
+            preference.setOnPreferenceClickListener(mAppClickListener);
             mApps.addPreference(preference);
         }
     }
 
+    private final Preference.OnPreferenceClickListener mAppClickListener = preference -> {
+        final AppItem item = ((AppDataUsagePreference) preference).getItem();
+        startAppDataUsage(item);
+        return true;
+    };
+
     @VisibleForTesting
     void startAppDataUsage(AppItem item) {
         final Bundle args = new Bundle();
@@ -464,17 +481,17 @@ public class DataUsageList extends DataUsageBaseFragment
     }
 
     /**
-     * Accumulate data usage of a network stats entry for the item mapped by the collapse key.
+     * Accumulate data usage of a uid for the item mapped by the collapse key.
      * Creates the item if needed.
      *
      * @param collapseKey  the collapse key used to map the item.
      * @param knownItems   collection of known (already existing) items.
-     * @param bucket       the network stats bucket to extract data usage from.
+     * @param uid          the uid the data usage belongs to.
+     * @param bytes        the total data usage of the uid.
      * @param itemCategory the item is categorized on the list view by this category. Must be
      */
     private static long accumulate(int collapseKey, final SparseArray<AppItem> knownItems,
-            Bucket bucket, int itemCategory, ArrayList<AppItem> items, long largest) {
-        final int uid = bucket.getUid();
+            int uid, long bytes, int itemCategory, ArrayList<AppItem> items, long largest) {
         AppItem item = knownItems.get(collapseKey);
         if (item == null) {
             item = new AppItem(collapseKey);
@@ -483,7 +500,7 @@ public class DataUsageList extends DataUsageBaseFragment
             knownItems.put(item.key, item);
         }
         item.addUid(uid);
-        item.total += bucket.getRxBytes() + bucket.getTxBytes();
+        item.total += bytes;
         return Math.max(largest, item.total);
     }
 
@@ -526,6 +543,9 @@ public class DataUsageList extends DataUsageBaseFragment
                 List<NetworkCycleChartData> data) {
             mLoadingViewController.showContent(false /* animate */);
             mCycleData = data;
+            if (loader != null) {
+                mUsageCache.putCycleData(mTemplate, data, System.currentTimeMillis());
+            }
             // calculate policy cycles based on available data
             updatePolicy();
             mCycleSpinner.setVisibility(View.VISIBLE);
@@ -537,8 +557,12 @@ public class DataUsageList extends DataUsageBaseFragment
         }
     };
 
-    private final LoaderCallbacks<NetworkStats> mNetworkStatsDetailCallbacks =
-            new LoaderCallbacks<NetworkStats>() {
+    @VisibleForTesting
+    final NetworkStatsDetailCallbacks mNetworkStatsDetailCallbacks =
+            new NetworkStatsDetailCallbacks();
+
+    @VisibleForTesting
+    class NetworkStatsDetailCallbacks implements LoaderCallbacks<NetworkStats> {
         @Override
         public Loader<NetworkStats> onCreateLoader(int id, Bundle args) {
             return new NetworkStatsSummaryLoader.Builder(getContext())
@@ -550,10 +574,16 @@ public class DataUsageList extends DataUsageBaseFragment
 
         @Override
         public void onLoadFinished(Loader<NetworkStats> loader, NetworkStats data) {
-            final int[] restrictedUids = services.mPolicyManager.getUidsWithPolicy(
-                    POLICY_REJECT_METERED_BACKGROUND);
-            bindStats(data, restrictedUids);
-            updateEmptyVisible();
+            if (data == null) {
+                // No stats, clear the list. Not cached, so the next bind loads again.
+                bindStats(null, new int[0]);
+                updateEmptyVisible();
+                return;
+            }
+            final SparseLongArray usage = NetworkUsageCache.collectUidUsage(data);
+            mUsageCache.putUidUsage(mTemplate, mChart.getInspectStart(),
+                    mChart.getInspectEnd(), usage, System.currentTimeMillis());
+            bindUsage(usage);
         }
 
         @Override
@@ -562,6 +592,13 @@ public class DataUsageList extends DataUsageBaseFragment
             updateEmptyVisible();
         }
 
+        void bindUsage(SparseLongArray usage) {
+            final int[] restrictedUids = services.mPolicyManager.getUidsWithPolicy(
+                    POLICY_REJECT_METERED_BACKGROUND);
+            bindStats(usage, restrictedUids);
+            updateEmptyVisible();
+        }
+
         private void updateEmptyVisible() {
             if ((mApps.getPreferenceCount() != 0) !=
                     (getPreferenceScreen().getPreferenceCount() != 0)) {
@@ -573,5 +610,5 @@ public class DataUsageList extends DataUsageBaseFragment
                 }
             }
         }
-    };
+    }
 }
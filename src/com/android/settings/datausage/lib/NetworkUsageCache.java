@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage.lib;
+
+import android.app.usage.NetworkStats;
+import android.app.usage.NetworkStats.Bucket;
+import android.net.NetworkTemplate;
+import android.util.ArrayMap;
+import android.util.LruCache;
+import android.util.SparseLongArray;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.net.NetworkCycleChartData;
+import com.android.settingslib.net.NetworkCycleDataForUid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Process wide, in-memory cache of network usage queried for the data usage screens.
+ *
+ * <p>Per-UID usage is aggregated once per (template, cycle) into a {@link SparseLongArray}
+ * keyed by uid, and the per-cycle foreground and background usage of a set of uids is kept
+ * per (template, uids, cycles) so app detail pages can be reopened without querying. Cycles
+ * that ended before they were queried can no longer change, so they are kept until evicted;
+ * the cycle that is still in progress is only served for {@link #OPEN_CYCLE_TTL_MS} before it
+ * has to be queried again.
+ */
+public class NetworkUsageCache {
+
+    @VisibleForTesting
+    static final long OPEN_CYCLE_TTL_MS = 30 * 1000L;
+    private static final int MAX_UID_USAGE_ENTRIES = 32;
+    private static final int MAX_UID_CYCLE_DATA_ENTRIES = 64;
+
+    private static NetworkUsageCache sInstance;
+
+    private final ArrayMap<NetworkTemplate, Entry<List<NetworkCycleChartData>>> mCycleData =
+            new ArrayMap<>();
+    private final LruCache<CycleKey, Entry<SparseLongArray>> mUidUsage =
+            new LruCache<>(MAX_UID_USAGE_ENTRIES);
+    private final LruCache<UidCyclesKey, Entry<List<NetworkCycleDataForUid>>> mUidCycleData =
+            new LruCache<>(MAX_UID_CYCLE_DATA_ENTRIES);
+
+    /** Return the process wide instance. */
+    public static synchronized NetworkUsageCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new NetworkUsageCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    NetworkUsageCache() {
+    }
+
+    /**
+     * Return the chart data last loaded for {@code template}, or {@code null} if none. The
+     * result may be stale, see {@link #isCycleDataStale}, and is then meant to be shown while a
+     * fresh copy is being loaded.
+     */
+    public synchronized List<NetworkCycleChartData> getCycleData(NetworkTemplate template) {
+        final Entry<List<NetworkCycleChartData>> entry = mCycleData.get(template);
+        return entry != null ? entry.mData : null;
+    }
+
+    /**
+     * Return whether the chart data of {@code template} was never loaded or is stale at
+     * {@code now}, and has to be loaded again.
+     */
+    public synchronized boolean isCycleDataStale(NetworkTemplate template, long now) {
+        final Entry<List<NetworkCycleChartData>> entry = mCycleData.get(template);
+        return entry == null || entry.isStale(now);
+    }
+
+    /** Remember the chart data loaded for {@code template} at {@code now}. */
+    public synchronized void putCycleData(NetworkTemplate template,
+            List<NetworkCycleChartData> data, long now) {
+        if (data == null) {
+            mCycleData.remove(template);
+        } else {
+            // The chart is loaded up to now, so it always has the cycle in progress.
+            mCycleData.put(template, new Entry<>(data, now, true /* open */));
+        }
+    }
+
+    /**
+     * Return the per-UID usage of {@code template} between {@code start} and {@code end}, or
+     * {@code null} if it was never loaded or is stale at {@code now}.
+     */
+    public synchronized SparseLongArray getUidUsage(NetworkTemplate template, long start,
+            long end, long now) {
+        final CycleKey key = new CycleKey(template, start, end);
+        final Entry<SparseLongArray> entry = mUidUsage.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isStale(now)) {
+            mUidUsage.remove(key);
+            return null;
+        }
+        return entry.mData;
+    }
+
+    /** Remember the per-UID usage of {@code template} between {@code start} and {@code end}. */
+    public synchronized void putUidUsage(NetworkTemplate template, long start, long end,
+            SparseLongArray usage, long now) {
+        mUidUsage.put(new CycleKey(template, start, end), new Entry<>(usage, now, end > now));
+    }
+
+    /**
+     * Return the per-cycle usage of {@code uids} on {@code template} for {@code cycles}, or
+     * {@code null} if it was never loaded or is stale at {@code now}.
+     */
+    public synchronized List<NetworkCycleDataForUid> getUidCycleData(NetworkTemplate template,
+            int[] uids, List<Long> cycles, long now) {
+        final UidCyclesKey key = new UidCyclesKey(template, uids, cycles);
+        final Entry<List<NetworkCycleDataForUid>> entry = mUidCycleData.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isStale(now)) {
+            mUidCycleData.remove(key);
+            return null;
+        }
+        return entry.mData;
+    }
+
+    /** Remember the per-cycle usage of {@code uids} on {@code template} for {@code cycles}. */
+    public synchronized void putUidCycleData(NetworkTemplate template, int[] uids,
+            List<Long> cycles, List<NetworkCycleDataForUid> data, long now) {
+        if (data == null) {
+            return;
+        }
+        // The loaded data only has the cycles with usage, so whether the current cycle is part
+        // of it is decided from the requested cycles.
+        mUidCycleData.put(new UidCyclesKey(template, uids, cycles),
+                new Entry<>(data, now, isOpen(cycles, now)));
+    }
+
+    /** Drop everything that was cached. */
+    public synchronized void clear() {
+        mCycleData.clear();
+        mUidUsage.evictAll();
+        mUidCycleData.evictAll();
+    }
+
+    /**
+     * Aggregate the total rx and tx bytes of all buckets in {@code stats} by uid, and close
+     * {@code stats}.
+     */
+    public static SparseLongArray collectUidUsage(NetworkStats stats) {
+        final SparseLongArray usage = new SparseLongArray();
+        if (stats == null) {
+            return usage;
+        }
+        final Bucket bucket = new Bucket();
+        while (stats.hasNextBucket() && stats.getNextBucket(bucket)) {
+            final int uid = bucket.getUid();
+            usage.put(uid, usage.get(uid) + bucket.getRxBytes() + bucket.getTxBytes());
+        }
+        stats.close();
+        return usage;
+    }
+
+    /**
+     * Return whether {@code cycles} end after {@code now}. Without explicit cycles the loader
+     * queries the cycles of the policy up to now, which include the one in progress.
+     */
+    private static boolean isOpen(List<Long> cycles, long now) {
+        return cycles == null || cycles.isEmpty() || Collections.max(cycles) > now;
+    }
+
+    private static class Entry<T> {
+        final T mData;
+        final long mLoadedTime;
+        // Whether the data covers a cycle that was still in progress when loaded.
+        final boolean mOpen;
+
+        Entry(T data, long loadedTime, boolean open) {
+            mData = data;
+            mLoadedTime = loadedTime;
+            mOpen = open;
+        }
+
+        boolean isStale(long now) {
+            return mOpen && now - mLoadedTime > OPEN_CYCLE_TTL_MS;
+        }
+    }
+
+    private static class CycleKey {
+        final NetworkTemplate mTemplate;
+        final long mStart;
+        final long mEnd;
+
+        CycleKey(NetworkTemplate template, long start, long end) {
+            mTemplate = template;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CycleKey)) {
+                return false;
+            }
+            final CycleKey other = (CycleKey) o;
+            return mStart == other.mStart && mEnd == other.mEnd
+                    && Objects.equals(mTemplate, other.mTemplate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mTemplate, mStart, mEnd);
+        }
+    }
+
+    private static class UidCyclesKey {
+        final NetworkTemplate mTemplate;
+        final int[] mUids;
+        final List<Long> mCycles;
+
+        UidCyclesKey(NetworkTemplate template, int[] uids, List<Long> cycles) {
+            mTemplate = template;
+            mUids = uids.clone();
+            Arrays.sort(mUids);
+            mCycles = cycles == null ? null : new ArrayList<>(cycles);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof UidCyclesKey)) {
+                return false;
+            }
+            final UidCyclesKey other = (UidCyclesKey) o;
+            return Arrays.equals(mUids, other.mUids)
+                    && Objects.equals(mTemplate, other.mTemplate)
+                    && Objects.equals(mCycles, other.mCycles);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mTemplate, Arrays.hashCode(mUids), mCycles);
+        }
+    }
+}
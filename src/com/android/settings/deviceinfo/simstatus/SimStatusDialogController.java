@@ -56,6 +56,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settingslib.DeviceInfoUtils;
 import com.android.settingslib.Utils;
 import com.android.settingslib.core.lifecycle.Lifecycle;
@@ -67,6 +68,8 @@ import com.android.settingslib.utils.ThreadUtils;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class SimStatusDialogController implements LifecycleObserver, OnResume, OnPause {
 
@@ -141,6 +144,15 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
     private SubscriptionInfo mSubscriptionInfo;
     private TelephonyDisplayInfo mTelephonyDisplayInfo;
     private ServiceState mPreviousServiceState;
+    // Last states loaded or reported by telephony, so they aren't read again on the main thread.
+    // They are cleared when a load starts, so a state set since was reported by the listener and
+    // is newer than the one being loaded.
+    private ServiceState mServiceState;
+    private SignalStrength mSignalStrength;
+    // Whether the listener reported a network type change since the load started.
+    private boolean mNetworkTypeUpdated;
+    // Incremented for each load of the subscription status, results of older loads are dropped.
+    private int mLoadGeneration;
 
     private final int mSlotIndex;
     private TelephonyManager mTelephonyManager;
@@ -239,22 +251,61 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
     private void updateSubscriptionStatus() {
         updateNetworkProvider();
 
-        final ServiceState serviceState = mTelephonyManager.getServiceState();
-        final SignalStrength signalStrength = mTelephonyManager.getSignalStrength();
+        // The other fields are fetched concurrently off the main thread, and each one is shown
+        // as soon as it arrives.
+        final int generation = ++mLoadGeneration;
+        final SubscriptionInfo subscriptionInfo = mSubscriptionInfo;
+        final TelephonyManager telephonyManager = mTelephonyManager;
+        mServiceState = null;
+        mSignalStrength = null;
+        mNetworkTypeUpdated = false;
+        loadField(generation,
+                () -> DeviceInfoUtils.getBidiFormattedPhoneNumber(mContext, subscriptionInfo),
+                this::updatePhoneNumber);
+        loadField(generation, () -> {
+            // Signal strength and network type depend on the carrier config, load it with them.
+            getCarrierConfig(subscriptionInfo);
+            return new RadioState(telephonyManager);
+        }, this::updateRadioState);
+        loadField(generation, () -> getIccid(subscriptionInfo, telephonyManager),
+                this::updateIccidNumber);
+        loadField(generation, () -> isImsRegistrationStateShowUp(subscriptionInfo),
+                this::updateImsRegistrationState);
+    }
+
+    private <T> void loadField(int generation, Supplier<T> source, Consumer<T> renderer) {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final T value = source.get();
+            ThreadUtils.postOnMainThread(() -> {
+                if (generation == mLoadGeneration) {
+                    renderer.accept(value);
+                }
+            });
+        });
+    }
 
-        updatePhoneNumber();
-        updateServiceState(serviceState);
-        updateSignalStrength(signalStrength);
-        updateNetworkType();
-        updateRoamingStatus(serviceState);
-        updateIccidNumber();
-        updateImsRegistrationState();
+    private void updateRadioState(RadioState radioState) {
+        // Only show the loaded states the listener hasn't reported a newer value for.
+        if (mServiceState == null) {
+            mServiceState = radioState.mServiceState;
+            updateServiceState(radioState.mServiceState);
+            updateRoamingStatus(radioState.mServiceState);
+        }
+        if (mSignalStrength == null) {
+            mSignalStrength = radioState.mSignalStrength;
+            updateSignalStrength(radioState.mSignalStrength);
+        }
+        if (!mNetworkTypeUpdated) {
+            updateNetworkType(radioState.mDataNetworkType, radioState.mVoiceNetworkType);
+        }
     }
 
     /**
      * Deinitialization works
      */
     public void deinitialize() {
+        // Drop the fields still being loaded.
+        mLoadGeneration++;
         if (mShowLatestAreaInfo) {
             if (mCellBroadcastServiceConnection != null
                     && mCellBroadcastServiceConnection.getService() != null) {
@@ -319,10 +370,9 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
         mDialog.setText(NETWORK_PROVIDER_VALUE_ID, carrierName);
     }
 
-    private void updatePhoneNumber() {
+    private void updatePhoneNumber(String formattedNumber) {
         // If formattedNumber is null or empty, it'll display as "Unknown".
-        mDialog.setText(PHONE_NUMBER_VALUE_ID,
-                DeviceInfoUtils.getBidiFormattedPhoneNumber(mContext, mSubscriptionInfo));
+        mDialog.setText(PHONE_NUMBER_VALUE_ID, formattedNumber);
     }
 
     private void updateDataState(int state) {
@@ -441,7 +491,7 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
             resetSignalStrength();
         } else if (!Utils.isInService(mPreviousServiceState)) {
             // If ServiceState changed from out of service -> in service, update signal strength.
-            updateSignalStrength(mTelephonyManager.getSignalStrength());
+            updateSignalStrength(getSignalStrength());
         }
 
         String serviceStateValue;
@@ -475,8 +525,8 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
         boolean showSignalStrength = true;
         if (mSubscriptionInfo != null) {
             final int subscriptionId = mSubscriptionInfo.getSubscriptionId();
-            final PersistableBundle carrierConfig =
-                    mCarrierConfigManager.getConfigForSubId(subscriptionId);
+            final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(
+                    mContext, mCarrierConfigManager, subscriptionId);
             if (carrierConfig != null) {
                 showSignalStrength = carrierConfig.getBoolean(
                         CarrierConfigManager.KEY_SHOW_SIGNAL_STRENGTH_IN_SIM_STATUS_BOOL);
@@ -488,7 +538,7 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
             return;
         }
 
-        ServiceState serviceState = mTelephonyManager.getServiceState();
+        ServiceState serviceState = getServiceState();
         if (!Utils.isInService(serviceState)) {
             return;
         }
@@ -508,11 +558,29 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
                 signalDbm, signalAsu));
     }
 
+    private ServiceState getServiceState() {
+        return mServiceState != null ? mServiceState : mTelephonyManager.getServiceState();
+    }
+
+    private SignalStrength getSignalStrength() {
+        return mSignalStrength != null ? mSignalStrength : mTelephonyManager.getSignalStrength();
+    }
+
     private void resetSignalStrength() {
         mDialog.setText(SIGNAL_STRENGTH_VALUE_ID, "0");
     }
 
     private void updateNetworkType() {
+        if (mSubscriptionInfo == null) {
+            updateNetworkType(TelephonyManager.NETWORK_TYPE_UNKNOWN,
+                    TelephonyManager.NETWORK_TYPE_UNKNOWN);
+            return;
+        }
+        updateNetworkType(mTelephonyManager.getDataNetworkType(),
+                mTelephonyManager.getVoiceNetworkType());
+    }
+
+    private void updateNetworkType(int actualDataNetworkType, int actualVoiceNetworkType) {
         // TODO: all of this should be based on TelephonyDisplayInfo instead of just the 5G logic
         if (mSubscriptionInfo == null) {
             final String unknownNetworkType =
@@ -526,8 +594,6 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
         String dataNetworkTypeName = null;
         String voiceNetworkTypeName = null;
         final int subId = mSubscriptionInfo.getSubscriptionId();
-        final int actualDataNetworkType = mTelephonyManager.getDataNetworkType();
-        final int actualVoiceNetworkType = mTelephonyManager.getVoiceNetworkType();
         final int overrideNetworkType = mTelephonyDisplayInfo == null
                 ? TelephonyDisplayInfo.OVERRIDE_NETWORK_TYPE_NONE
                 : mTelephonyDisplayInfo.getOverrideNetworkType();
@@ -548,7 +614,8 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
         }
 
         boolean show4GForLTE = false;
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(subId);
+        final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(mContext,
+                mCarrierConfigManager, subId);
         if (carrierConfig != null) {
             show4GForLTE = carrierConfig.getBoolean(
                     CarrierConfigManager.KEY_SHOW_4G_FOR_LTE_DATA_ICON_BOOL);
@@ -575,23 +642,23 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
         }
     }
 
-    private void updateIccidNumber() {
+    private IccidState getIccid(SubscriptionInfo subscriptionInfo,
+            TelephonyManager telephonyManager) {
         // do not show iccid by default
-        boolean showIccId = false;
-        if (mSubscriptionInfo != null) {
-            final int subscriptionId = mSubscriptionInfo.getSubscriptionId();
-            final PersistableBundle carrierConfig =
-                    mCarrierConfigManager.getConfigForSubId(subscriptionId);
-            if (carrierConfig != null) {
-                showIccId = carrierConfig.getBoolean(
-                        CarrierConfigManager.KEY_SHOW_ICCID_IN_SIM_STATUS_BOOL);
-            }
+        final PersistableBundle carrierConfig = getCarrierConfig(subscriptionInfo);
+        if (carrierConfig == null || !carrierConfig.getBoolean(
+                CarrierConfigManager.KEY_SHOW_ICCID_IN_SIM_STATUS_BOOL)) {
+            return new IccidState(false /* shown */, null /* iccid */);
         }
-        if (!showIccId) {
+        return new IccidState(true /* shown */, telephonyManager.getSimSerialNumber());
+    }
+
+    private void updateIccidNumber(IccidState iccidState) {
+        if (!iccidState.mShown) {
             mDialog.removeSettingFromScreen(ICCID_INFO_LABEL_ID);
             mDialog.removeSettingFromScreen(ICCID_INFO_VALUE_ID);
         } else {
-            mDialog.setText(ICCID_INFO_VALUE_ID, mTelephonyManager.getSimSerialNumber());
+            mDialog.setText(ICCID_INFO_VALUE_ID, iccidState.mIccid);
         }
     }
 
@@ -652,19 +719,26 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
     }
 
     private boolean isImsRegistrationStateShowUp() {
-        if (mSubscriptionInfo == null) {
-            return false;
-        }
-        final int subscriptionId = mSubscriptionInfo.getSubscriptionId();
-        final PersistableBundle carrierConfig =
-                mCarrierConfigManager.getConfigForSubId(subscriptionId);
+        return isImsRegistrationStateShowUp(mSubscriptionInfo);
+    }
+
+    private boolean isImsRegistrationStateShowUp(SubscriptionInfo subscriptionInfo) {
+        final PersistableBundle carrierConfig = getCarrierConfig(subscriptionInfo);
         return carrierConfig == null ? false :
                 carrierConfig.getBoolean(
                         CarrierConfigManager.KEY_SHOW_IMS_REGISTRATION_STATUS_BOOL);
     }
 
-    private void updateImsRegistrationState() {
-        if (isImsRegistrationStateShowUp()) {
+    private PersistableBundle getCarrierConfig(SubscriptionInfo subscriptionInfo) {
+        if (subscriptionInfo == null) {
+            return null;
+        }
+        return CarrierConfigCache.getConfigForSubId(mContext, mCarrierConfigManager,
+                subscriptionInfo.getSubscriptionId());
+    }
+
+    private void updateImsRegistrationState(boolean showUp) {
+        if (showUp) {
             return;
         }
         mDialog.removeSettingFromScreen(IMS_REGISTRATION_STATE_LABEL_ID);
@@ -762,16 +836,19 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
             @Override
             public void onDataConnectionStateChanged(int state) {
                 updateDataState(state);
+                mNetworkTypeUpdated = true;
                 updateNetworkType();
             }
 
             @Override
             public void onSignalStrengthsChanged(SignalStrength signalStrength) {
+                mSignalStrength = signalStrength;
                 updateSignalStrength(signalStrength);
             }
 
             @Override
             public void onServiceStateChanged(ServiceState serviceState) {
+                mServiceState = serviceState;
                 updateNetworkProvider();
                 updateServiceState(serviceState);
                 updateRoamingStatus(serviceState);
@@ -781,11 +858,38 @@ public class SimStatusDialogController implements LifecycleObserver, OnResume, O
             @Override
             public void onDisplayInfoChanged(@NonNull TelephonyDisplayInfo displayInfo) {
                 mTelephonyDisplayInfo = displayInfo;
+                mNetworkTypeUpdated = true;
                 updateNetworkType();
             }
         };
     }
 
+    /** Telephony state of the subscription, read together off the main thread. */
+    private static class RadioState {
+        final ServiceState mServiceState;
+        final SignalStrength mSignalStrength;
+        final int mDataNetworkType;
+        final int mVoiceNetworkType;
+
+        RadioState(TelephonyManager telephonyManager) {
+            mServiceState = telephonyManager.getServiceState();
+            mSignalStrength = telephonyManager.getSignalStrength();
+            mDataNetworkType = telephonyManager.getDataNetworkType();
+            mVoiceNetworkType = telephonyManager.getVoiceNetworkType();
+        }
+    }
+
+    /** ICCID of the subscription, and whether the carrier allows showing it. */
+    private static class IccidState {
+        final boolean mShown;
+        final String mIccid;
+
+        IccidState(boolean shown, String iccid) {
+            mShown = shown;
+            mIccid = iccid;
+        }
+    }
+
     @VisibleForTesting
     static String getNetworkTypeName(@Annotation.NetworkType int type) {
         switch (type) {
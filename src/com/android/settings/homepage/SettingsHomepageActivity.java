@@ -34,6 +34,7 @@ import androidx.fragment.app.FragmentTransaction;
 import com.android.settings.R;
 import com.android.settings.accounts.AvatarViewMixin;
 import com.android.settings.core.HideNonSystemOverlayMixin;
+import com.android.settings.core.instrumentation.StartupTrace;
 import com.android.settings.homepage.contextualcards.ContextualCardsFragment;
 import com.android.settings.overlay.FeatureFactory;
 
@@ -41,7 +42,9 @@ public class SettingsHomepageActivity extends FragmentActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        final StartupTrace startupTrace = StartupTrace.begin(getClass().getSimpleName());
         super.onCreate(savedInstanceState);
+        getLifecycle().addObserver(startupTrace);
 
         setContentView(R.layout.settings_homepage_container);
         final View root = findViewById(R.id.settings_homepage_container);
@@ -65,6 +68,7 @@ public class SettingsHomepageActivity extends FragmentActivity {
         showFragment(new TopLevelSettings(), R.id.main_content);
         ((FrameLayout) findViewById(R.id.main_content))
                 .getLayoutTransition().enableTransitionType(LayoutTransition.CHANGING);
+        startupTrace.finishOnFirstFrame(root);
     }
 
     private void showFragment(Fragment fragment, int id) {
@@ -28,6 +28,7 @@ import com.android.settings.R;
 import com.android.settings.Settings;
 import com.android.settings.homepage.contextualcards.ContextualCard;
 import com.android.settings.network.GlobalSettingsChangeListener;
+import com.android.settings.network.MobileDataStateObserver;
 
 import java.util.Objects;
 
@@ -38,8 +39,11 @@ public class CellularDataConditionController implements ConditionalCardControlle
     private final Context mAppContext;
     private final ConditionManager mConditionManager;
     private final GlobalSettingsChangeListener mDefaultDataSubscriptionIdListener;
+    private final MobileDataStateObserver mDataStateObserver;
 
     private int mSubId;
+    // Subscription of mTelephonyManager, whose mobile data state is observed.
+    private int mDataSubId;
     private TelephonyManager mTelephonyManager;
     private boolean mIsListeningConnectionChange;
 
@@ -48,6 +52,8 @@ public class CellularDataConditionController implements ConditionalCardControlle
         mConditionManager = conditionManager;
         mSubId = getDefaultDataSubscriptionId(appContext);
         mTelephonyManager = getTelephonyManager(appContext, mSubId);
+        mDataSubId = mSubId;
+        mDataStateObserver = MobileDataStateObserver.getInstance(appContext);
         mDefaultDataSubscriptionIdListener = new GlobalSettingsChangeListener(appContext,
                 android.provider.Settings.Global.MULTI_SIM_DATA_CALL_SUBSCRIPTION) {
             public void onChanged(String field) {
@@ -74,7 +80,7 @@ public class CellularDataConditionController implements ConditionalCardControlle
                 || mTelephonyManager.getSimState() != TelephonyManager.SIM_STATE_READY) {
             return false;
         }
-        return !mTelephonyManager.isDataEnabled();
+        return !mDataStateObserver.isDataEnabled(mDataSubId);
     }
 
     @Override
@@ -133,7 +139,13 @@ public class CellularDataConditionController implements ConditionalCardControlle
         }
     };
 
+    private final MobileDataStateObserver.Listener mDataStateListener =
+            subId -> mConditionManager.onConditionChanged();
+
     private void stopPhoneStateListener() {
+        if (mIsListeningConnectionChange) {
+            mDataStateObserver.removeListener(mDataSubId, mDataStateListener);
+        }
         mIsListeningConnectionChange = false;
         mTelephonyManager.listen(mPhoneStateListener, PhoneStateListener.LISTEN_NONE);
     }
@@ -146,7 +158,10 @@ public class CellularDataConditionController implements ConditionalCardControlle
         // switch mTelephonyManager only when subscription been updated to valid ones
         if (SubscriptionManager.isValidSubscriptionId(subId)) {
             mTelephonyManager = getTelephonyManager(context, subId);
+            mDataSubId = subId;
         }
+        mDataStateObserver.addListener(mDataSubId,
+                MobileDataStateObserver.CHANGE_MOBILE_DATA, mDataStateListener);
 
         mTelephonyManager.listen(mPhoneStateListener,
                 PhoneStateListener.LISTEN_PRECISE_DATA_CONNECTION_STATE);
@@ -118,6 +118,8 @@ public abstract class ActiveSubsciptionsListener
                     final int subId = intent.getIntExtra(
                             CarrierConfigManager.EXTRA_SUBSCRIPTION_INDEX,
                             SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+                    // Make sure listeners read the new config, whichever receiver runs first.
+                    CarrierConfigCache.invalidate(subId);
                     if (!clearCachedSubId(subId)) {
                         return;
                     }
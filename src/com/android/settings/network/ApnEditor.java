@@ -1288,7 +1288,8 @@ public class ApnEditor extends SettingsPreferenceFragment
         final CarrierConfigManager configManager = (CarrierConfigManager)
                 getSystemService(Context.CARRIER_CONFIG_SERVICE);
         if (configManager != null) {
-            final PersistableBundle b = configManager.getConfigForSubId(mSubId);
+            final PersistableBundle b = CarrierConfigCache.getConfigForSubId(getContext(),
+                    configManager, mSubId);
             if (b != null) {
                 mReadOnlyApnTypes = b.getStringArray(
                         CarrierConfigManager.KEY_READ_ONLY_APN_TYPES_STRING_ARRAY);
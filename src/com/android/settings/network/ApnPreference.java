@@ -68,6 +68,8 @@ public class ApnPreference extends Preference implements CompoundButton.OnChecke
     private static String mSelectedKey = null;
     private static CompoundButton mCurrentChecked = null;
     private boolean mProtectFromCheckedChange = false;
+    // Whether the radio button was last bound or changed to checked.
+    private boolean mBoundChecked = false;
     private boolean mSelectable = true;
     private boolean mHideDetails = false;
 
@@ -88,7 +90,10 @@ public class ApnPreference extends Preference implements CompoundButton.OnChecke
                 if (isChecked) {
                     mCurrentChecked = rb;
                     mSelectedKey = getKey();
+                } else if (mCurrentChecked == rb) {
+                    mCurrentChecked = null;
                 }
+                mBoundChecked = isChecked;
 
                 mProtectFromCheckedChange = true;
                 rb.setChecked(isChecked);
@@ -105,7 +110,22 @@ public class ApnPreference extends Preference implements CompoundButton.OnChecke
     }
 
     public void setChecked() {
-        mSelectedKey = getKey();
+        setChecked(true);
+    }
+
+    /**
+     * Set whether this is the selected APN, rebinding the row if its radio button shows
+     * otherwise. Call it on the rows of both the previously and the newly selected APN.
+     */
+    public void setChecked(boolean checked) {
+        if (checked) {
+            mSelectedKey = getKey();
+        } else if (isChecked()) {
+            mSelectedKey = null;
+        }
+        if (checked != mBoundChecked) {
+            notifyChanged();
+        }
     }
 
     public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
@@ -114,6 +134,7 @@ public class ApnPreference extends Preference implements CompoundButton.OnChecke
             return;
         }
 
+        mBoundChecked = isChecked;
         if (isChecked) {
             if (mCurrentChecked != null) {
                 mCurrentChecked.setChecked(false);
@@ -162,6 +183,10 @@ public class ApnPreference extends Preference implements CompoundButton.OnChecke
     }
 
     public void setHideDetails() {
-        mHideDetails = true;
+        setHideDetails(true);
+    }
+
+    public void setHideDetails(boolean hideDetails) {
+        mHideDetails = hideDetails;
     }
 }
@@ -26,6 +26,7 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
@@ -44,6 +45,7 @@ import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -57,8 +59,11 @@ import androidx.preference.PreferenceGroup;
 import com.android.settings.R;
 import com.android.settings.RestrictedSettingsFragment;
 import com.android.settingslib.RestrictedLockUtils.EnforcedAdmin;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class ApnSettings extends RestrictedSettingsFragment
         implements Preference.OnPreferenceChangeListener {
@@ -134,6 +139,11 @@ public class ApnSettings extends RestrictedSettingsFragment
     private boolean mAllowAddingApns;
     private boolean mHidePresetApnDetails;
 
+    // Incremented by each fillList(), to drop the results of older requests.
+    private int mFillListGeneration;
+    // Number of preferred APN updates written by this page that mApnObserver is yet to see.
+    private int mPendingPreferredApnChanges;
+
     public ApnSettings() {
         super(UserManager.DISALLOW_CONFIG_MOBILE_NETWORKS);
     }
@@ -184,6 +194,22 @@ public class ApnSettings extends RestrictedSettingsFragment
         }
     };
 
+    // Reloads the list when APNs are edited, added or removed while the page is shown.
+    private final ContentObserver mApnObserver =
+            new ContentObserver(new Handler(Looper.getMainLooper())) {
+        @Override
+        public void onChange(boolean selfChange) {
+            if (mPendingPreferredApnChanges > 0) {
+                // Change of the preferred APN written by this page, which already shows it.
+                mPendingPreferredApnChanges--;
+                return;
+            }
+            if (!mRestoreDefaultApnMode) {
+                fillList();
+            }
+        }
+    };
+
     private void restartPhoneStateListener(int subId) {
         if (mRestoreDefaultApnMode) {
             return;
@@ -225,7 +251,8 @@ public class ApnSettings extends RestrictedSettingsFragment
 
         final CarrierConfigManager configManager = (CarrierConfigManager)
                 getSystemService(Context.CARRIER_CONFIG_SERVICE);
-        final PersistableBundle b = configManager.getConfigForSubId(mSubId);
+        final PersistableBundle b =
+                CarrierConfigCache.getConfigForSubId(activity, configManager, mSubId);
         mHideImsApn = b.getBoolean(CarrierConfigManager.KEY_HIDE_IMS_APN_BOOL);
         mAllowAddingApns = b.getBoolean(CarrierConfigManager.KEY_ALLOW_ADDING_APNS_BOOL);
         if (mAllowAddingApns) {
@@ -268,6 +295,10 @@ public class ApnSettings extends RestrictedSettingsFragment
 
         restartPhoneStateListener(mSubId);
 
+        mPendingPreferredApnChanges = 0;
+        getContentResolver().registerContentObserver(Telephony.Carriers.CONTENT_URI,
+                true /* notifyForDescendants */, mApnObserver);
+
         if (!mRestoreDefaultApnMode) {
             fillList();
         }
@@ -285,6 +316,8 @@ public class ApnSettings extends RestrictedSettingsFragment
 
         mTelephonyManager.listen(mPhoneStateListener,
                 PhoneStateListener.LISTEN_NONE);
+
+        getContentResolver().unregisterContentObserver(mApnObserver);
     }
 
     @Override
@@ -324,62 +357,100 @@ public class ApnSettings extends RestrictedSettingsFragment
             where.append(" AND NOT (type='ims')");
         }
 
-        final Cursor cursor = getContentResolver().query(simApnUri,
-                CARRIERS_PROJECTION, where.toString(), null,
+        // Query off the main thread, carriers can have large APN databases. Only the result of
+        // the latest request is shown.
+        final ContentResolver resolver = getContentResolver();
+        final Uri preferApnUri = getUriForCurrSubId(PREFERAPN_URI);
+        final int generation = ++mFillListGeneration;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<ApnData> apns = queryApns(resolver, simApnUri, where.toString());
+            if (apns == null) {
+                return;
+            }
+            final String selectedKey = getSelectedApnKey(resolver, preferApnUri);
+            ThreadUtils.postOnMainThread(() -> {
+                if (generation == mFillListGeneration && getActivity() != null) {
+                    updateList(subId, apns, selectedKey);
+                }
+            });
+        });
+    }
+
+    private static List<ApnData> queryApns(ContentResolver resolver, Uri uri, String where) {
+        final Cursor cursor = resolver.query(uri, CARRIERS_PROJECTION, where, null,
                 Telephony.Carriers.DEFAULT_SORT_ORDER);
+        if (cursor == null) {
+            return null;
+        }
+        final List<ApnData> apns = new ArrayList<>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                apns.add(new ApnData(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return apns;
+    }
+
+    /**
+     * Show {@code apns}, keeping the existing preference of each APN id and only adding or
+     * removing the preferences of APNs which appeared or went away.
+     */
+    private void updateList(int subId, List<ApnData> apns, String selectedKey) {
+        final PreferenceGroup apnPrefList = (PreferenceGroup) findPreference("apn_list");
+        final Map<String, ApnPreference> existingPrefs = new ArrayMap<>();
+        for (int i = 0; i < apnPrefList.getPreferenceCount(); i++) {
+            final Preference preference = apnPrefList.getPreference(i);
+            if (preference instanceof ApnPreference) {
+                existingPrefs.put(preference.getKey(), (ApnPreference) preference);
+            }
+        }
 
-        if (cursor != null) {
-            final PreferenceGroup apnPrefList = (PreferenceGroup) findPreference("apn_list");
-            apnPrefList.removeAll();
+        final ArrayList<ApnPreference> apnList = new ArrayList<ApnPreference>();
+        final ArrayList<ApnPreference> mmsApnList = new ArrayList<ApnPreference>();
 
-            final ArrayList<ApnPreference> apnList = new ArrayList<ApnPreference>();
-            final ArrayList<ApnPreference> mmsApnList = new ArrayList<ApnPreference>();
+        mSelectedKey = selectedKey;
+        for (ApnData apn : apns) {
+            mMvnoType = apn.mMvnoType;
+            mMvnoMatchData = apn.mMvnoMatchData;
 
-            mSelectedKey = getSelectedApnKey();
-            cursor.moveToFirst();
-            while (!cursor.isAfterLast()) {
-                final String name = cursor.getString(NAME_INDEX);
-                final String apn = cursor.getString(APN_INDEX);
-                final String key = cursor.getString(ID_INDEX);
-                final String type = cursor.getString(TYPES_INDEX);
-                final int edited = cursor.getInt(EDITED_INDEX);
-                mMvnoType = cursor.getString(MVNO_TYPE_INDEX);
-                mMvnoMatchData = cursor.getString(MVNO_MATCH_DATA_INDEX);
-
-                final ApnPreference pref = new ApnPreference(getPrefContext());
-
-                pref.setKey(key);
-                pref.setTitle(name);
+            ApnPreference pref = existingPrefs.remove(apn.mKey);
+            if (pref == null) {
+                pref = new ApnPreference(getPrefContext());
+                pref.setKey(apn.mKey);
                 pref.setPersistent(false);
                 pref.setOnPreferenceChangeListener(this);
-                pref.setSubId(subId);
-                if (mHidePresetApnDetails && edited == Telephony.Carriers.UNEDITED) {
-                    pref.setHideDetails();
-                } else {
-                    pref.setSummary(apn);
-                }
-
-                final boolean selectable = ((type == null) || type.contains("default"));
-                pref.setSelectable(selectable);
-                if (selectable) {
-                    if ((mSelectedKey != null) && mSelectedKey.equals(key)) {
-                        pref.setChecked();
-                    }
-                    apnList.add(pref);
-                } else {
-                    mmsApnList.add(pref);
-                }
-                cursor.moveToNext();
+                apnPrefList.addPreference(pref);
             }
-            cursor.close();
-
-            for (Preference preference : apnList) {
-                apnPrefList.addPreference(preference);
-            }
-            for (Preference preference : mmsApnList) {
-                apnPrefList.addPreference(preference);
+            pref.setTitle(apn.mName);
+            pref.setSubId(subId);
+            final boolean hideDetails =
+                    mHidePresetApnDetails && apn.mEdited == Telephony.Carriers.UNEDITED;
+            pref.setHideDetails(hideDetails);
+            pref.setSummary(hideDetails ? null : apn.mApn);
+
+            final boolean selectable = ((apn.mType == null) || apn.mType.contains("default"));
+            pref.setSelectable(selectable);
+            // Also unchecks the kept row of the previously selected APN.
+            pref.setChecked(selectable && apn.mKey.equals(mSelectedKey));
+            if (selectable) {
+                apnList.add(pref);
+            } else {
+                mmsApnList.add(pref);
             }
         }
+
+        int order = 0;
+        for (Preference preference : apnList) {
+            preference.setOrder(order++);
+        }
+        for (Preference preference : mmsApnList) {
+            preference.setOrder(order++);
+        }
+        for (Preference preference : existingPrefs.values()) {
+            apnPrefList.removePreference(preference);
+        }
     }
 
     @Override
@@ -444,14 +515,19 @@ public class ApnSettings extends RestrictedSettingsFragment
 
         final ContentValues values = new ContentValues();
         values.put(APN_ID, mSelectedKey);
-        resolver.update(getUriForCurrSubId(PREFERAPN_URI), values, null, null);
+        if (resolver.update(getUriForCurrSubId(PREFERAPN_URI), values, null, null) > 0) {
+            mPendingPreferredApnChanges++;
+        }
     }
 
-    private String getSelectedApnKey() {
+    private static String getSelectedApnKey(ContentResolver resolver, Uri preferApnUri) {
         String key = null;
 
-        final Cursor cursor = getContentResolver().query(getUriForCurrSubId(PREFERAPN_URI),
+        final Cursor cursor = resolver.query(preferApnUri,
                 new String[] {"_id"}, null, null, Telephony.Carriers.DEFAULT_SORT_ORDER);
+        if (cursor == null) {
+            return null;
+        }
         if (cursor.getCount() > 0) {
             cursor.moveToFirst();
             key = cursor.getString(ID_INDEX);
@@ -493,6 +569,27 @@ public class ApnSettings extends RestrictedSettingsFragment
         }
     }
 
+    /** The columns of an APN row shown in the list. */
+    private static class ApnData {
+        final String mKey;
+        final String mName;
+        final String mApn;
+        final String mType;
+        final String mMvnoType;
+        final String mMvnoMatchData;
+        final int mEdited;
+
+        ApnData(Cursor cursor) {
+            mKey = cursor.getString(ID_INDEX);
+            mName = cursor.getString(NAME_INDEX);
+            mApn = cursor.getString(APN_INDEX);
+            mType = cursor.getString(TYPES_INDEX);
+            mMvnoType = cursor.getString(MVNO_TYPE_INDEX);
+            mMvnoMatchData = cursor.getString(MVNO_MATCH_DATA_INDEX);
+            mEdited = cursor.getInt(EDITED_INDEX);
+        }
+    }
+
     private class RestoreApnUiHandler extends Handler {
         @Override
         public void handleMessage(Message msg) {
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.PersistableBundle;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionManager;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Map;
+
+/**
+ * Process wide cache of the carrier config of each subscription.
+ *
+ * <p>{@link CarrierConfigManager#getConfigForSubId(int)} copies the whole config across binder on
+ * every call, and Settings reads it from most telephony controllers. Configs are cached once per
+ * application context, so every page shares them, and kept until
+ * {@link CarrierConfigManager#ACTION_CARRIER_CONFIG_CHANGED} is received for their subscription.
+ *
+ * <p>The returned bundles are shared and must not be modified.
+ */
+public class CarrierConfigCache {
+
+    private static final String TAG = "CarrierConfigCache";
+
+    private static final Map<Context, CarrierConfigCache> sCaches = new ArrayMap<>();
+
+    private final SparseArray<PersistableBundle> mConfigs = new SparseArray<>();
+    // Number of times the config of each subscription was invalidated, so a config fetched
+    // while it was invalidated isn't kept.
+    private final SparseIntArray mGenerations = new SparseIntArray();
+    // Number of times the configs of all subscriptions were invalidated.
+    private int mGeneration;
+
+    private CarrierConfigCache(Context appContext) {
+        // Registered before anything is fetched, so no change after a fetch is missed.
+        appContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (isInitialStickyBroadcast()) {
+                    return;
+                }
+                final int subId = intent.getIntExtra(CarrierConfigManager.EXTRA_SUBSCRIPTION_INDEX,
+                        SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+                Log.d(TAG, "Carrier config changed for sub " + subId);
+                invalidateSub(subId);
+            }
+        }, new IntentFilter(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED));
+    }
+
+    private static CarrierConfigCache getInstance(Context context) {
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        synchronized (sCaches) {
+            CarrierConfigCache cache = sCaches.get(appContext);
+            if (cache == null) {
+                cache = new CarrierConfigCache(appContext);
+                sCaches.put(appContext, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Get the carrier config of {@code subId}, from {@link CarrierConfigManager} of
+     * {@code context}.
+     *
+     * @return carrier config, or {@code null} if it is not available.
+     */
+    @Nullable
+    public static PersistableBundle getConfigForSubId(Context context, int subId) {
+        return getConfigForSubId(context,
+                context.getSystemService(CarrierConfigManager.class), subId);
+    }
+
+    /**
+     * Get the carrier config of {@code subId}, from {@code manager} if it isn't cached yet.
+     *
+     * @return carrier config, or {@code null} if it is not available.
+     */
+    @Nullable
+    public static PersistableBundle getConfigForSubId(Context context,
+            CarrierConfigManager manager, int subId) {
+        if (manager == null) {
+            return null;
+        }
+        if (!SubscriptionManager.isValidSubscriptionId(subId)) {
+            // Nothing to invalidate it with, don't cache it.
+            return manager.getConfigForSubId(subId);
+        }
+        return getInstance(context).getConfig(manager, subId);
+    }
+
+    /** Get the boolean carrier config {@code key} of {@code subId}. */
+    public static boolean getBoolean(Context context, int subId, String key,
+            boolean defaultValue) {
+        final PersistableBundle config = getConfigForSubId(context, subId);
+        return config == null ? defaultValue : config.getBoolean(key, defaultValue);
+    }
+
+    /** Get the int carrier config {@code key} of {@code subId}. */
+    public static int getInt(Context context, int subId, String key, int defaultValue) {
+        final PersistableBundle config = getConfigForSubId(context, subId);
+        return config == null ? defaultValue : config.getInt(key, defaultValue);
+    }
+
+    /** Get the String carrier config {@code key} of {@code subId}. */
+    @Nullable
+    public static String getString(Context context, int subId, String key) {
+        final PersistableBundle config = getConfigForSubId(context, subId);
+        return config == null ? null : config.getString(key);
+    }
+
+    /** Get the int array carrier config {@code key} of {@code subId}. */
+    @Nullable
+    public static int[] getIntArray(Context context, int subId, String key) {
+        final PersistableBundle config = getConfigForSubId(context, subId);
+        return config == null ? null : config.getIntArray(key);
+    }
+
+    /**
+     * Drop the cached config of {@code subId}, or of every subscription if {@code subId} is not
+     * valid.
+     */
+    public static void invalidate(int subId) {
+        synchronized (sCaches) {
+            for (CarrierConfigCache cache : sCaches.values()) {
+                cache.invalidateSub(subId);
+            }
+        }
+    }
+
+    private PersistableBundle getConfig(CarrierConfigManager manager, int subId) {
+        final int generation;
+        final int subGeneration;
+        synchronized (this) {
+            final PersistableBundle config = mConfigs.get(subId);
+            if (config != null) {
+                return config;
+            }
+            generation = mGeneration;
+            subGeneration = mGenerations.get(subId);
+        }
+
+        final PersistableBundle config = manager.getConfigForSubId(subId);
+        if (config == null) {
+            // Not loaded yet, fetch it again next time.
+            return null;
+        }
+        synchronized (this) {
+            if (generation == mGeneration && subGeneration == mGenerations.get(subId)) {
+                mConfigs.put(subId, config);
+            }
+        }
+        return config;
+    }
+
+    private synchronized void invalidateSub(int subId) {
+        if (!SubscriptionManager.isValidSubscriptionId(subId)) {
+            mGeneration++;
+            mConfigs.clear();
+            return;
+        }
+        mGenerations.put(subId, mGenerations.get(subId) + 1);
+        mConfigs.remove(subId);
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        synchronized (sCaches) {
+            sCaches.clear();
+        }
+    }
+}
@@ -65,6 +65,11 @@ public final class EthernetTetherPreferenceController extends TetherBasePreferen
 
     @Override
     public boolean shouldEnable() {
+        final Boolean tetherable = mTetherEnabler == null
+                ? null : mTetherEnabler.isTetherable(getTetherType());
+        if (tetherable != null) {
+            return tetherable;
+        }
         String[] available = mTm.getTetherableIfaces();
         for (String s : available) {
             if (s.matches(mEthernetRegex)) {
@@ -21,6 +21,7 @@ import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Handler;
 import android.provider.Settings;
+import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 
 /**
@@ -28,6 +29,9 @@ import android.telephony.TelephonyManager;
  */
 public class MobileDataContentObserver extends ContentObserver {
     private OnMobileDataChangedListener mListener;
+    private final MobileDataStateObserver.Listener mStateListener = subId -> onChange(false);
+    private MobileDataStateObserver mStateObserver;
+    private int mSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
 
     public MobileDataContentObserver(Handler handler) {
         super(handler);
@@ -57,14 +61,24 @@ public class MobileDataContentObserver extends ContentObserver {
         }
     }
 
+    /**
+     * Start observing mobile data of {@code subId}, through the {@link MobileDataStateObserver}
+     * shared with the other users of the subscription.
+     */
     public void register(Context context, int subId) {
-        final Uri uri = getObservableUri(context, subId);
-        context.getContentResolver().registerContentObserver(uri, false, this);
-
+        unRegister(context);
+        mSubId = subId;
+        mStateObserver = MobileDataStateObserver.getInstance(context);
+        mStateObserver.addListener(mSubId,
+                MobileDataStateObserver.CHANGE_MOBILE_DATA, mStateListener);
     }
 
     public void unRegister(Context context) {
-        context.getContentResolver().unregisterContentObserver(this);
+        if (mStateObserver == null) {
+            return;
+        }
+        mStateObserver.removeListener(mSubId, mStateListener);
+        mStateObserver = null;
     }
 
     /**
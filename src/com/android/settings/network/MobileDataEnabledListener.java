@@ -17,7 +17,6 @@
 package com.android.settings.network;
 
 import android.content.Context;
-import android.provider.Settings;
 import android.telephony.SubscriptionManager;
 
 /** Helper class to listen for changes in the enabled state of mobile data. */
@@ -25,14 +24,10 @@ public class MobileDataEnabledListener {
     private Context mContext;
     private Client mClient;
     private int mSubId;
+    private boolean mListening;
 
-    // There're 2 listeners both activated at the same time.
-    // For project that access MOBILE_DATA, only first listener is functional.
-    // For project that access "MOBILE_DATA + subId", first listener will be stopped when receiving
-    // any onChange from second listener.
-
-    private GlobalSettingsChangeListener mListener;
-    private GlobalSettingsChangeListener mListenerForSubId;
+    private final MobileDataStateObserver.Listener mListener = subId ->
+            mClient.onMobileDataEnabledChange();
 
     public interface Client {
         void onMobileDataEnabledChange();
@@ -56,29 +51,12 @@ public class MobileDataEnabledListener {
      * @param subId subscription id for enabled state of data subscription
      */
     public void start(int subId) {
+        stop();
         mSubId = subId;
-
-        if (mListener == null) {
-            mListener = new GlobalSettingsChangeListener(mContext,
-                    Settings.Global.MOBILE_DATA) {
-                public void onChanged(String field) {
-                    mClient.onMobileDataEnabledChange();
-                }
-            };
-        }
-        stopMonitorSubIdSpecific();
-
-        if (mSubId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
-            return;
-        }
-
-        mListenerForSubId = new GlobalSettingsChangeListener(mContext,
-                Settings.Global.MOBILE_DATA + mSubId) {
-            public void onChanged(String field) {
-                stopMonitor();
-                mClient.onMobileDataEnabledChange();
-            }
-        };
+        // Observes both MOBILE_DATA and "MOBILE_DATA + subId", shared with other listeners.
+        MobileDataStateObserver.getInstance(mContext).addListener(mSubId,
+                MobileDataStateObserver.CHANGE_MOBILE_DATA, mListener);
+        mListening = true;
     }
 
     /**
@@ -94,21 +72,10 @@ public class MobileDataEnabledListener {
      * Stop listening to changes in the enabled state for data.
      */
     public void stop() {
-        stopMonitor();
-        stopMonitorSubIdSpecific();
-    }
-
-    private void stopMonitor() {
-        if (mListener != null) {
-            mListener.close();
-            mListener = null;
-        }
-    }
-
-    private void stopMonitorSubIdSpecific() {
-        if (mListenerForSubId != null) {
-            mListenerForSubId.close();
-            mListenerForSubId = null;
+        if (!mListening) {
+            return;
         }
+        MobileDataStateObserver.getInstance(mContext).removeListener(mSubId, mListener);
+        mListening = false;
     }
 }
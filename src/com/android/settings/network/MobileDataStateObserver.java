@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.ArrayMap;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares the observation of the mobile data and data roaming settings of a subscription between
+ * its users, and caches their values.
+ *
+ * <p>Settings are observed for each subscription while it has listeners. While observed, the
+ * values read from {@link TelephonyManager} are kept until the settings change, so every user
+ * reading them after a change causes a single re-read. Values of subscriptions without listeners
+ * are read directly. Listeners can ask to only be notified of one of the settings.
+ *
+ * <p>An instance is kept for each application context, that is one per process, like
+ * {@link com.android.settings.network.telephony.TelephonyEventHub}.
+ */
+public class MobileDataStateObserver {
+
+    /** Change of the mobile data setting, see {@link #addListener(int, int, Listener)}. */
+    public static final int CHANGE_MOBILE_DATA = 1 << 0;
+    /** Change of the data roaming setting, see {@link #addListener(int, int, Listener)}. */
+    public static final int CHANGE_DATA_ROAMING = 1 << 1;
+    private static final int CHANGE_ALL = CHANGE_MOBILE_DATA | CHANGE_DATA_ROAMING;
+
+    private static final Map<Context, MobileDataStateObserver> sObservers = new ArrayMap<>();
+
+    private final Context mContext;
+    private final TelephonyManager mTelephonyManager;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final SparseArray<SubscriptionState> mStates = new SparseArray<>();
+
+    /** Receives changes of the mobile data or data roaming settings of a subscription. */
+    public interface Listener {
+        /** Called on the main thread when mobile data or data roaming of {@code subId} changed. */
+        void onMobileDataStateChanged(int subId);
+    }
+
+    /** Returns the observer shared by the users of the application context of a context. */
+    public static MobileDataStateObserver getInstance(Context context) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (sObservers) {
+            MobileDataStateObserver observer = sObservers.get(appContext);
+            if (observer == null) {
+                observer = new MobileDataStateObserver(appContext,
+                        appContext.getSystemService(TelephonyManager.class));
+                sObservers.put(appContext, observer);
+            }
+            return observer;
+        }
+    }
+
+    @VisibleForTesting
+    MobileDataStateObserver(Context context, TelephonyManager telephonyManager) {
+        mContext = context;
+        mTelephonyManager = telephonyManager;
+    }
+
+    /** Start notifying {@code listener} of the changes of {@code subId}. */
+    public void addListener(int subId, Listener listener) {
+        addListener(subId, CHANGE_ALL, listener);
+    }
+
+    /**
+     * Start notifying {@code listener} of the {@code changes} of {@code subId}, a combination of
+     * {@link #CHANGE_MOBILE_DATA} and {@link #CHANGE_DATA_ROAMING}.
+     */
+    public synchronized void addListener(int subId, int changes, Listener listener) {
+        SubscriptionState state = mStates.get(subId);
+        if (state == null) {
+            state = new SubscriptionState(subId);
+            mStates.put(subId, state);
+            state.register();
+        }
+        state.mListeners.put(listener, changes);
+    }
+
+    /** Stop notifying {@code listener} of the changes of {@code subId}. */
+    public synchronized void removeListener(int subId, Listener listener) {
+        final SubscriptionState state = mStates.get(subId);
+        if (state == null || state.mListeners.remove(listener) == null
+                || !state.mListeners.isEmpty()) {
+            return;
+        }
+        state.unregister();
+        mStates.remove(subId);
+    }
+
+    /** Returns {@code true} if mobile data is enabled for {@code subId}. */
+    public boolean isDataEnabled(int subId) {
+        final SubscriptionState state;
+        final int generation;
+        synchronized (this) {
+            state = mStates.get(subId);
+            if (state != null && state.mDataEnabled != null) {
+                return state.mDataEnabled;
+            }
+            generation = state == null ? 0 : state.mGeneration;
+        }
+        final boolean dataEnabled = getTelephonyManager(subId).isDataEnabled();
+        synchronized (this) {
+            if (isCurrent(subId, state, generation)) {
+                state.mDataEnabled = dataEnabled;
+            }
+        }
+        return dataEnabled;
+    }
+
+    /** Returns {@code true} if data roaming is enabled for {@code subId}. */
+    public boolean isDataRoamingEnabled(int subId) {
+        final SubscriptionState state;
+        final int generation;
+        synchronized (this) {
+            state = mStates.get(subId);
+            if (state != null && state.mDataRoamingEnabled != null) {
+                return state.mDataRoamingEnabled;
+            }
+            generation = state == null ? 0 : state.mGeneration;
+        }
+        final boolean dataRoamingEnabled = getTelephonyManager(subId).isDataRoamingEnabled();
+        synchronized (this) {
+            if (isCurrent(subId, state, generation)) {
+                state.mDataRoamingEnabled = dataRoamingEnabled;
+            }
+        }
+        return dataRoamingEnabled;
+    }
+
+    // Returns true if a value read from the given state can be kept, that is the subscription
+    // is still observed and its settings didn't change since.
+    private boolean isCurrent(int subId, SubscriptionState state, int generation) {
+        return state != null && mStates.get(subId) == state && state.mGeneration == generation;
+    }
+
+    @VisibleForTesting
+    synchronized int getListenerCount(int subId) {
+        final SubscriptionState state = mStates.get(subId);
+        return state == null ? 0 : state.mListeners.size();
+    }
+
+    private TelephonyManager getTelephonyManager(int subId) {
+        return SubscriptionManager.isValidSubscriptionId(subId)
+                ? mTelephonyManager.createForSubscriptionId(subId)
+                : mTelephonyManager;
+    }
+
+    private class SubscriptionState extends ContentObserver {
+        final int mSubscriptionId;
+        // Listeners and the changes they are notified of.
+        final Map<Listener, Integer> mListeners = new ArrayMap<>();
+        final Runnable mDispatchRunnable = this::dispatch;
+        Boolean mDataEnabled;
+        Boolean mDataRoamingEnabled;
+        // Incremented on each change, so values read before it aren't kept.
+        int mGeneration;
+        // Changes not dispatched yet.
+        int mPendingChanges;
+
+        SubscriptionState(int subId) {
+            super(mHandler);
+            mSubscriptionId = subId;
+        }
+
+        void register() {
+            // Single SIM devices use the settings without subscription id.
+            registerSetting(Settings.Global.MOBILE_DATA);
+            registerSetting(Settings.Global.DATA_ROAMING);
+            if (SubscriptionManager.isValidSubscriptionId(mSubscriptionId)) {
+                registerSetting(Settings.Global.MOBILE_DATA + mSubscriptionId);
+                registerSetting(Settings.Global.DATA_ROAMING + mSubscriptionId);
+            }
+        }
+
+        void unregister() {
+            mContext.getContentResolver().unregisterContentObserver(this);
+            mHandler.removeCallbacks(mDispatchRunnable);
+        }
+
+        private void registerSetting(String name) {
+            mContext.getContentResolver().registerContentObserver(
+                    Settings.Global.getUriFor(name), false /* notifyForDescendants */, this);
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            synchronized (MobileDataStateObserver.this) {
+                mGeneration++;
+                final String name = uri == null ? null : uri.getLastPathSegment();
+                if (name == null || !name.startsWith(Settings.Global.DATA_ROAMING)) {
+                    mDataEnabled = null;
+                    mPendingChanges |= CHANGE_MOBILE_DATA;
+                }
+                if (name == null || name.startsWith(Settings.Global.DATA_ROAMING)) {
+                    mDataRoamingEnabled = null;
+                    mPendingChanges |= CHANGE_DATA_ROAMING;
+                }
+            }
+            // Toggling mobile data writes both the global and the subscription setting, notify
+            // listeners once for both.
+            if (!mHandler.hasCallbacks(mDispatchRunnable)) {
+                mHandler.post(mDispatchRunnable);
+            }
+        }
+
+        private void dispatch() {
+            final List<Listener> listeners;
+            final int changes;
+            synchronized (MobileDataStateObserver.this) {
+                listeners = new ArrayList<>(mListeners.keySet());
+                changes = mPendingChanges;
+                mPendingChanges = 0;
+            }
+            for (Listener listener : listeners) {
+                // Listeners may be removed while others are notified.
+                synchronized (MobileDataStateObserver.this) {
+                    final Integer listenedChanges = mListeners.get(listener);
+                    if (listenedChanges == null || (listenedChanges & changes) == 0) {
+                        continue;
+                    }
+                }
+                listener.onMobileDataStateChanged(mSubscriptionId);
+            }
+        }
+    }
+}
@@ -47,34 +47,34 @@ import java.util.Map;
  * entry brings you to a details page for that network.
  */
 public class MobileNetworkListController extends AbstractPreferenceController implements
-        LifecycleObserver, SubscriptionsChangeListener.SubscriptionsChangeListenerClient {
+        LifecycleObserver, SubscriptionRepository.Listener {
     private static final String TAG = "MobileNetworkListCtlr";
 
     @VisibleForTesting
     static final String KEY_ADD_MORE = "add_more";
 
     private SubscriptionManager mSubscriptionManager;
-    private SubscriptionsChangeListener mChangeListener;
+    private SubscriptionRepository mSubscriptionRepository;
     private PreferenceScreen mPreferenceScreen;
     private Map<Integer, Preference> mPreferences;
 
     public MobileNetworkListController(Context context, Lifecycle lifecycle) {
         super(context);
         mSubscriptionManager = context.getSystemService(SubscriptionManager.class);
-        mChangeListener = new SubscriptionsChangeListener(context, this);
+        mSubscriptionRepository = SubscriptionRepository.getInstance(context);
         mPreferences = new ArrayMap<>();
         lifecycle.addObserver(this);
     }
 
     @OnLifecycleEvent(ON_RESUME)
     public void onResume() {
-        mChangeListener.start();
+        mSubscriptionRepository.addListener(this);
         update();
     }
 
     @OnLifecycleEvent(ON_PAUSE)
     public void onPause() {
-        mChangeListener.stop();
+        mSubscriptionRepository.removeListener(this);
     }
 
     @Override
@@ -153,10 +153,6 @@ public class MobileNetworkListController extends AbstractPreferenceController im
         return null;
     }
 
-    @Override
-    public void onAirplaneModeChanged(boolean airplaneModeEnabled) {
-    }
-
     @Override
     public void onSubscriptionsChanged() {
         update();
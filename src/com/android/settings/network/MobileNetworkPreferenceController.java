@@ -24,9 +24,7 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.UserManager;
 import android.provider.Settings;
-import android.telephony.PhoneStateListener;
-import android.telephony.ServiceState;
-import android.telephony.TelephonyManager;
+import android.telephony.SubscriptionManager;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
@@ -35,6 +33,7 @@ import androidx.preference.PreferenceScreen;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.network.telephony.MobileNetworkActivity;
 import com.android.settings.network.telephony.MobileNetworkUtils;
+import com.android.settings.network.telephony.TelephonyEventHub;
 import com.android.settingslib.RestrictedLockUtilsInternal;
 import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.Utils;
@@ -50,18 +49,16 @@ public class MobileNetworkPreferenceController extends AbstractPreferenceControl
     static final String KEY_MOBILE_NETWORK_SETTINGS = "mobile_network_settings";
 
     private final boolean mIsSecondaryUser;
-    private final TelephonyManager mTelephonyManager;
     private final UserManager mUserManager;
     private Preference mPreference;
-    @VisibleForTesting
-    PhoneStateListener mPhoneStateListener;
+    private TelephonyEventHub mEventHub;
+    private TelephonyEventHub.Listener mServiceStateListener;
 
     private BroadcastReceiver mAirplanModeChangedReceiver;
 
     public MobileNetworkPreferenceController(Context context) {
         super(context);
         mUserManager = (UserManager) context.getSystemService(Context.USER_SERVICE);
-        mTelephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
         mIsSecondaryUser = !mUserManager.isAdminUser();
 
         mAirplanModeChangedReceiver = new BroadcastReceiver() {
@@ -99,15 +96,12 @@ public class MobileNetworkPreferenceController extends AbstractPreferenceControl
     @Override
     public void onStart() {
         if (isAvailable()) {
-            if (mPhoneStateListener == null) {
-                mPhoneStateListener = new PhoneStateListener() {
-                    @Override
-                    public void onServiceStateChanged(ServiceState serviceState) {
-                        updateState(mPreference);
-                    }
-                };
+            if (mServiceStateListener == null) {
+                mServiceStateListener = (subId, event, value) -> updateState(mPreference);
             }
-            mTelephonyManager.listen(mPhoneStateListener, PhoneStateListener.LISTEN_SERVICE_STATE);
+            mEventHub = TelephonyEventHub.getInstance(mContext);
+            mEventHub.subscribe(SubscriptionManager.INVALID_SUBSCRIPTION_ID,
+                    TelephonyEventHub.EVENT_SERVICE_STATE, mServiceStateListener);
         }
         if (mAirplanModeChangedReceiver != null) {
             mContext.registerReceiver(mAirplanModeChangedReceiver,
@@ -117,8 +111,10 @@ public class MobileNetworkPreferenceController extends AbstractPreferenceControl
 
     @Override
     public void onStop() {
-        if (mPhoneStateListener != null) {
-            mTelephonyManager.listen(mPhoneStateListener, PhoneStateListener.LISTEN_NONE);
+        if (mEventHub != null) {
+            mEventHub.unsubscribe(SubscriptionManager.INVALID_SUBSCRIPTION_ID,
+                    TelephonyEventHub.EVENT_SERVICE_STATE, mServiceStateListener);
+            mEventHub = null;
         }
         if (mAirplanModeChangedReceiver != null) {
             mContext.unregisterReceiver(mAirplanModeChangedReceiver);
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.Context;
+import android.telephony.SubscriptionInfo;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.SparseArray;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Process wide, observable repository of the subscriptions the user can select.
+ *
+ * <p>The selectable subscriptions are loaded once for each change of the subscriptions or of
+ * airplane mode, and shared as an immutable list by every page listening to the repository.
+ * Nothing is kept while no page listens, as changes wouldn't be noticed.
+ *
+ * <p>Pages keep a {@link Snapshot} of the subscriptions they show, and update it to learn what
+ * each change added, removed or modified, so their preferences can be updated in place.
+ */
+public class SubscriptionRepository implements
+        SubscriptionsChangeListener.SubscriptionsChangeListenerClient {
+
+    /** Listener of the changes of the subscriptions. */
+    public interface Listener {
+        /** Called on the main thread once the subscriptions may have changed. */
+        void onSubscriptionsChanged();
+    }
+
+    private static final Map<Context, SubscriptionRepository> sRepositories = new ArrayMap<>();
+
+    private final Context mContext;
+    private final SubscriptionsChangeListener mChangeListener;
+    private final List<Listener> mListeners = new ArrayList<>();
+    private List<SubscriptionInfo> mSelectableSubscriptions;
+    // Number of changes seen, so a list loaded during a change isn't kept.
+    private int mGeneration;
+
+    @VisibleForTesting
+    SubscriptionRepository(Context appContext) {
+        mContext = appContext;
+        mChangeListener = new SubscriptionsChangeListener(appContext, this);
+    }
+
+    /** Returns the repository shared by everything in the application of {@code context}. */
+    public static SubscriptionRepository getInstance(Context context) {
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        synchronized (sRepositories) {
+            SubscriptionRepository repository = sRepositories.get(appContext);
+            if (repository == null) {
+                repository = new SubscriptionRepository(appContext);
+                sRepositories.put(appContext, repository);
+            }
+            return repository;
+        }
+    }
+
+    /**
+     * Returns the subscriptions the user can select, with one representative per group. The
+     * list is shared and can't be modified.
+     */
+    public List<SubscriptionInfo> getSelectableSubscriptions() {
+        final int generation;
+        synchronized (this) {
+            if (mSelectableSubscriptions != null) {
+                return mSelectableSubscriptions;
+            }
+            generation = mGeneration;
+        }
+        final List<SubscriptionInfo> subscriptions =
+                SubscriptionUtil.getSelectableSubscriptionInfoList(mContext);
+        final List<SubscriptionInfo> snapshot = Collections.unmodifiableList(
+                subscriptions == null ? new ArrayList<>() : new ArrayList<>(subscriptions));
+        synchronized (this) {
+            // Only keep it while changes are listened to.
+            if (!mListeners.isEmpty() && generation == mGeneration) {
+                mSelectableSubscriptions = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    /** Start notifying {@code listener} of the changes of the subscriptions. */
+    @MainThread
+    public void addListener(Listener listener) {
+        synchronized (this) {
+            if (mListeners.contains(listener)) {
+                return;
+            }
+            if (mListeners.isEmpty()) {
+                // Changes were missed while nobody listened.
+                mGeneration++;
+                mSelectableSubscriptions = null;
+                mChangeListener.start();
+            }
+            mListeners.add(listener);
+        }
+    }
+
+    /** Stop notifying {@code listener}. */
+    @MainThread
+    public void removeListener(Listener listener) {
+        synchronized (this) {
+            if (mListeners.remove(listener) && mListeners.isEmpty()) {
+                mChangeListener.stop();
+                mSelectableSubscriptions = null;
+            }
+        }
+    }
+
+    @Override
+    public void onAirplaneModeChanged(boolean airplaneModeEnabled) {
+        onSubscriptionsChanged();
+    }
+
+    @Override
+    public void onSubscriptionsChanged() {
+        final List<Listener> listeners;
+        synchronized (this) {
+            mGeneration++;
+            mSelectableSubscriptions = null;
+            listeners = new ArrayList<>(mListeners);
+        }
+        for (Listener listener : listeners) {
+            // Skip the listeners removed by the ones called before them.
+            synchronized (this) {
+                if (!mListeners.contains(listener)) {
+                    continue;
+                }
+            }
+            listener.onSubscriptionsChanged();
+        }
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        synchronized (sRepositories) {
+            sRepositories.clear();
+        }
+    }
+
+    /**
+     * Keeps an immutable snapshot of a list of subscriptions, and reports what each update of the
+     * list changed, so that UI showing the list can be updated in place.
+     *
+     * <p>Subscriptions are identified by their subscription id. A subscription whose
+     * {@link SubscriptionInfo} is no longer equal to the previous one is reported as changed.
+     */
+    public static class Snapshot {
+
+        private List<SubscriptionInfo> mSubscriptions;
+
+        /** Returns {@code true} once the list was set by {@link #update(List)}. */
+        public boolean isLoaded() {
+            return mSubscriptions != null;
+        }
+
+        /** Returns the current snapshot, or an empty list if it was never loaded. */
+        public List<SubscriptionInfo> getSubscriptions() {
+            return mSubscriptions == null ? Collections.emptyList() : mSubscriptions;
+        }
+
+        /** Replaces the snapshot with {@code subscriptions} and returns what changed. */
+        public ChangeSet update(List<SubscriptionInfo> subscriptions) {
+            final List<SubscriptionInfo> snapshot = Collections.unmodifiableList(
+                    subscriptions == null ? new ArrayList<>() : new ArrayList<>(subscriptions));
+            final ChangeSet changes = diff(getSubscriptions(), snapshot);
+            mSubscriptions = snapshot;
+            return changes;
+        }
+
+        /** Drops the snapshot, so the next user reloads it. */
+        public void invalidate() {
+            mSubscriptions = null;
+        }
+    }
+
+    static ChangeSet diff(List<SubscriptionInfo> oldList, List<SubscriptionInfo> newList) {
+        final ChangeSet changes = new ChangeSet();
+        final SparseArray<SubscriptionInfo> oldInfos = new SparseArray<>(oldList.size());
+        for (SubscriptionInfo info : oldList) {
+            oldInfos.put(info.getSubscriptionId(), info);
+        }
+        for (int i = 0; i < newList.size(); i++) {
+            final SubscriptionInfo info = newList.get(i);
+            final int subId = info.getSubscriptionId();
+            final SubscriptionInfo oldInfo = oldInfos.get(subId);
+            if (oldInfo == null) {
+                changes.mAdded.add(subId);
+            } else if (!Objects.equals(oldInfo, info)) {
+                changes.mChanged.add(subId);
+            }
+            oldInfos.remove(subId);
+            if (i >= oldList.size() || oldList.get(i).getSubscriptionId() != subId) {
+                changes.mOrderChanged = true;
+            }
+        }
+        for (int i = 0; i < oldInfos.size(); i++) {
+            changes.mRemoved.add(oldInfos.keyAt(i));
+        }
+        if (oldList.size() != newList.size()) {
+            changes.mOrderChanged = true;
+        }
+        return changes;
+    }
+
+    /** What an update changed, as sets of subscription ids. */
+    public static class ChangeSet {
+        private final Set<Integer> mAdded = new ArraySet<>();
+        private final Set<Integer> mRemoved = new ArraySet<>();
+        private final Set<Integer> mChanged = new ArraySet<>();
+        private boolean mOrderChanged;
+
+        public Set<Integer> getAdded() {
+            return Collections.unmodifiableSet(mAdded);
+        }
+
+        public Set<Integer> getRemoved() {
+            return Collections.unmodifiableSet(mRemoved);
+        }
+
+        /** Subscriptions kept by the update whose info changed. */
+        public Set<Integer> getChanged() {
+            return Collections.unmodifiableSet(mChanged);
+        }
+
+        /** Returns {@code true} if the subscriptions aren't in the same order as before. */
+        public boolean isOrderChanged() {
+            return mOrderChanged;
+        }
+
+        /** Returns {@code true} if the update didn't change anything. */
+        public boolean isEmpty() {
+            return mAdded.isEmpty() && mRemoved.isEmpty() && mChanged.isEmpty()
+                    && !mOrderChanged;
+        }
+    }
+}
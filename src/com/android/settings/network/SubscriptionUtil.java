@@ -19,8 +19,6 @@ package com.android.settings.network;
 import static android.telephony.SubscriptionManager.INVALID_SIM_SLOT_INDEX;
 import static android.telephony.UiccSlotInfo.CARD_STATE_INFO_PRESENT;
 
-import static com.android.internal.util.CollectionUtils.emptyIfNull;
-
 import android.content.Context;
 import android.os.ParcelUuid;
 import android.telephony.SubscriptionInfo;
@@ -80,7 +78,9 @@ public class SubscriptionUtil {
         if (sAvailableResultsForTesting != null) {
             return sAvailableResultsForTesting;
         }
-        return new ArrayList<>(emptyIfNull(getSelectableSubscriptionInfoList(context)));
+        // Loaded once per change while some page listens to the subscriptions.
+        return new ArrayList<>(
+                SubscriptionRepository.getInstance(context).getSelectableSubscriptions());
     }
 
     /**
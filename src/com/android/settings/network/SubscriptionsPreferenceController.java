@@ -51,6 +51,7 @@ import com.android.settings.network.telephony.SignalStrengthListener;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.net.SignalStrengthUtil;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -76,7 +77,8 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
     private MobileDataEnabledListener mDataEnabledListener;
     private DataConnectivityListener mConnectivityListener;
     private SignalStrengthListener mSignalStrengthListener;
-
+    // Subscriptions which can be displayed, loaded once for each subscription change.
+    private SubscriptionRepository.Snapshot mSubscriptionSnapshot;
 
     // Map of subscription id to Preference
     private Map<Integer, Preference> mSubscriptionPreferences;
@@ -118,6 +120,7 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
         mDataEnabledListener = new MobileDataEnabledListener(context, this);
         mConnectivityListener = new DataConnectivityListener(context, this);
         mSignalStrengthListener = new SignalStrengthListener(context, this);
+        mSubscriptionSnapshot = new SubscriptionRepository.Snapshot();
         lifecycle.addObserver(this);
     }
 
@@ -127,6 +130,8 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
         mDataEnabledListener.start(SubscriptionManager.getDefaultDataSubscriptionId());
         mConnectivityListener.start();
         mSignalStrengthListener.resume();
+        // Subscriptions may have changed while paused.
+        refreshSubscriptions();
         update();
     }
 
@@ -165,14 +170,8 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
         int order = mStartOrder;
         final Set<Integer> activeSubIds = new ArraySet<>();
         final int dataDefaultSubId = SubscriptionManager.getDefaultDataSubscriptionId();
-        for (SubscriptionInfo info : SubscriptionUtil.getActiveSubscriptions(mManager)) {
+        for (SubscriptionInfo info : getDisplayableSubscriptions()) {
             final int subId = info.getSubscriptionId();
-            // Avoid from showing subscription(SIM)s which has been marked as hidden
-            // For example, only one subscription will be shown when there're multiple
-            // subscriptions with same group UUID.
-            if (!canSubscriptionBeDisplayed(mContext, subId)) {
-                continue;
-            }
             activeSubIds.add(subId);
             Preference pref = existingPrefs.remove(subId);
             if (pref == null) {
@@ -203,6 +202,61 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
         mUpdateListener.onChildrenUpdated();
     }
 
+    /**
+     * Update the summary and icon of the preferences already shown, for changes which don't
+     * affect the list of subscriptions.
+     */
+    private void updateStates() {
+        if (mPreferenceGroup == null || mSubscriptionPreferences.isEmpty()) {
+            return;
+        }
+        final int dataDefaultSubId = SubscriptionManager.getDefaultDataSubscriptionId();
+        for (SubscriptionInfo info : getDisplayableSubscriptions()) {
+            final int subId = info.getSubscriptionId();
+            final Preference pref = mSubscriptionPreferences.get(subId);
+            if (pref == null) {
+                continue;
+            }
+            final boolean isDefaultForData = (subId == dataDefaultSubId);
+            pref.setSummary(getSummary(subId, isDefaultForData));
+            setIcon(pref, subId, isDefaultForData);
+        }
+    }
+
+    /** Update the title of the preferences already shown for {@code subIds}. */
+    private void updateTitles(Set<Integer> subIds) {
+        if (mPreferenceGroup == null) {
+            return;
+        }
+        for (SubscriptionInfo info : getDisplayableSubscriptions()) {
+            final Preference pref = mSubscriptionPreferences.get(info.getSubscriptionId());
+            if (pref != null && subIds.contains(info.getSubscriptionId())) {
+                pref.setTitle(info.getDisplayName());
+            }
+        }
+    }
+
+    /** Reload the subscriptions which can be displayed, and return what changed. */
+    private SubscriptionRepository.ChangeSet refreshSubscriptions() {
+        final List<SubscriptionInfo> subscriptions = new ArrayList<>();
+        for (SubscriptionInfo info : SubscriptionUtil.getActiveSubscriptions(mManager)) {
+            // Avoid from showing subscription(SIM)s which has been marked as hidden
+            // For example, only one subscription will be shown when there're multiple
+            // subscriptions with same group UUID.
+            if (canSubscriptionBeDisplayed(mContext, info.getSubscriptionId())) {
+                subscriptions.add(info);
+            }
+        }
+        return mSubscriptionSnapshot.update(subscriptions);
+    }
+
+    private List<SubscriptionInfo> getDisplayableSubscriptions() {
+        if (!mSubscriptionSnapshot.isLoaded()) {
+            refreshSubscriptions();
+        }
+        return mSubscriptionSnapshot.getSubscriptions();
+    }
+
     @VisibleForTesting
     boolean shouldInflateSignalStrength(int subId) {
         return SignalStrengthUtil.shouldInflateSignalStrength(mContext, subId);
@@ -299,17 +353,7 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
         if (mSubscriptionsListener.isAirplaneModeOn()) {
             return false;
         }
-        List<SubscriptionInfo> subInfoList = SubscriptionUtil.getActiveSubscriptions(mManager);
-        if (subInfoList == null) {
-            return false;
-        }
-        return subInfoList.stream()
-                // Avoid from showing subscription(SIM)s which has been marked as hidden
-                // For example, only one subscription will be shown when there're multiple
-                // subscriptions with same group UUID.
-                .filter(subInfo ->
-                        canSubscriptionBeDisplayed(mContext, subInfo.getSubscriptionId()))
-                .count() >= 2;
+        return getDisplayableSubscriptions().size() >= 2;
     }
 
     @Override
@@ -319,6 +363,7 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
 
     @Override
     public void onAirplaneModeChanged(boolean airplaneModeEnabled) {
+        refreshSubscriptions();
         update();
     }
 
@@ -330,22 +375,35 @@ public class SubscriptionsPreferenceController extends AbstractPreferenceControl
             mDataEnabledListener.stop();
             mDataEnabledListener.start(defaultDataSubId);
         }
+        final SubscriptionRepository.ChangeSet changes = refreshSubscriptions();
+        if (changes.isEmpty()) {
+            // Only the defaults may have changed.
+            updateStates();
+            return;
+        }
+        if (changes.getAdded().isEmpty() && changes.getRemoved().isEmpty()
+                && !changes.isOrderChanged()) {
+            // Same subscriptions in the same order, only update the preferences which changed.
+            updateTitles(changes.getChanged());
+            updateStates();
+            return;
+        }
         update();
     }
 
     @Override
     public void onMobileDataEnabledChange() {
-        update();
+        updateStates();
     }
 
     @Override
     public void onDataConnectivityChange() {
-        update();
+        updateStates();
     }
 
     @Override
     public void onSignalStrengthChanged() {
-        update();
+        updateStates();
     }
 
     @VisibleForTesting
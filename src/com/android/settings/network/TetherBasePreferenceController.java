@@ -36,7 +36,7 @@ public abstract class TetherBasePreferenceController extends TogglePreferenceCon
     final TetheringManager mTm;
     private final DataSaverBackend mDataSaverBackend;
 
-    private TetherEnabler mTetherEnabler;
+    TetherEnabler mTetherEnabler;
     Preference mPreference;
     private boolean mDataSaverEnabled;
     int mTetheringState;
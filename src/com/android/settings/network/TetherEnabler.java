@@ -100,6 +100,9 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
     public static final int TETHERING_BLUETOOTH_ON = 1 << TETHERING_BLUETOOTH;
     public static final int TETHERING_ETHERNET_ON = 1 << TETHERING_ETHERNET;
 
+    // Not a valid state, as the flags are never all set.
+    private static final int STATE_UNKNOWN = -1;
+
     @VisibleForTesting
     final List<OnTetherStateUpdateListener> mListeners;
     private final Handler mMainThreadHandler;
@@ -109,6 +112,12 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
     private final TetheringManager mTetheringManager;
     private final UserManager mUserManager;
     private final String mEthernetRegex;
+    private TetherInterfaceMatcher mInterfaceMatcher;
+    // Last published state, reused by the listeners added while handling the same message.
+    private int mTetheringState = STATE_UNKNOWN;
+    private final Runnable mExpireStateRunnable = () -> mTetheringState = STATE_UNKNOWN;
+    // Types of tethering with an available interface, from the last tether state broadcast.
+    private int mTetherableTypes = STATE_UNKNOWN;
     private final DataSaverBackend mDataSaverBackend;
     private boolean mDataSaverEnabled;
     @VisibleForTesting
@@ -143,6 +152,8 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
 
     @OnLifecycleEvent(Lifecycle.Event.ON_START)
     public void onStart() {
+        // Interface regular expressions are read again in case the configuration changed.
+        mInterfaceMatcher = null;
         mDataSaverBackend.addListener(this);
         mSwitchWidgetController.setListener(this);
         mSwitchWidgetController.startListening();
@@ -173,11 +184,16 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
         mContext.unregisterReceiver(mTetherChangeReceiver);
         mTetheringManager.unregisterTetheringEventCallback(mTetheringEventCallback);
         mTetheringEventCallback = null;
+        mTetherableTypes = STATE_UNKNOWN;
     }
 
     public void addListener(OnTetherStateUpdateListener listener) {
         if (listener != null && !mListeners.contains(listener)) {
-            listener.onTetherStateUpdated(getTetheringState(null /* tethered */));
+            // Controllers of a page add themselves together, query the state for the first one.
+            if (mTetheringState == STATE_UNKNOWN) {
+                publishState(getTetheringState(null /* tethered */));
+            }
+            listener.onTetherStateUpdated(mTetheringState);
             mListeners.add(listener);
         }
     }
@@ -188,6 +204,19 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
         }
     }
 
+    /**
+     * Returns {@code true} if an interface usable for tethering of type {@code choice} was
+     * available in the last tethering update, or {@code null} if no update was received since
+     * {@link #onStart()}.
+     */
+    @Nullable
+    public Boolean isTetherable(int choice) {
+        if (mTetherableTypes == STATE_UNKNOWN) {
+            return null;
+        }
+        return TetherInterfaceMatcher.hasType(mTetherableTypes, choice);
+    }
+
     private void setSwitchEnabled(boolean enabled) {
         mSwitchWidgetController.setEnabled(
                 enabled && !mDataSaverEnabled && mUserManager.isAdminUser());
@@ -201,11 +230,25 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
         }
         setSwitchCheckedInternal(state != TETHERING_OFF);
         setSwitchEnabled(true);
+        publishState(state);
         for (int i = 0, size = mListeners.size(); i < size; ++i) {
             mListeners.get(i).onTetherStateUpdated(state);
         }
     }
 
+    private void publishState(@TetheringState int state) {
+        mTetheringState = state;
+        mMainThreadHandler.removeCallbacks(mExpireStateRunnable);
+        mMainThreadHandler.post(mExpireStateRunnable);
+    }
+
+    private TetherInterfaceMatcher getInterfaceMatcher() {
+        if (mInterfaceMatcher == null) {
+            mInterfaceMatcher = new TetherInterfaceMatcher(mTetheringManager, mEthernetRegex);
+        }
+        return mInterfaceMatcher;
+    }
+
     private void setSwitchCheckedInternal(boolean checked) {
         try {
             mSwitchWidgetController.stopListening();
@@ -239,17 +282,9 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
             }
         }
 
-        String[] usbRegexs = mTetheringManager.getTetherableUsbRegexs();
-        for (String s : tethered) {
-            for (String regex : usbRegexs) {
-                if (s.matches(regex)) {
-                    tetherState |= TETHERING_USB_ON;
-                }
-            }
-            if (s.matches(mEthernetRegex)) {
-                tetherState |= TETHERING_ETHERNET_ON;
-            }
-        }
+        // Wifi and bluetooth tethering are checked above.
+        tetherState |= getInterfaceMatcher().getTypes(tethered)
+                & (TETHERING_USB_ON | TETHERING_ETHERNET_ON);
 
         return tetherState;
     }
@@ -309,12 +344,16 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
                 mOnStartTetheringCallback, mMainThreadHandler);
     }
 
-    private final BroadcastReceiver mTetherChangeReceiver = new BroadcastReceiver() {
+    @VisibleForTesting
+    final BroadcastReceiver mTetherChangeReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
             final String action = intent.getAction();
             boolean shouldUpdateState = false;
-            if (TextUtils.equals(WifiManager.WIFI_AP_STATE_CHANGED_ACTION, action)) {
+            if (TextUtils.equals(TetheringManager.ACTION_TETHER_STATE_CHANGED, action)) {
+                shouldUpdateState = handleTetherStateChanged(intent.getStringArrayListExtra(
+                        TetheringManager.EXTRA_AVAILABLE_TETHER));
+            } else if (TextUtils.equals(WifiManager.WIFI_AP_STATE_CHANGED_ACTION, action)) {
                 shouldUpdateState = handleWifiApStateChanged(intent.getIntExtra(
                         WifiManager.EXTRA_WIFI_AP_STATE, WifiManager.WIFI_AP_STATE_FAILED));
             } else if (TextUtils.equals(BluetoothAdapter.ACTION_STATE_CHANGED, action)) {
@@ -328,6 +367,16 @@ public class TetherEnabler implements SwitchWidgetController.OnSwitchChangeListe
         }
     };
 
+    private boolean handleTetherStateChanged(@Nullable List<String> available) {
+        // Tethered interfaces are reported by the tethering event callback, only update listeners
+        // when an interface type became available or unavailable.
+        final int tetherableTypes = getInterfaceMatcher().getTypes(available);
+        final boolean changed = mTetherableTypes != STATE_UNKNOWN
+                && tetherableTypes != mTetherableTypes;
+        mTetherableTypes = tetherableTypes;
+        return changed;
+    }
+
     private boolean handleBluetoothStateChanged(int state) {
         switch (state) {
             case BluetoothAdapter.STATE_ON:
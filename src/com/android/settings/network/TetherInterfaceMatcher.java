@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.android.settings.network.TetherEnabler.TETHERING_BLUETOOTH_ON;
+import static com.android.settings.network.TetherEnabler.TETHERING_ETHERNET_ON;
+import static com.android.settings.network.TetherEnabler.TETHERING_OFF;
+import static com.android.settings.network.TetherEnabler.TETHERING_USB_ON;
+import static com.android.settings.network.TetherEnabler.TETHERING_WIFI_ON;
+
+import android.net.TetheringManager;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Maps tethering interface names to the type of tethering they are used for, as a bitset of
+ * {@link TetherEnabler.TetheringState} flags.
+ *
+ * <p>The interface regular expressions of {@link TetheringManager} are read and compiled once, so
+ * that the interface lists of each tethering update are matched without querying them again.
+ */
+public class TetherInterfaceMatcher {
+
+    private final Pattern[] mUsbPatterns;
+    private final Pattern[] mWifiPatterns;
+    private final Pattern[] mBluetoothPatterns;
+    private final Pattern mEthernetPattern;
+
+    /**
+     * @param tetheringManager to read the interface regular expressions from.
+     * @param ethernetRegex the regular expression of the ethernet interfaces.
+     */
+    public TetherInterfaceMatcher(TetheringManager tetheringManager, String ethernetRegex) {
+        mUsbPatterns = compile(tetheringManager.getTetherableUsbRegexs());
+        mWifiPatterns = compile(tetheringManager.getTetherableWifiRegexs());
+        mBluetoothPatterns = compile(tetheringManager.getTetherableBluetoothRegexs());
+        mEthernetPattern = ethernetRegex == null ? null : Pattern.compile(ethernetRegex);
+    }
+
+    /** Returns the types of tethering {@code iface} can be used for. */
+    @TetherEnabler.TetheringState
+    public int getTypes(String iface) {
+        int types = TETHERING_OFF;
+        if (matches(mUsbPatterns, iface)) {
+            types |= TETHERING_USB_ON;
+        }
+        if (matches(mWifiPatterns, iface)) {
+            types |= TETHERING_WIFI_ON;
+        }
+        if (matches(mBluetoothPatterns, iface)) {
+            types |= TETHERING_BLUETOOTH_ON;
+        }
+        if (mEthernetPattern != null && mEthernetPattern.matcher(iface).matches()) {
+            types |= TETHERING_ETHERNET_ON;
+        }
+        return types;
+    }
+
+    /** Returns the types of tethering any of {@code ifaces} can be used for. */
+    @TetherEnabler.TetheringState
+    public int getTypes(@Nullable String[] ifaces) {
+        int types = TETHERING_OFF;
+        if (ifaces != null) {
+            for (String iface : ifaces) {
+                types |= getTypes(iface);
+            }
+        }
+        return types;
+    }
+
+    /** Returns the types of tethering any of {@code ifaces} can be used for. */
+    @TetherEnabler.TetheringState
+    public int getTypes(@Nullable List<String> ifaces) {
+        int types = TETHERING_OFF;
+        if (ifaces != null) {
+            for (String iface : ifaces) {
+                types |= getTypes(iface);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Returns {@code true} if {@code types} includes tethering of type {@code choice}, like
+     * {@link TetheringManager#TETHERING_USB}.
+     */
+    public static boolean hasType(@TetherEnabler.TetheringState int types, int choice) {
+        return (types & (1 << choice)) != TETHERING_OFF;
+    }
+
+    private static Pattern[] compile(@Nullable String[] regexs) {
+        if (regexs == null) {
+            return new Pattern[0];
+        }
+        final Pattern[] patterns = new Pattern[regexs.length];
+        for (int i = 0; i < regexs.length; i++) {
+            patterns[i] = Pattern.compile(regexs[i]);
+        }
+        return patterns;
+    }
+
+    private static boolean matches(Pattern[] patterns, String iface) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(iface).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.ims;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.telephony.AccessNetworkConstants;
+import android.telephony.SubscriptionManager;
+import android.telephony.ims.ImsException;
+import android.telephony.ims.ImsMmTelManager;
+import android.telephony.ims.ImsReasonInfo;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shares the Wi-Fi calling state of each subscription between the Wi-Fi calling preference, page
+ * and slices, so that they read it from memory instead of querying IMS each time they bind.
+ *
+ * <p>Each value is queried the first time it is needed, with the query of the caller. Callers
+ * asking for a value which is being queried wait for that query instead of starting their own,
+ * each for no longer than its own timeout. Values are kept for at most {@link #MAX_AGE_MILLIS},
+ * since they also depend on carrier config, provisioning and TTY mode, and are dropped earlier
+ * when the IMS registration or a Wi-Fi calling setting of the subscription changes while it has
+ * listeners. Code changing a Wi-Fi calling setting should call {@link #invalidate(int)}.
+ */
+public class WifiCallingStateResolver {
+
+    private static final String TAG = "WifiCallingStateResolver";
+
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = 5000L;
+
+    private static final int FIELD_PROVISIONED = 0;
+    private static final int FIELD_READY = 1;
+    private static final int FIELD_ENABLED_BY_USER = 2;
+    private static final int FIELD_ALLOW_USER_CONTROL = 3;
+    private static final int FIELD_MODE = 4;
+    private static final int FIELD_ROAMING_MODE = 5;
+    private static final int FIELD_COUNT = 6;
+
+    // Wi-Fi calling settings of the subscription table, changed by Settings or other apps.
+    private static final Uri[] WFC_SETTING_URIS = {
+            SubscriptionManager.WFC_ENABLED_CONTENT_URI,
+            SubscriptionManager.WFC_MODE_CONTENT_URI,
+            SubscriptionManager.WFC_ROAMING_ENABLED_CONTENT_URI,
+            SubscriptionManager.WFC_ROAMING_MODE_CONTENT_URI,
+    };
+
+    // One resolver per application context, kept for the life of the process.
+    private static final Map<Context, WifiCallingStateResolver> sResolvers = new ArrayMap<>();
+
+    private final Context mContext;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final SparseArray<SubscriptionState> mStates = new SparseArray<>();
+
+    /** Receives changes of the Wi-Fi calling state of a subscription. */
+    public interface Listener {
+        /** Called on the main thread when the Wi-Fi calling state of {@code subId} changed. */
+        void onWifiCallingStateChanged(int subId);
+    }
+
+    /** Returns the resolver shared within the application of {@code context}. */
+    public static WifiCallingStateResolver getInstance(Context context) {
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        synchronized (sResolvers) {
+            WifiCallingStateResolver resolver = sResolvers.get(appContext);
+            if (resolver == null) {
+                resolver = new WifiCallingStateResolver(appContext);
+                sResolvers.put(appContext, resolver);
+            }
+            return resolver;
+        }
+    }
+
+    @VisibleForTesting
+    WifiCallingStateResolver(Context context) {
+        mContext = context;
+    }
+
+    /** See {@link WifiCallingQueryImsState#isWifiCallingProvisioned()}. */
+    public boolean isWifiCallingProvisioned(int subId, WifiCallingQueryImsState queryState) {
+        return get(subId, FIELD_PROVISIONED, queryState::isWifiCallingProvisioned);
+    }
+
+    /** See {@link WifiCallingQueryImsState#isReadyToWifiCalling()}. */
+    public boolean isReadyToWifiCalling(int subId, WifiCallingQueryImsState queryState) {
+        return get(subId, FIELD_READY, queryState::isReadyToWifiCalling);
+    }
+
+    /** See {@link WifiCallingQueryImsState#isEnabledByUser()}. */
+    public boolean isEnabledByUser(int subId, WifiCallingQueryImsState queryState) {
+        return get(subId, FIELD_ENABLED_BY_USER, queryState::isEnabledByUser);
+    }
+
+    /** See {@link WifiCallingQueryImsState#isAllowUserControl()}. */
+    public boolean isAllowUserControl(int subId, WifiCallingQueryImsState queryState) {
+        return get(subId, FIELD_ALLOW_USER_CONTROL, queryState::isAllowUserControl);
+    }
+
+    /** See {@link ImsMmTelManager#getVoWiFiModeSetting()}. */
+    public int getWfcMode(int subId, ImsMmTelManager imsMmTelManager) {
+        return get(subId, FIELD_MODE, imsMmTelManager::getVoWiFiModeSetting);
+    }
+
+    /**
+     * Like {@link #getWfcMode(int, ImsMmTelManager)}, but waits at most {@code timeoutMillis} for
+     * IMS to answer a query.
+     *
+     * @return the mode, or {@code null} if the query failed or timed out.
+     */
+    @Nullable
+    public Integer getWfcMode(int subId, ImsMmTelManager imsMmTelManager, long timeoutMillis) {
+        try {
+            return get(subId, FIELD_MODE, imsMmTelManager::getVoWiFiModeSetting, timeoutMillis);
+        } catch (InterruptedException | ExecutionException | TimeoutException exception) {
+            Log.e(TAG, "Unable to get wifi calling preferred mode of subId=" + subId,
+                    exception);
+            return null;
+        }
+    }
+
+    /** See {@link ImsMmTelManager#getVoWiFiRoamingModeSetting()}. */
+    public int getWfcRoamingMode(int subId, ImsMmTelManager imsMmTelManager) {
+        return get(subId, FIELD_ROAMING_MODE, imsMmTelManager::getVoWiFiRoamingModeSetting);
+    }
+
+    /** Drop the values of {@code subId}, so they are queried again. */
+    public void invalidate(int subId) {
+        final SubscriptionState state;
+        synchronized (mStates) {
+            state = mStates.get(subId);
+        }
+        if (state != null) {
+            state.invalidate();
+        }
+    }
+
+    /**
+     * Start notifying {@code listener} of the changes of {@code subId}. While the subscription
+     * has listeners, values are also dropped when its IMS registration or a Wi-Fi calling setting
+     * changes.
+     */
+    public void addListener(int subId, Listener listener) {
+        final SubscriptionState state = getState(subId);
+        synchronized (state) {
+            if (state.mListeners.add(listener) && state.mListeners.size() == 1) {
+                state.registerCallback();
+            }
+        }
+    }
+
+    /** Stop notifying {@code listener} of the changes of {@code subId}. */
+    public void removeListener(int subId, Listener listener) {
+        final SubscriptionState state = getState(subId);
+        synchronized (state) {
+            if (state.mListeners.remove(listener) && state.mListeners.isEmpty()) {
+                state.unregisterCallback();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    long getElapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    private <T> T get(int subId, int field, Callable<T> query) {
+        try {
+            return get(subId, field, query, -1L /* timeoutMillis */);
+        } catch (ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException | TimeoutException exception) {
+            // Only waiting for the query of another caller is interrupted, query directly.
+            Thread.currentThread().interrupt();
+            try {
+                return query.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Return the value of {@code field}, running {@code query} if it has to be queried and no
+     * other caller is querying it already. With a negative {@code timeoutMillis} the query runs
+     * on the calling thread and is waited for without bound, otherwise it runs on a background
+     * thread.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(int subId, int field, Callable<T> query, long timeoutMillis)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final SubscriptionState state = getState(subId);
+        final FutureTask<Object> task;
+        final boolean runQuery;
+        synchronized (state) {
+            final Object value = state.getValue(field);
+            if (value != null) {
+                return (T) value;
+            }
+            runQuery = state.mQueries[field] == null;
+            if (runQuery) {
+                state.mQueries[field] = new FieldQuery(state, field, query);
+            }
+            task = state.mQueries[field];
+        }
+        if (runQuery) {
+            if (timeoutMillis < 0) {
+                task.run();
+            } else {
+                ThreadUtils.postOnBackgroundThread(task);
+            }
+        }
+        return (T) (timeoutMillis < 0
+                ? task.get() : task.get(timeoutMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private SubscriptionState getState(int subId) {
+        synchronized (mStates) {
+            SubscriptionState state = mStates.get(subId);
+            if (state == null) {
+                state = new SubscriptionState(subId);
+                mStates.put(subId, state);
+            }
+            return state;
+        }
+    }
+
+    /** A query of one field, shared by the callers asking for the field while it runs. */
+    private class FieldQuery extends FutureTask<Object> {
+        private final SubscriptionState mState;
+        private final int mField;
+
+        FieldQuery(SubscriptionState state, int field, Callable<?> query) {
+            super(query::call);
+            mState = state;
+            mField = field;
+        }
+
+        @Override
+        protected void set(Object value) {
+            synchronized (mState) {
+                // Don't keep a value queried before the state changed.
+                if (mState.mQueries[mField] == this && value != null) {
+                    mState.mValues[mField] = value;
+                    mState.mLoadTimes[mField] = getElapsedRealtime();
+                }
+            }
+            super.set(value);
+        }
+
+        @Override
+        protected void done() {
+            synchronized (mState) {
+                if (mState.mQueries[mField] == this) {
+                    mState.mQueries[mField] = null;
+                }
+            }
+        }
+    }
+
+    private class SubscriptionState extends ImsMmTelManager.RegistrationCallback {
+        final int mSubscriptionId;
+        // The queries running for each field, cleared when they complete or the state changes.
+        final FieldQuery[] mQueries = new FieldQuery[FIELD_COUNT];
+        final Object[] mValues = new Object[FIELD_COUNT];
+        final long[] mLoadTimes = new long[FIELD_COUNT];
+        final Set<Listener> mListeners = new ArraySet<>();
+        final ContentObserver mSettingsObserver = new ContentObserver(mHandler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                onStateChanged();
+            }
+        };
+        // Whether the registration callback and the settings observer are registered.
+        boolean mObserving;
+
+        SubscriptionState(int subId) {
+            mSubscriptionId = subId;
+        }
+
+        // Returns the value of a field, or null if it has to be queried.
+        @Nullable
+        Object getValue(int field) {
+            if (mValues[field] == null) {
+                return null;
+            }
+            if (getElapsedRealtime() - mLoadTimes[field] >= MAX_AGE_MILLIS) {
+                mValues[field] = null;
+                return null;
+            }
+            return mValues[field];
+        }
+
+        synchronized void invalidate() {
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                mValues[i] = null;
+                // Later callers start a new query instead of waiting for an outdated one.
+                mQueries[i] = null;
+            }
+        }
+
+        void registerCallback() {
+            if (!SubscriptionManager.isValidSubscriptionId(mSubscriptionId)) {
+                return;
+            }
+            try {
+                ImsMmTelManager.createForSubscriptionId(mSubscriptionId)
+                        .registerImsRegistrationCallback(mHandler::post, this);
+            } catch (ImsException | IllegalArgumentException exception) {
+                Log.w(TAG, "fail to register IMS status for subId=" + mSubscriptionId,
+                        exception);
+                return;
+            }
+            final ContentResolver resolver = mContext.getContentResolver();
+            for (Uri uri : WFC_SETTING_URIS) {
+                resolver.registerContentObserver(
+                        Uri.withAppendedPath(uri, String.valueOf(mSubscriptionId)),
+                        false /* notifyForDescendants */, mSettingsObserver);
+            }
+            // Values queried without the callback may be outdated already.
+            invalidate();
+            mObserving = true;
+        }
+
+        void unregisterCallback() {
+            if (!mObserving) {
+                return;
+            }
+            mObserving = false;
+            mContext.getContentResolver().unregisterContentObserver(mSettingsObserver);
+            ImsMmTelManager.createForSubscriptionId(mSubscriptionId)
+                    .unregisterImsRegistrationCallback(this);
+        }
+
+        @Override
+        public void onRegistered(@AccessNetworkConstants.TransportType int imsTransportType) {
+            onStateChanged();
+        }
+
+        @Override
+        public void onRegistering(@AccessNetworkConstants.TransportType int imsTransportType) {
+            onStateChanged();
+        }
+
+        @Override
+        public void onUnregistered(@Nullable ImsReasonInfo info) {
+            onStateChanged();
+        }
+
+        @Override
+        public void onTechnologyChangeFailed(
+                @AccessNetworkConstants.TransportType int imsTransportType,
+                @Nullable ImsReasonInfo info) {
+            onStateChanged();
+        }
+
+        private void onStateChanged() {
+            final ArrayList<Listener> listeners;
+            synchronized (this) {
+                invalidate();
+                listeners = new ArrayList<>(mListeners);
+            }
+            for (Listener listener : listeners) {
+                listener.onWifiCallingStateChanged(mSubscriptionId);
+            }
+        }
+    }
+}
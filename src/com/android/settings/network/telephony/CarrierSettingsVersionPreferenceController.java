@@ -23,6 +23,7 @@ import android.telephony.SubscriptionManager;
 import android.text.TextUtils;
 
 import com.android.settings.core.BasePreferenceController;
+import com.android.settings.network.CarrierConfigCache;
 
 public class CarrierSettingsVersionPreferenceController extends BasePreferenceController {
 
@@ -41,7 +42,8 @@ public class CarrierSettingsVersionPreferenceController extends BasePreferenceCo
 
     @Override
     public CharSequence getSummary() {
-        final PersistableBundle config = mManager.getConfigForSubId(mSubscriptionId);
+        final PersistableBundle config =
+                CarrierConfigCache.getConfigForSubId(mContext, mManager, mSubscriptionId);
         if (config == null) {
             return null;
         }
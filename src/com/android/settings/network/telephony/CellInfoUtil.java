@@ -29,6 +29,7 @@ import android.telephony.CellInfoLte;
 import android.telephony.CellInfoNr;
 import android.telephony.CellInfoTdscdma;
 import android.telephony.CellInfoWcdma;
+import android.telephony.CellSignalStrength;
 import android.text.BidiFormatter;
 import android.text.TextDirectionHeuristics;
 import android.text.TextUtils;
@@ -102,6 +103,29 @@ public final class CellInfoUtil {
         return cellId;
     }
 
+    /**
+     * Returns the CellSignalStrength from CellInfo
+     *
+     * @param cellInfo contains the information of the network.
+     * @return CellSignalStrength within CellInfo
+     */
+    public static CellSignalStrength getCellSignalStrength(CellInfo cellInfo) {
+        if (cellInfo instanceof CellInfoGsm) {
+            return ((CellInfoGsm) cellInfo).getCellSignalStrength();
+        } else if (cellInfo instanceof CellInfoCdma) {
+            return ((CellInfoCdma) cellInfo).getCellSignalStrength();
+        } else if (cellInfo instanceof CellInfoWcdma) {
+            return ((CellInfoWcdma) cellInfo).getCellSignalStrength();
+        } else if (cellInfo instanceof CellInfoTdscdma) {
+            return ((CellInfoTdscdma) cellInfo).getCellSignalStrength();
+        } else if (cellInfo instanceof CellInfoLte) {
+            return ((CellInfoLte) cellInfo).getCellSignalStrength();
+        } else if (cellInfo instanceof CellInfoNr) {
+            return ((CellInfoNr) cellInfo).getCellSignalStrength();
+        }
+        return null;
+    }
+
     /**
      * Creates a CellInfo object from OperatorInfo. GsmCellInfo is used here only because
      * operatorInfo does not contain technology type while CellInfo is an abstract object that
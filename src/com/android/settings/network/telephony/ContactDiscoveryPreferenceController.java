@@ -35,6 +35,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreference;
 
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.SubscriptionUtil;
 
 /**
@@ -96,7 +97,8 @@ public class ContactDiscoveryPreferenceController extends TelephonyTogglePrefere
 
     @Override
     public int getAvailabilityStatus(int subId) {
-        PersistableBundle bundle = mCarrierConfigManager.getConfigForSubId(subId);
+        PersistableBundle bundle = CarrierConfigCache.getConfigForSubId(mContext,
+                mCarrierConfigManager, subId);
         boolean shouldShowPresence = bundle != null
                 && (bundle.getBoolean(
                 CarrierConfigManager.KEY_USE_RCS_PRESENCE_BOOL, false /*default*/)
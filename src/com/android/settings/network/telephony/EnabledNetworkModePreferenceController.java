@@ -26,6 +26,7 @@ import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
@@ -35,6 +36,7 @@ import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
 import com.android.settings.network.AllowedNetworkTypesListener;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.telephony.TelephonyConstants.TelephonyManagerConstants;
 
 import java.util.ArrayList;
@@ -50,7 +52,8 @@ public class EnabledNetworkModePreferenceController extends
         ListPreference.OnPreferenceChangeListener, LifecycleObserver {
 
     private static final String LOG_TAG = "EnabledNetworkMode";
-    private AllowedNetworkTypesListener mAllowedNetworkTypesListener;
+    @VisibleForTesting
+    AllowedNetworkTypesListener mAllowedNetworkTypesListener;
     private Preference mPreference;
     private PreferenceScreen mPreferenceScreen;
     private TelephonyManager mTelephonyManager;
@@ -64,7 +67,8 @@ public class EnabledNetworkModePreferenceController extends
     @Override
     public int getAvailabilityStatus(int subId) {
         boolean visible;
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(subId);
+        final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(mContext,
+                mCarrierConfigManager, subId);
         if (subId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
             visible = false;
         } else if (carrierConfig == null) {
@@ -88,6 +92,10 @@ public class EnabledNetworkModePreferenceController extends
         if (mAllowedNetworkTypesListener == null) {
             return;
         }
+        // Allowed network types may have changed while stopped.
+        if (mBuilder != null) {
+            mBuilder.invalidate();
+        }
         mAllowedNetworkTypesListener.register(mContext, mSubId);
     }
 
@@ -111,8 +119,12 @@ public class EnabledNetworkModePreferenceController extends
         super.updateState(preference);
         final ListPreference listPreference = (ListPreference) preference;
 
-        mBuilder.setPreferenceEntries();
-        mBuilder.setPreferenceValueAndSummary();
+        if (mBuilder.isOutdated()) {
+            mBuilder.updateInputs();
+            mBuilder.setPreferenceEntries();
+            mBuilder.setPreferenceValueAndSummary();
+            mBuilder.markBuilt();
+        }
 
         listPreference.setEntries(mBuilder.getEntries());
         listPreference.setEntryValues(mBuilder.getEntryValues());
@@ -146,7 +158,10 @@ public class EnabledNetworkModePreferenceController extends
             mAllowedNetworkTypesListener = new AllowedNetworkTypesListener(
                     mContext.getMainExecutor());
             mAllowedNetworkTypesListener.setAllowedNetworkTypesListener(
-                    () -> updatePreference());
+                    () -> {
+                        mBuilder.invalidate();
+                        updatePreference();
+                    });
         }
 
         lifecycle.addObserver(this);
@@ -161,6 +176,81 @@ public class EnabledNetworkModePreferenceController extends
         }
     }
 
+    /**
+     * Transform LTE network mode to 5G network mode.
+     *
+     * @param networkType an LTE network mode without 5G.
+     * @return the corresponding network mode with 5G.
+     */
+    @VisibleForTesting
+    static int addNrToLteNetworkType(int networkType) {
+        switch(networkType) {
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_ONLY:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_GSM_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO_GSM_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA:
+                return TelephonyManagerConstants
+                        .NETWORK_MODE_NR_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA;
+            default:
+                return networkType; // not LTE
+        }
+    }
+
+    /**
+     * Transform NR5G network mode to LTE network mode.
+     *
+     * @param networkType an 5G network mode.
+     * @return the corresponding network mode without 5G.
+     */
+    @VisibleForTesting
+    static int reduceNrToLteNetworkType(int networkType) {
+        switch(networkType) {
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_ONLY;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_GSM_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO_GSM_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM_WCDMA:
+                return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA;
+            case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA:
+                return TelephonyManagerConstants
+                        .NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA;
+            default:
+                return networkType; // do nothing
+        }
+    }
+
+    @VisibleForTesting
+    static boolean checkSupportedRadioBitmask(long supportedRadioBitmask, long targetBitmask) {
+        return (targetBitmask & supportedRadioBitmask) > 0;
+    }
+
     enum EnabledNetworks {
         ENABLED_NETWORKS_UNKNOWN,
         ENABLED_NETWORKS_CDMA_CHOICES,
@@ -193,6 +283,13 @@ public class EnabledNetworkModePreferenceController extends
         private List<String> mEntries = new ArrayList<>();
         private List<Integer> mEntriesValue = new ArrayList<>();
 
+        // The entries, selected entry and summary only depend on the carrier config, the allowed
+        // network types and the LTE forced setting, so they are reused until one of them changes.
+        // Allowed network type changes are reported by invalidate().
+        private boolean mBuilt;
+        private PersistableBundle mCarrierConfig;
+        private int mLteForced;
+
         PreferenceEntriesBuilder(Context context, int subId) {
             this.mContext = context;
             this.mSubId = subId;
@@ -201,14 +298,16 @@ public class EnabledNetworkModePreferenceController extends
             mTelephonyManager = mContext.getSystemService(TelephonyManager.class)
                     .createForSubscriptionId(mSubId);
 
-            final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(mSubId);
+            mSupported5gRadioAccessFamily = checkSupportedRadioBitmask(
+                    mTelephonyManager.getSupportedRadioAccessFamily(),
+                    TelephonyManager.NETWORK_TYPE_BITMASK_NR);
+        }
+
+        private void updateCapabilities(PersistableBundle carrierConfig) {
             mAllowed5gNetworkType = checkSupportedRadioBitmask(
                     mTelephonyManager.getAllowedNetworkTypesForReason(
                             TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_CARRIER),
                     TelephonyManager.NETWORK_TYPE_BITMASK_NR);
-            mSupported5gRadioAccessFamily = checkSupportedRadioBitmask(
-                    mTelephonyManager.getSupportedRadioAccessFamily(),
-                    TelephonyManager.NETWORK_TYPE_BITMASK_NR);
             mIsGlobalCdma = mTelephonyManager.isLteCdmaEvdoGsmWcdmaEnabled()
                     && carrierConfig != null
                     && carrierConfig.getBoolean(CarrierConfigManager.KEY_SHOW_CDMA_CHOICES_BOOL);
@@ -216,6 +315,41 @@ public class EnabledNetworkModePreferenceController extends
                     CarrierConfigManager.KEY_SHOW_4G_FOR_LTE_DATA_ICON_BOOL);
         }
 
+        private PersistableBundle getCarrierConfig() {
+            return CarrierConfigCache.getConfigForSubId(mContext, mCarrierConfigManager, mSubId);
+        }
+
+        private int getLteForced() {
+            return android.provider.Settings.Global.getInt(mContext.getContentResolver(),
+                    android.provider.Settings.Global.LTE_SERVICE_FORCED + mSubId, 0);
+        }
+
+        /** Drop the built entries, after the allowed network types changed. */
+        void invalidate() {
+            mBuilt = false;
+        }
+
+        /**
+         * Returns {@code true} if the entries have to be built again. Carrier configs are cached,
+         * a new config is a new instance.
+         */
+        boolean isOutdated() {
+            return !mBuilt || getCarrierConfig() != mCarrierConfig
+                    || getLteForced() != mLteForced;
+        }
+
+        /** Read the inputs of the entries again, before building them. */
+        void updateInputs() {
+            mCarrierConfig = getCarrierConfig();
+            mLteForced = getLteForced();
+            updateCapabilities(mCarrierConfig);
+        }
+
+        /** Keep the built entries until their inputs change. */
+        void markBuilt() {
+            mBuilt = true;
+        }
+
         void setPreferenceEntries() {
             clearAllEntries();
             String[] entryValues;
@@ -380,13 +514,11 @@ public class EnabledNetworkModePreferenceController extends
         private EnabledNetworks getEnabledNetworkType() {
             EnabledNetworks enabledNetworkType = EnabledNetworks.ENABLED_NETWORKS_UNKNOWN;
             final int phoneType = mTelephonyManager.getPhoneType();
-            final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(mSubId);
+            final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(mContext,
+                    mCarrierConfigManager, mSubId);
 
             if (phoneType == TelephonyManager.PHONE_TYPE_CDMA) {
-                final int lteForced = android.provider.Settings.Global.getInt(
-                        mContext.getContentResolver(),
-                        android.provider.Settings.Global.LTE_SERVICE_FORCED + mSubId,
-                        0);
+                final int lteForced = getLteForced();
                 final int settingsNetworkMode = getPreferredNetworkMode();
                 if (mTelephonyManager.isLteCdmaEvdoGsmWcdmaEnabled()) {
                     if (lteForced == 0) {
@@ -613,82 +745,10 @@ public class EnabledNetworkModePreferenceController extends
             }
         }
 
-        /**
-         * Transform LTE network mode to 5G network mode.
-         *
-         * @param networkType an LTE network mode without 5G.
-         * @return the corresponding network mode with 5G.
-         */
-        private int addNrToLteNetworkType(int networkType) {
-            switch(networkType) {
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_ONLY:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_GSM_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO_GSM_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA:
-                    return TelephonyManagerConstants
-                            .NETWORK_MODE_NR_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA;
-                default:
-                    return networkType; // not LTE
-            }
-        }
-
-        /**
-         * Transform NR5G network mode to LTE network mode.
-         *
-         * @param networkType an 5G network mode.
-         * @return the corresponding network mode without 5G.
-         */
-        private int reduceNrToLteNetworkType(int networkType) {
-            switch(networkType) {
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_ONLY;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_GSM_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_CDMA_EVDO_GSM_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_GSM_WCDMA:
-                    return TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA;
-                case TelephonyManagerConstants.NETWORK_MODE_NR_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA:
-                    return TelephonyManagerConstants
-                            .NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA;
-                default:
-                    return networkType; // do nothing
-            }
-        }
-
         private void setPreferenceValueAndSummary() {
             setPreferenceValueAndSummary(getPreferredNetworkMode());
         }
 
-        private boolean checkSupportedRadioBitmask(long supportedRadioBitmask, long targetBitmask) {
-            return (targetBitmask & supportedRadioBitmask) > 0;
-        }
-
         /**
          * Add 5G option. Only show the UI when device supported 5G and allowed 5G.
          */
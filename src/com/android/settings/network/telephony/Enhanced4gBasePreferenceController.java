@@ -20,10 +20,8 @@ import android.app.AlertDialog;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.os.Looper;
 import android.os.PersistableBundle;
 import android.telephony.CarrierConfigManager;
-import android.telephony.PhoneStateListener;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.telephony.ims.ImsMmTelManager;
@@ -213,39 +211,38 @@ public class Enhanced4gBasePreferenceController extends TelephonyTogglePreferenc
                 CarrierConfigManager.KEY_EDITABLE_ENHANCED_4G_LTE_BOOL);
     }
 
-    private class PhoneCallStateListener extends PhoneStateListener {
+    private class PhoneCallStateListener implements TelephonyEventHub.Listener {
 
-        PhoneCallStateListener() {
-            super(Looper.getMainLooper());
-        }
-
-        private TelephonyManager mTelephonyManager;
+        private TelephonyEventHub mEventHub;
+        private int mRegisteredSubId;
 
         @Override
-        public void onCallStateChanged(int state, String incomingNumber) {
-            mCallState = state;
+        public void onTelephonyEvent(int subId, int event, Object value) {
+            mCallState = (Integer) value;
             updateState(mPreference);
         }
 
         public void register(Context context, int subId) {
-            mTelephonyManager = context.getSystemService(TelephonyManager.class);
+            TelephonyManager telephonyManager = context.getSystemService(TelephonyManager.class);
             if (SubscriptionManager.isValidSubscriptionId(subId)) {
-                mTelephonyManager = mTelephonyManager.createForSubscriptionId(subId);
+                telephonyManager = telephonyManager.createForSubscriptionId(subId);
             }
             // assign current call state so that it helps to show correct preference state even
             // before first onCallStateChanged() by initial registration.
-            mCallState = mTelephonyManager.getCallState(subId);
-            mTelephonyManager.listen(this, PhoneStateListener.LISTEN_CALL_STATE);
+            mCallState = telephonyManager.getCallState(subId);
+            mEventHub = TelephonyEventHub.getInstance(context);
+            mRegisteredSubId = subId;
+            mEventHub.subscribe(subId, TelephonyEventHub.EVENT_CALL_STATE, this);
 
-            final long supportedRadioBitmask = mTelephonyManager.getSupportedRadioAccessFamily();
+            final long supportedRadioBitmask = telephonyManager.getSupportedRadioAccessFamily();
             mHas5gCapability =
                     (supportedRadioBitmask & TelephonyManager.NETWORK_TYPE_BITMASK_NR) > 0;
         }
 
         public void unregister() {
             mCallState = null;
-            if (mTelephonyManager != null) {
-                mTelephonyManager.listen(this, PhoneStateListener.LISTEN_NONE);
+            if (mEventHub != null) {
+                mEventHub.unsubscribe(mRegisteredSubId, TelephonyEventHub.EVENT_CALL_STATE, this);
             }
         }
     }
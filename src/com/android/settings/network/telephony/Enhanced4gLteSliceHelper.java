@@ -41,6 +41,7 @@ import androidx.slice.builders.SliceAction;
 
 import com.android.settings.R;
 import com.android.settings.Utils;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ims.VolteQueryImsState;
 import com.android.settings.slices.CustomSliceRegistry;
 import com.android.settings.slices.SliceBroadcastReceiver;
@@ -245,7 +246,8 @@ public class Enhanced4gLteSliceHelper {
         final CarrierConfigManager configManager = getCarrierConfigManager();
         boolean ret = defaultValue;
         if (configManager != null) {
-            final PersistableBundle bundle = configManager.getConfigForSubId(subId);
+            final PersistableBundle bundle = CarrierConfigCache.getConfigForSubId(mContext,
+                    configManager, subId);
             if (bundle != null) {
                 ret = bundle.getBoolean(key, defaultValue);
             }
@@ -17,8 +17,6 @@
 package com.android.settings.network.telephony;
 
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
@@ -31,7 +29,7 @@ import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreference;
 
 import com.android.settings.R;
-import com.android.settings.network.MobileDataContentObserver;
+import com.android.settings.network.MobileDataStateObserver;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
@@ -47,7 +45,9 @@ public class MobileDataPreferenceController extends TelephonyTogglePreferenceCon
     private SwitchPreference mPreference;
     private TelephonyManager mTelephonyManager;
     private SubscriptionManager mSubscriptionManager;
-    private MobileDataContentObserver mDataContentObserver;
+    private MobileDataStateObserver mDataStateObserver;
+    private final MobileDataStateObserver.Listener mDataStateListener =
+            subId -> updateState(mPreference);
     private FragmentManager mFragmentManager;
     @VisibleForTesting
     int mDialogType;
@@ -57,8 +57,7 @@ public class MobileDataPreferenceController extends TelephonyTogglePreferenceCon
     public MobileDataPreferenceController(Context context, String key) {
         super(context, key);
         mSubscriptionManager = context.getSystemService(SubscriptionManager.class);
-        mDataContentObserver = new MobileDataContentObserver(new Handler(Looper.getMainLooper()));
-        mDataContentObserver.setOnMobileDataChangedListener(() -> updateState(mPreference));
+        mDataStateObserver = MobileDataStateObserver.getInstance(context);
     }
 
     @Override
@@ -77,14 +76,15 @@ public class MobileDataPreferenceController extends TelephonyTogglePreferenceCon
     @Override
     public void onStart() {
         if (mSubId != SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
-            mDataContentObserver.register(mContext, mSubId);
+            mDataStateObserver.addListener(mSubId,
+                        MobileDataStateObserver.CHANGE_MOBILE_DATA, mDataStateListener);
         }
     }
 
     @Override
     public void onStop() {
         if (mSubId != SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
-            mDataContentObserver.unRegister(mContext);
+            mDataStateObserver.removeListener(mSubId, mDataStateListener);
         }
     }
 
@@ -115,7 +115,7 @@ public class MobileDataPreferenceController extends TelephonyTogglePreferenceCon
 
     @Override
     public boolean isChecked() {
-        return mTelephonyManager.isDataEnabled();
+        return mDataStateObserver.isDataEnabled(mSubId);
     }
 
     @Override
@@ -23,10 +23,7 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.database.ContentObserver;
 import android.net.Uri;
-import android.os.Handler;
-import android.os.Looper;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
@@ -38,7 +35,7 @@ import androidx.slice.builders.SliceAction;
 
 import com.android.settings.R;
 import com.android.settings.Utils;
-import com.android.settings.network.MobileDataContentObserver;
+import com.android.settings.network.MobileDataStateObserver;
 import com.android.settings.network.SubscriptionUtil;
 import com.android.settings.slices.CustomSliceRegistry;
 import com.android.settings.slices.CustomSliceable;
@@ -197,7 +194,9 @@ public class MobileDataSlice implements CustomSliceable {
             return false;
         }
 
-        return mTelephonyManager.isDataEnabled();
+        // Read through the observer the worker listens to, so readers share one value.
+        return MobileDataStateObserver.getInstance(mContext).isDataEnabled(
+                getDefaultSubscriptionId(mSubscriptionManager));
     }
 
     /**
@@ -206,63 +205,46 @@ public class MobileDataSlice implements CustomSliceable {
      * <p>
      *     Listen to individual subscription changes since there is no framework broadcast.
      *
-     *     This worker registers a ContentObserver in the background and updates the MobileData
-     *     Slice when the value changes.
+     *     This worker listens to the shared {@link MobileDataStateObserver} in the background
+     *     and updates the MobileData Slice when the value changes.
      */
     public static class MobileDataWorker extends SliceBackgroundWorker<Void> {
 
-        DataContentObserver mMobileDataObserver;
+        private final MobileDataStateObserver.Listener mListener = subId -> updateSlice();
+        private int mSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+        private boolean mListening;
 
         public MobileDataWorker(Context context, Uri uri) {
             super(context, uri);
-            final Handler handler = new Handler(Looper.getMainLooper());
-            mMobileDataObserver = new DataContentObserver(handler, this);
         }
 
         @Override
         protected void onSlicePinned() {
             final SubscriptionManager subscriptionManager =
                     getContext().getSystemService(SubscriptionManager.class);
-            mMobileDataObserver.register(getContext(),
-                    getDefaultSubscriptionId(subscriptionManager));
+            onSliceUnpinned();
+            mSubId = getDefaultSubscriptionId(subscriptionManager);
+            MobileDataStateObserver.getInstance(getContext()).addListener(mSubId,
+                        MobileDataStateObserver.CHANGE_MOBILE_DATA, mListener);
+            mListening = true;
         }
 
         @Override
         protected void onSliceUnpinned() {
-            mMobileDataObserver.unRegister(getContext());
+            if (!mListening) {
+                return;
+            }
+            MobileDataStateObserver.getInstance(getContext()).removeListener(mSubId, mListener);
+            mListening = false;
         }
 
         @Override
         public void close() throws IOException {
-            mMobileDataObserver = null;
+            onSliceUnpinned();
         }
 
         public void updateSlice() {
             notifySliceChange();
         }
-
-        public class DataContentObserver extends ContentObserver {
-
-            private final MobileDataWorker mSliceBackgroundWorker;
-
-            public DataContentObserver(Handler handler, MobileDataWorker backgroundWorker) {
-                super(handler);
-                mSliceBackgroundWorker = backgroundWorker;
-            }
-
-            @Override
-            public void onChange(boolean selfChange) {
-                mSliceBackgroundWorker.updateSlice();
-            }
-
-            public void register(Context context, int subId) {
-                final Uri uri = MobileDataContentObserver.getObservableUri(context, subId);
-                context.getContentResolver().registerContentObserver(uri, false, this);
-            }
-
-            public void unRegister(Context context) {
-                context.getContentResolver().unregisterContentObserver(this);
-            }
-        }
     }
 }
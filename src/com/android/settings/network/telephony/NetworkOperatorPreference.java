@@ -94,6 +94,13 @@ public class NetworkOperatorPreference extends Preference {
         refresh();
     }
 
+    /**
+     * Cell identity of this preference
+     */
+    public CellIdentity getCellIdentity() {
+        return mCellId;
+    }
+
     /**
      * Compare cell within preference
      */
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.telephony;
+
+import android.telephony.CellIdentity;
+import android.telephony.CellIdentityCdma;
+import android.telephony.CellIdentityGsm;
+import android.telephony.CellIdentityLte;
+import android.telephony.CellIdentityNr;
+import android.telephony.CellIdentityTdscdma;
+import android.telephony.CellIdentityWcdma;
+import android.telephony.CellInfo;
+import android.telephony.CellSignalStrength;
+import android.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Accumulates the {@link CellInfo} batches reported by a network scan, keeping one entry for each
+ * operator (PLMN) and radio access technology.
+ *
+ * <p>A later report of an operator replaces the earlier one, so signal strength and registration
+ * updates are merged into the existing entry. Entries are ranked with the registered operators
+ * first, then in the order they were first found, so rows don't move around while the scan goes.
+ */
+public class NetworkScanResults {
+
+    private static final int RAT_UNKNOWN = 0;
+    private static final int RAT_GSM = 1;
+    private static final int RAT_CDMA = 2;
+    private static final int RAT_WCDMA = 3;
+    private static final int RAT_TDSCDMA = 4;
+    private static final int RAT_LTE = 5;
+    private static final int RAT_NR = 6;
+
+    // Set for the keys of cells without a valid PLMN, which are keyed by operator name instead.
+    private static final long KEY_NO_PLMN = 1L << 40;
+
+    private final LongSparseArray<Entry> mEntriesByKey = new LongSparseArray<>();
+    // In the order the operators were first found.
+    private final List<Entry> mEntries = new ArrayList<>();
+    private int mBatch;
+
+    /**
+     * Merge a batch of scan results.
+     *
+     * @return {@code true} if an operator was added, or the info of an operator changed.
+     */
+    public boolean merge(List<CellInfo> cellInfos) {
+        if (cellInfos == null) {
+            return false;
+        }
+        mBatch++;
+        boolean changed = false;
+        for (CellInfo cellInfo : cellInfos) {
+            if (cellInfo == null) {
+                continue;
+            }
+            final long key = getKey(cellInfo);
+            Entry entry = mEntriesByKey.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                mEntriesByKey.put(key, entry);
+                mEntries.add(entry);
+            } else if (entry.mBatch == mBatch && entry.mCellInfo.isRegistered()
+                    && !cellInfo.isRegistered()) {
+                // Another cell of the operator in the same batch, keep the registered one.
+                continue;
+            } else if (isSameReport(entry.mCellInfo, cellInfo)) {
+                entry.mBatch = mBatch;
+                continue;
+            }
+            entry.mCellInfo = cellInfo;
+            entry.mBatch = mBatch;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /** Returns the ranked scan results, one for each operator and radio access technology. */
+    public List<CellInfo> getCellInfoList() {
+        final List<CellInfo> cellInfos = new ArrayList<>(mEntries.size());
+        for (Entry entry : mEntries) {
+            if (entry.mCellInfo.isRegistered()) {
+                cellInfos.add(entry.mCellInfo);
+            }
+        }
+        for (Entry entry : mEntries) {
+            if (!entry.mCellInfo.isRegistered()) {
+                cellInfos.add(entry.mCellInfo);
+            }
+        }
+        return cellInfos;
+    }
+
+    /** Drop the results, before a new scan starts. */
+    public void clear() {
+        mEntriesByKey.clear();
+        mEntries.clear();
+    }
+
+    /** Returns the key identifying the operator and radio access technology of a cell. */
+    public static long getKey(CellInfo cellInfo) {
+        return getKey(CellInfoUtil.getCellIdentity(cellInfo));
+    }
+
+    /**
+     * Returns the key identifying the operator and radio access technology of a cell identity.
+     *
+     * <p>The key packs the MCC, the MNC with its number of digits and the radio access technology,
+     * so cells can be compared without building operator strings.
+     */
+    public static long getKey(CellIdentity cellId) {
+        String mcc = null;
+        String mnc = null;
+        int rat = RAT_UNKNOWN;
+        if (cellId instanceof CellIdentityGsm) {
+            mcc = ((CellIdentityGsm) cellId).getMccString();
+            mnc = ((CellIdentityGsm) cellId).getMncString();
+            rat = RAT_GSM;
+        } else if (cellId instanceof CellIdentityCdma) {
+            rat = RAT_CDMA;
+        } else if (cellId instanceof CellIdentityWcdma) {
+            mcc = ((CellIdentityWcdma) cellId).getMccString();
+            mnc = ((CellIdentityWcdma) cellId).getMncString();
+            rat = RAT_WCDMA;
+        } else if (cellId instanceof CellIdentityTdscdma) {
+            mcc = ((CellIdentityTdscdma) cellId).getMccString();
+            mnc = ((CellIdentityTdscdma) cellId).getMncString();
+            rat = RAT_TDSCDMA;
+        } else if (cellId instanceof CellIdentityLte) {
+            mcc = ((CellIdentityLte) cellId).getMccString();
+            mnc = ((CellIdentityLte) cellId).getMncString();
+            rat = RAT_LTE;
+        } else if (cellId instanceof CellIdentityNr) {
+            mcc = ((CellIdentityNr) cellId).getMccString();
+            mnc = ((CellIdentityNr) cellId).getMncString();
+            rat = RAT_NR;
+        }
+
+        final int mccValue = parseDigits(mcc);
+        final int mncValue = parseDigits(mnc);
+        if (mccValue < 0 || mncValue < 0) {
+            final CharSequence name = cellId == null ? null : cellId.getOperatorAlphaLong();
+            final long nameHash = Objects.hashCode(name == null ? null : name.toString());
+            return KEY_NO_PLMN | ((nameHash & 0xffffffffL) << 8) | rat;
+        }
+        // "001" and "01" are different MNCs.
+        final long plmn = mccValue * 10000L + mnc.length() * 1000L + mncValue;
+        return (plmn << 8) | rat;
+    }
+
+    // CellInfo#equals also compares the time stamp, which changes in every batch. Compare only what
+    // the list shows: the cell, whether it is registered and its signal level.
+    private static boolean isSameReport(CellInfo cellInfo1, CellInfo cellInfo2) {
+        return cellInfo1.isRegistered() == cellInfo2.isRegistered()
+                && getLevel(cellInfo1) == getLevel(cellInfo2)
+                && Objects.equals(CellInfoUtil.getCellIdentity(cellInfo1),
+                        CellInfoUtil.getCellIdentity(cellInfo2));
+    }
+
+    private static int getLevel(CellInfo cellInfo) {
+        final CellSignalStrength signalStrength = CellInfoUtil.getCellSignalStrength(cellInfo);
+        return signalStrength == null
+                ? CellSignalStrength.SIGNAL_STRENGTH_NONE_OR_UNKNOWN : signalStrength.getLevel();
+    }
+
+    // Returns the value of a 1 to 3 digits string, or -1 if it isn't one.
+    private static int parseDigits(String digits) {
+        if (digits == null || digits.isEmpty() || digits.length() > 3) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            final char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static class Entry {
+        CellInfo mCellInfo;
+        int mBatch;
+    }
+}
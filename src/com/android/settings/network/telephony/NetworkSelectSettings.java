@@ -18,11 +18,9 @@ package com.android.settings.network.telephony;
 
 import android.app.Activity;
 import android.app.settings.SettingsEnums;
-import android.content.Context;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
-import android.os.PersistableBundle;
 import android.provider.Settings;
 import android.telephony.AccessNetworkConstants;
 import android.telephony.CarrierConfigManager;
@@ -34,6 +32,7 @@ import android.telephony.SignalStrength;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.util.Log;
+import android.util.LongSparseArray;
 import android.view.View;
 
 import androidx.annotation.VisibleForTesting;
@@ -43,6 +42,7 @@ import androidx.preference.PreferenceCategory;
 import com.android.internal.telephony.OperatorInfo;
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
@@ -75,6 +75,7 @@ public class NetworkSelectSettings extends DashboardFragment {
     private Preference mStatusMessagePreference;
     @VisibleForTesting
     List<CellInfo> mCellInfoList;
+    private final NetworkScanResults mScanResults = new NetworkScanResults();
     private int mSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
     @VisibleForTesting
     TelephonyManager mTelephonyManager;
@@ -106,12 +107,8 @@ public class NetworkSelectSettings extends DashboardFragment {
                 .createForSubscriptionId(mSubId);
         mNetworkScanHelper = new NetworkScanHelper(
                 mTelephonyManager, mCallback, mNetworkScanExecutor);
-        PersistableBundle bundle = ((CarrierConfigManager) getContext().getSystemService(
-                Context.CARRIER_CONFIG_SERVICE)).getConfigForSubId(mSubId);
-        if (bundle != null) {
-            mShow4GForLTE = bundle.getBoolean(
-                    CarrierConfigManager.KEY_SHOW_4G_FOR_LTE_DATA_ICON_BOOL);
-        }
+        mShow4GForLTE = CarrierConfigCache.getBoolean(getContext(), mSubId,
+                CarrierConfigManager.KEY_SHOW_4G_FOR_LTE_DATA_ICON_BOOL, mShow4GForLTE);
 
         mMetricsFeatureProvider = FeatureFactory
                 .getFactory(getContext()).getMetricsFeatureProvider();
@@ -244,9 +241,13 @@ public class NetworkSelectSettings extends DashboardFragment {
                         stopNetworkQuery();
                     }
 
-                    mCellInfoList = new ArrayList<>(results);
+                    if (!mScanResults.merge(results) && mCellInfoList != null) {
+                        // Nothing new in this batch.
+                        break;
+                    }
+                    mCellInfoList = mScanResults.getCellInfoList();
                     Log.d(TAG, "CellInfoList: " + CellInfoUtil.cellInfoListToString(mCellInfoList));
-                    if (mCellInfoList != null && mCellInfoList.size() != 0) {
+                    if (mCellInfoList.size() != 0) {
                         final NetworkOperatorPreference connectedPref =
                                 updateAllPreferenceCategory();
                         if (connectedPref != null) {
@@ -334,32 +335,33 @@ public class NetworkSelectSettings extends DashboardFragment {
      */
     @VisibleForTesting
     NetworkOperatorPreference updateAllPreferenceCategory() {
-        int numberOfPreferences = mPreferenceCategory.getPreferenceCount();
-
-        // remove unused preferences
-        while (numberOfPreferences > mCellInfoList.size()) {
-            numberOfPreferences--;
-            mPreferenceCategory.removePreference(
-                    mPreferenceCategory.getPreference(numberOfPreferences));
+        // Rows already shown, by operator and radio access technology.
+        final LongSparseArray<NetworkOperatorPreference> existingPrefs = new LongSparseArray<>();
+        for (int index = mPreferenceCategory.getPreferenceCount() - 1; index >= 0; index--) {
+            final Preference rawPref = mPreferenceCategory.getPreference(index);
+            if (rawPref instanceof NetworkOperatorPreference) {
+                final NetworkOperatorPreference pref = (NetworkOperatorPreference) rawPref;
+                final long key = NetworkScanResults.getKey(pref.getCellIdentity());
+                if (existingPrefs.indexOfKey(key) < 0) {
+                    existingPrefs.put(key, pref);
+                    continue;
+                }
+            }
+            mPreferenceCategory.removePreference(rawPref);
         }
 
-        // update the content of preference
+        // update the content of preference, keeping the row of each operator
         NetworkOperatorPreference connectedPref = null;
         for (int index = 0; index < mCellInfoList.size(); index++) {
             final CellInfo cellInfo = mCellInfoList.get(index);
+            final long key = NetworkScanResults.getKey(cellInfo);
 
-            NetworkOperatorPreference pref = null;
-            if (index < numberOfPreferences) {
-                final Preference rawPref = mPreferenceCategory.getPreference(index);
-                if (rawPref instanceof NetworkOperatorPreference) {
-                    // replace existing preference
-                    pref = (NetworkOperatorPreference) rawPref;
-                    pref.updateCell(cellInfo);
-                } else {
-                    mPreferenceCategory.removePreference(rawPref);
-                }
-            }
-            if (pref == null) {
+            NetworkOperatorPreference pref = existingPrefs.get(key);
+            if (pref != null) {
+                existingPrefs.remove(key);
+                pref.updateCell(cellInfo);
+                pref.setOrder(index);
+            } else {
                 // add new preference
                 pref = new NetworkOperatorPreference(getPrefContext(),
                         cellInfo, mForbiddenPlmns, mShow4GForLTE);
@@ -368,24 +370,24 @@ public class NetworkSelectSettings extends DashboardFragment {
             }
             pref.setKey(pref.getOperatorName());
 
-            if (mCellInfoList.get(index).isRegistered()) {
+            if (cellInfo.isRegistered()) {
                 pref.setSummary(R.string.network_connected);
                 connectedPref = pref;
             } else {
                 pref.setSummary(null);
             }
-        }
-
-        // update selected preference instance by index
-        for (int index = 0; index < mCellInfoList.size(); index++) {
-            final CellInfo cellInfo = mCellInfoList.get(index);
 
+            // update selected preference instance
             if ((mSelectedPreference != null) && mSelectedPreference.isSameCell(cellInfo)) {
-                mSelectedPreference = (NetworkOperatorPreference)
-                        (mPreferenceCategory.getPreference(index));
+                mSelectedPreference = pref;
             }
         }
 
+        // remove the rows of operators which are no longer found
+        for (int index = 0; index < existingPrefs.size(); index++) {
+            mPreferenceCategory.removePreference(existingPrefs.valueAt(index));
+        }
+
         return connectedPref;
     }
 
@@ -472,6 +474,9 @@ public class NetworkSelectSettings extends DashboardFragment {
     private void startNetworkQuery() {
         setProgressBarVisible(true);
         if (mNetworkScanHelper != null) {
+            // Operators of the previous scan are only shown until the new one reports.
+            mScanResults.clear();
+            mCellInfoList = null;
             mRequestIdManualNetworkScan = getNewRequestId();
             mWaitingForNumberOfScanResults = MIN_NUMBER_OF_SCAN_REQUIRED;
             mNetworkScanHelper.startNetworkScan(
@@ -28,6 +28,7 @@ import android.telephony.TelephonyManager;
 
 import com.android.settings.R;
 import com.android.settings.core.instrumentation.InstrumentedDialogFragment;
+import com.android.settings.network.CarrierConfigCache;
 
 /**
  * A dialog fragment that asks the user if they are sure they want to turn on data roaming
@@ -62,7 +63,8 @@ public class RoamingDialogFragment extends InstrumentedDialogFragment implements
         final AlertDialog.Builder builder = new AlertDialog.Builder(getContext());
         final int title = R.string.roaming_alert_title;
         int message = R.string.roaming_warning;
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(mSubId);
+        final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(
+                getContext(), mCarrierConfigManager, mSubId);
         if (carrierConfig != null && carrierConfig.getBoolean(
                 CarrierConfigManager.KEY_CHECK_PRICING_WITH_CARRIER_FOR_DATA_ROAMING_BOOL)) {
             message = R.string.roaming_check_price_warning;
@@ -18,7 +18,6 @@ package com.android.settings.network.telephony;
 
 import android.content.Context;
 import android.os.PersistableBundle;
-import android.provider.Settings;
 import android.telephony.CarrierConfigManager;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
@@ -29,7 +28,8 @@ import androidx.fragment.app.FragmentManager;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
-import com.android.settings.network.GlobalSettingsChangeListener;
+import com.android.settings.network.CarrierConfigCache;
+import com.android.settings.network.MobileDataStateObserver;
 import com.android.settingslib.RestrictedSwitchPreference;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
@@ -48,14 +48,11 @@ public class RoamingPreferenceController extends TelephonyTogglePreferenceContro
     private TelephonyManager mTelephonyManager;
     private CarrierConfigManager mCarrierConfigManager;
 
-    /**
-     * There're 2 listeners both activated at the same time.
-     * For project that access DATA_ROAMING, only first listener is functional.
-     * For project that access "DATA_ROAMING + subId", first listener will be stopped when receiving
-     * any onChange from second listener.
-     */
-    private GlobalSettingsChangeListener mListener;
-    private GlobalSettingsChangeListener mListenerForSubId;
+    private MobileDataStateObserver mDataStateObserver;
+    private final MobileDataStateObserver.Listener mDataStateListener =
+            subId -> updateState(mSwitchPreference);
+    private int mListeningSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+    private boolean mListening;
 
     @VisibleForTesting
     FragmentManager mFragmentManager;
@@ -63,37 +60,26 @@ public class RoamingPreferenceController extends TelephonyTogglePreferenceContro
     public RoamingPreferenceController(Context context, String key) {
         super(context, key);
         mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
+        mDataStateObserver = MobileDataStateObserver.getInstance(context);
     }
 
     @Override
     public void onStart() {
-        if (mListener == null) {
-            mListener = new GlobalSettingsChangeListener(mContext,
-                    Settings.Global.DATA_ROAMING) {
-                public void onChanged(String field) {
-                    updateState(mSwitchPreference);
-                }
-            };
-        }
-        stopMonitorSubIdSpecific();
-
-        if (mSubId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
-            return;
-        }
-
-        mListenerForSubId = new GlobalSettingsChangeListener(mContext,
-                Settings.Global.DATA_ROAMING + mSubId) {
-            public void onChanged(String field) {
-                stopMonitor();
-                updateState(mSwitchPreference);
-            }
-        };
+        onStop();
+        // Observes both DATA_ROAMING and "DATA_ROAMING + subId", shared with other controllers.
+        mListeningSubId = mSubId;
+        mDataStateObserver.addListener(mListeningSubId,
+                MobileDataStateObserver.CHANGE_DATA_ROAMING, mDataStateListener);
+        mListening = true;
     }
 
     @Override
     public void onStop() {
-        stopMonitor();
-        stopMonitorSubIdSpecific();
+        if (!mListening) {
+            return;
+        }
+        mDataStateObserver.removeListener(mListeningSubId, mDataStateListener);
+        mListening = false;
     }
 
     @Override
@@ -134,9 +120,9 @@ public class RoamingPreferenceController extends TelephonyTogglePreferenceContro
 
     @VisibleForTesting
     boolean isDialogNeeded() {
-        final boolean isRoamingEnabled = mTelephonyManager.isDataRoamingEnabled();
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(
-                mSubId);
+        final boolean isRoamingEnabled = isChecked();
+        final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(mContext,
+                mCarrierConfigManager, mSubId);
 
         // Need dialog if we need to turn on roaming and the roaming charge indication is allowed
         if (!isRoamingEnabled && (carrierConfig == null || !carrierConfig.getBoolean(
@@ -148,7 +134,7 @@ public class RoamingPreferenceController extends TelephonyTogglePreferenceContro
 
     @Override
     public boolean isChecked() {
-        return mTelephonyManager.isDataRoamingEnabled();
+        return mDataStateObserver.isDataRoamingEnabled(mSubId);
     }
 
     public void init(FragmentManager fragmentManager, int subId) {
@@ -173,18 +159,4 @@ public class RoamingPreferenceController extends TelephonyTogglePreferenceContro
 
         dialogFragment.show(mFragmentManager, DIALOG_TAG);
     }
-
-    private void stopMonitor() {
-        if (mListener != null) {
-            mListener.close();
-            mListener = null;
-        }
-    }
-
-    private void stopMonitorSubIdSpecific() {
-        if (mListenerForSubId != null) {
-            mListenerForSubId.close();
-            mListenerForSubId = null;
-        }
-    }
 }
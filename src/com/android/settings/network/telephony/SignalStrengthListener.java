@@ -17,46 +17,41 @@
 package com.android.settings.network.telephony;
 
 import android.content.Context;
-import android.telephony.PhoneStateListener;
-import android.telephony.SignalStrength;
-import android.telephony.TelephonyManager;
 import android.util.ArraySet;
 
 import com.google.common.collect.Sets;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 /** Helper class to manage listening to signal strength changes on a set of mobile network
  *  subscriptions */
-public class SignalStrengthListener {
+public class SignalStrengthListener implements TelephonyEventHub.Listener {
 
-    private TelephonyManager mBaseTelephonyManager;
+    private TelephonyEventHub mEventHub;
     private Callback mCallback;
-    private Map<Integer, PhoneStateListener> mListeners;
+    private Set<Integer> mSubscriptionIds;
 
     public interface Callback {
         void onSignalStrengthChanged();
     }
 
     public SignalStrengthListener(Context context, Callback callback) {
-        mBaseTelephonyManager = context.getSystemService(TelephonyManager.class);
+        mEventHub = TelephonyEventHub.getInstance(context);
         mCallback = callback;
-        mListeners = new TreeMap<>();
+        mSubscriptionIds = new ArraySet<>();
     }
 
     /** Resumes listening for signal strength changes for the set of ids from the last call to
      * {@link #updateSubscriptionIds(Set)}  */
     public void resume() {
-        for (int subId : mListeners.keySet()) {
+        for (int subId : mSubscriptionIds) {
             startListening(subId);
         }
     }
 
     /** Pauses listening for signal strength changes */
     public void pause() {
-        for (int subId : mListeners.keySet()) {
+        for (int subId : mSubscriptionIds) {
             stopListening(subId);
         }
     }
@@ -64,30 +59,27 @@ public class SignalStrengthListener {
     /** Updates the set of ids we want to be listening for, beginning to listen for any new ids and
      * stopping listening for any ids not contained in the new set */
     public void updateSubscriptionIds(Set<Integer> ids) {
-        Set<Integer> currentIds = new ArraySet<>(mListeners.keySet());
+        Set<Integer> currentIds = new ArraySet<>(mSubscriptionIds);
         for (int idToRemove : Sets.difference(currentIds, ids)) {
             stopListening(idToRemove);
-            mListeners.remove(idToRemove);
+            mSubscriptionIds.remove(idToRemove);
         }
         for (int idToAdd : Sets.difference(ids, currentIds)) {
-            PhoneStateListener listener = new PhoneStateListener() {
-                @Override
-                public void onSignalStrengthsChanged(SignalStrength signalStrength) {
-                    mCallback.onSignalStrengthChanged();
-                }
-            };
-            mListeners.put(idToAdd, listener);
+            mSubscriptionIds.add(idToAdd);
             startListening(idToAdd);
         }
     }
 
+    @Override
+    public void onTelephonyEvent(int subId, int event, Object value) {
+        mCallback.onSignalStrengthChanged();
+    }
+
     private void startListening(int subId) {
-        TelephonyManager mgr = mBaseTelephonyManager.createForSubscriptionId(subId);
-        mgr.listen(mListeners.get(subId), PhoneStateListener.LISTEN_SIGNAL_STRENGTHS);
+        mEventHub.subscribe(subId, TelephonyEventHub.EVENT_SIGNAL_STRENGTHS, this);
     }
 
     private void stopListening(int subId) {
-        TelephonyManager mgr = mBaseTelephonyManager.createForSubscriptionId(subId);
-        mgr.listen(mListeners.get(subId), PhoneStateListener.LISTEN_NONE);
+        mEventHub.unsubscribe(subId, TelephonyEventHub.EVENT_SIGNAL_STRENGTHS, this);
     }
 }
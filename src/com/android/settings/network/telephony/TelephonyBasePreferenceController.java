@@ -19,10 +19,10 @@ package com.android.settings.network.telephony;
 import android.content.Context;
 import android.content.res.Resources;
 import android.os.PersistableBundle;
-import android.telephony.CarrierConfigManager;
 import android.telephony.SubscriptionManager;
 
 import com.android.settings.core.BasePreferenceController;
+import com.android.settings.network.CarrierConfigCache;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -71,9 +71,7 @@ public abstract class TelephonyBasePreferenceController extends BasePreferenceCo
         if (!SubscriptionManager.isValidSubscriptionId(subId)) {
             return null;
         }
-        final CarrierConfigManager carrierConfigMgr =
-                mContext.getSystemService(CarrierConfigManager.class);
-        return carrierConfigMgr.getConfigForSubId(subId);
+        return CarrierConfigCache.getConfigForSubId(mContext, subId);
     }
 
     /**
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.telephony;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.telephony.PhoneStateListener;
+import android.telephony.ServiceState;
+import android.telephony.SignalStrength;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Pair;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares {@link PhoneStateListener} registrations between the controllers of a page.
+ *
+ * <p>Controllers subscribe to an event of a subscription, and the hub keeps a single registration
+ * with telephony for each (subscription, event) pair while it has subscribers. Subscribers joining
+ * an existing registration get the last known value replayed, since telephony only reports it on
+ * the initial registration. Signal strength updates are delivered at most once per
+ * {@link #SIGNAL_STRENGTH_INTERVAL}.
+ *
+ * <p>A hub is kept for each application context, that is one per process, so all controllers
+ * share registrations. Telephony only references a {@link PhoneStateListener} weakly, so the hub
+ * is held strongly to keep the registrations of its subscribers alive; users should still keep
+ * the hub they subscribed to in a field.
+ */
+@MainThread
+public class TelephonyEventHub {
+
+    /** Call state changes, as an {@link Integer} call state. */
+    public static final int EVENT_CALL_STATE = PhoneStateListener.LISTEN_CALL_STATE;
+    /** Service state changes, as a {@link ServiceState}. */
+    public static final int EVENT_SERVICE_STATE = PhoneStateListener.LISTEN_SERVICE_STATE;
+    /** Signal strength changes, as a {@link SignalStrength}. */
+    public static final int EVENT_SIGNAL_STRENGTHS = PhoneStateListener.LISTEN_SIGNAL_STRENGTHS;
+
+    @VisibleForTesting
+    static final long SIGNAL_STRENGTH_INTERVAL = 1000L;
+
+    private static final Map<Context, TelephonyEventHub> sHubs = new ArrayMap<>();
+
+    private final TelephonyManager mTelephonyManager;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Map<Pair<Integer, Integer>, Registration> mRegistrations = new ArrayMap<>();
+
+    /** Receives the events a listener subscribed to. */
+    public interface Listener {
+        /**
+         * Called on the main thread when {@code event} of {@code subId} changes.
+         *
+         * @param value the new value, of the type documented by the event constant.
+         */
+        void onTelephonyEvent(int subId, int event, @Nullable Object value);
+    }
+
+    /** Returns the hub shared by the users of the application context of {@code context}. */
+    public static TelephonyEventHub getInstance(Context context) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (sHubs) {
+            TelephonyEventHub hub = sHubs.get(appContext);
+            if (hub == null) {
+                hub = new TelephonyEventHub(appContext.getSystemService(TelephonyManager.class));
+                sHubs.put(appContext, hub);
+            }
+            return hub;
+        }
+    }
+
+    @VisibleForTesting
+    TelephonyEventHub(TelephonyManager telephonyManager) {
+        mTelephonyManager = telephonyManager;
+    }
+
+    /** Start delivering {@code event} of {@code subId} to {@code listener}. */
+    public void subscribe(int subId, int event, Listener listener) {
+        final Pair<Integer, Integer> key = Pair.create(subId, event);
+        Registration registration = mRegistrations.get(key);
+        if (registration == null) {
+            registration = new Registration(subId, event);
+            mRegistrations.put(key, registration);
+        }
+        if (!registration.mListeners.add(listener)) {
+            return;
+        }
+        if (registration.mListeners.size() == 1) {
+            registration.mSubTelephonyManager.listen(registration, event);
+        } else if (registration.mHasValue) {
+            final Registration current = registration;
+            mHandler.post(() -> {
+                if (current.mListeners.contains(listener)) {
+                    listener.onTelephonyEvent(subId, event, current.mValue);
+                }
+            });
+        }
+    }
+
+    /** Stop delivering {@code event} of {@code subId} to {@code listener}. */
+    public void unsubscribe(int subId, int event, Listener listener) {
+        final Registration registration = mRegistrations.get(Pair.create(subId, event));
+        if (registration == null || !registration.mListeners.remove(listener)
+                || !registration.mListeners.isEmpty()) {
+            return;
+        }
+        // Keep the registration, its listener is reused if someone subscribes again.
+        registration.mSubTelephonyManager.listen(registration, PhoneStateListener.LISTEN_NONE);
+        registration.mHasValue = false;
+        registration.mValue = null;
+        mHandler.removeCallbacks(registration.mDispatchRunnable);
+    }
+
+    @VisibleForTesting
+    int getListenerCount(int subId, int event) {
+        final Registration registration = mRegistrations.get(Pair.create(subId, event));
+        return registration == null ? 0 : registration.mListeners.size();
+    }
+
+    private class Registration extends PhoneStateListener {
+        final int mSubscriptionId;
+        final int mEvent;
+        final TelephonyManager mSubTelephonyManager;
+        final Set<Listener> mListeners = new ArraySet<>();
+        final Runnable mDispatchRunnable = this::dispatch;
+        boolean mHasValue;
+        Object mValue;
+        long mLastDispatchTime;
+
+        Registration(int subId, int event) {
+            super(Looper.getMainLooper());
+            mSubscriptionId = subId;
+            mEvent = event;
+            mSubTelephonyManager = SubscriptionManager.isValidSubscriptionId(subId)
+                    ? mTelephonyManager.createForSubscriptionId(subId)
+                    : mTelephonyManager;
+        }
+
+        @Override
+        public void onCallStateChanged(int state, String incomingNumber) {
+            onValueChanged(state);
+        }
+
+        @Override
+        public void onServiceStateChanged(ServiceState serviceState) {
+            onValueChanged(serviceState);
+        }
+
+        @Override
+        public void onSignalStrengthsChanged(SignalStrength signalStrength) {
+            onValueChanged(signalStrength);
+        }
+
+        private void onValueChanged(Object value) {
+            mHasValue = true;
+            mValue = value;
+            if (mEvent != EVENT_SIGNAL_STRENGTHS) {
+                dispatch();
+                return;
+            }
+            if (mHandler.hasCallbacks(mDispatchRunnable)) {
+                // The scheduled dispatch picks up this value.
+                return;
+            }
+            final long nextDispatchTime = mLastDispatchTime + SIGNAL_STRENGTH_INTERVAL;
+            if (mLastDispatchTime > 0 && SystemClock.uptimeMillis() < nextDispatchTime) {
+                mHandler.postAtTime(mDispatchRunnable, nextDispatchTime);
+                return;
+            }
+            dispatch();
+        }
+
+        private void dispatch() {
+            mLastDispatchTime = SystemClock.uptimeMillis();
+            // Listeners may unsubscribe while being notified.
+            for (Listener listener : new ArrayList<>(mListeners)) {
+                listener.onTelephonyEvent(mSubscriptionId, mEvent, mValue);
+            }
+        }
+    }
+}
@@ -18,10 +18,10 @@ package com.android.settings.network.telephony;
 
 import android.content.Context;
 import android.os.PersistableBundle;
-import android.telephony.CarrierConfigManager;
 import android.telephony.SubscriptionManager;
 
 import com.android.settings.core.TogglePreferenceController;
+import com.android.settings.network.CarrierConfigCache;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -75,8 +75,6 @@ public abstract class TelephonyTogglePreferenceController extends TogglePreferen
         if (!SubscriptionManager.isValidSubscriptionId(subId)) {
             return null;
         }
-        final CarrierConfigManager carrierConfigMgr =
-                mContext.getSystemService(CarrierConfigManager.class);
-        return carrierConfigMgr.getConfigForSubId(subId);
+        return CarrierConfigCache.getConfigForSubId(mContext, subId);
     }
 }
@@ -17,10 +17,8 @@
 package com.android.settings.network.telephony;
 
 import android.content.Context;
-import android.os.Looper;
 import android.os.PersistableBundle;
 import android.telephony.CarrierConfigManager;
-import android.telephony.PhoneStateListener;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.telephony.ims.ImsMmTelManager;
@@ -31,6 +29,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreference;
 
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.MobileDataEnabledListener;
 import com.android.settings.network.ims.VolteQueryImsState;
 import com.android.settings.network.ims.VtQueryImsState;
@@ -143,7 +142,8 @@ public class VideoCallingPreferenceController extends TelephonyTogglePreferenceC
             return false;
         }
 
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(subId);
+        final PersistableBundle carrierConfig = CarrierConfigCache.getConfigForSubId(mContext,
+                mCarrierConfigManager, subId);
         if (carrierConfig == null) {
             return false;
         }
@@ -163,34 +163,35 @@ public class VideoCallingPreferenceController extends TelephonyTogglePreferenceC
         updateState(mPreference);
     }
 
-    private class PhoneCallStateListener extends PhoneStateListener {
+    private class PhoneCallStateListener implements TelephonyEventHub.Listener {
 
-        PhoneCallStateListener() {
-            super(Looper.getMainLooper());
-        }
-
-        private TelephonyManager mTelephonyManager;
+        private TelephonyEventHub mEventHub;
+        private int mRegisteredSubId;
 
         @Override
-        public void onCallStateChanged(int state, String incomingNumber) {
-            mCallState = state;
+        public void onTelephonyEvent(int subId, int event, Object value) {
+            mCallState = (Integer) value;
             updateState(mPreference);
         }
 
         public void register(Context context, int subId) {
-            mTelephonyManager = context.getSystemService(TelephonyManager.class);
+            TelephonyManager telephonyManager = context.getSystemService(TelephonyManager.class);
             if (SubscriptionManager.isValidSubscriptionId(subId)) {
-                mTelephonyManager = mTelephonyManager.createForSubscriptionId(subId);
+                telephonyManager = telephonyManager.createForSubscriptionId(subId);
             }
             // assign current call state so that it helps to show correct preference state even
             // before first onCallStateChanged() by initial registration.
-            mCallState = mTelephonyManager.getCallState(subId);
-            mTelephonyManager.listen(this, PhoneStateListener.LISTEN_CALL_STATE);
+            mCallState = telephonyManager.getCallState(subId);
+            mEventHub = TelephonyEventHub.getInstance(context);
+            mRegisteredSubId = subId;
+            mEventHub.subscribe(subId, TelephonyEventHub.EVENT_CALL_STATE, this);
         }
 
         public void unregister() {
             mCallState = null;
-            mTelephonyManager.listen(this, PhoneStateListener.LISTEN_NONE);
+            if (mEventHub != null) {
+                mEventHub.unsubscribe(mRegisteredSubId, TelephonyEventHub.EVENT_CALL_STATE, this);
+            }
         }
     }
 
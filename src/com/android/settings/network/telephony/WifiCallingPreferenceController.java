@@ -20,13 +20,11 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
-import android.os.Looper;
 import android.os.PersistableBundle;
 import android.provider.Settings;
 import android.telecom.PhoneAccountHandle;
 import android.telecom.TelecomManager;
 import android.telephony.CarrierConfigManager;
-import android.telephony.PhoneStateListener;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.telephony.ims.ImsMmTelManager;
@@ -37,7 +35,9 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ims.WifiCallingQueryImsState;
+import com.android.settings.network.ims.WifiCallingStateResolver;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
@@ -61,11 +61,16 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
     PhoneAccountHandle mSimCallManager;
     private PhoneCallStateListener mPhoneStateListener;
     private Preference mPreference;
+    private final WifiCallingStateResolver mWfcStateResolver;
+    private final WifiCallingStateResolver.Listener mWfcStateListener =
+            subId -> updateState(mPreference);
+    private int mListeningSubId;
 
     public WifiCallingPreferenceController(Context context, String key) {
         super(context, key);
         mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
         mPhoneStateListener = new PhoneCallStateListener();
+        mWfcStateResolver = WifiCallingStateResolver.getInstance(context);
     }
 
     @Override
@@ -79,11 +84,14 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
     @Override
     public void onStart() {
         mPhoneStateListener.register(mContext, mSubId);
+        mListeningSubId = mSubId;
+        mWfcStateResolver.addListener(mListeningSubId, mWfcStateListener);
     }
 
     @Override
     public void onStop() {
         mPhoneStateListener.unregister();
+        mWfcStateResolver.removeListener(mListeningSubId, mWfcStateListener);
     }
 
     @Override
@@ -127,11 +135,12 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
 
     private CharSequence getResourceIdForWfcMode(int subId) {
         int resId = com.android.internal.R.string.wifi_calling_off_summary;
-        if (queryImsState(subId).isEnabledByUser()) {
+        if (mWfcStateResolver.isEnabledByUser(subId, queryImsState(subId))) {
             boolean useWfcHomeModeForRoaming = false;
             if (mCarrierConfigManager != null) {
                 final PersistableBundle carrierConfig =
-                        mCarrierConfigManager.getConfigForSubId(subId);
+                        CarrierConfigCache.getConfigForSubId(mContext, mCarrierConfigManager,
+                                subId);
                 if (carrierConfig != null) {
                     useWfcHomeModeForRoaming = carrierConfig.getBoolean(
                             CarrierConfigManager
@@ -141,8 +150,8 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
             final boolean isRoaming = getTelephonyManager(mContext, subId)
                     .isNetworkRoaming();
             final int wfcMode = (isRoaming && !useWfcHomeModeForRoaming)
-                    ? mImsMmTelManager.getVoWiFiRoamingModeSetting() :
-                    mImsMmTelManager.getVoWiFiModeSetting();
+                    ? mWfcStateResolver.getWfcRoamingMode(subId, mImsMmTelManager) :
+                    mWfcStateResolver.getWfcMode(subId, mImsMmTelManager);
             switch (wfcMode) {
                 case ImsMmTelManager.WIFI_MODE_WIFI_ONLY:
                     resId = com.android.internal.R.string.wfc_mode_wifi_only_summary;
@@ -194,31 +203,32 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
     }
 
 
-    private class PhoneCallStateListener extends PhoneStateListener {
+    private class PhoneCallStateListener implements TelephonyEventHub.Listener {
 
-        PhoneCallStateListener() {
-            super(Looper.getMainLooper());
-        }
-
-        private TelephonyManager mTelephonyManager;
+        private TelephonyEventHub mEventHub;
+        private int mRegisteredSubId;
 
         @Override
-        public void onCallStateChanged(int state, String incomingNumber) {
-            mCallState = state;
+        public void onTelephonyEvent(int subId, int event, Object value) {
+            mCallState = (Integer) value;
             updateState(mPreference);
         }
 
         public void register(Context context, int subId) {
-            mTelephonyManager = getTelephonyManager(context, subId);
+            final TelephonyManager telephonyManager = getTelephonyManager(context, subId);
             // assign current call state so that it helps to show correct preference state even
             // before first onCallStateChanged() by initial registration.
-            mCallState = mTelephonyManager.getCallState(subId);
-            mTelephonyManager.listen(this, PhoneStateListener.LISTEN_CALL_STATE);
+            mCallState = telephonyManager.getCallState(subId);
+            mEventHub = TelephonyEventHub.getInstance(context);
+            mRegisteredSubId = subId;
+            mEventHub.subscribe(subId, TelephonyEventHub.EVENT_CALL_STATE, this);
         }
 
         public void unregister() {
             mCallState = null;
-            mTelephonyManager.listen(this, PhoneStateListener.LISTEN_NONE);
+            if (mEventHub != null) {
+                mEventHub.unsubscribe(mRegisteredSubId, TelephonyEventHub.EVENT_CALL_STATE, this);
+            }
         }
     }
 
@@ -235,7 +245,8 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
 
             isWifiCallingEnabled = intent != null;
         } else {
-            isWifiCallingEnabled = queryImsState(subId).isReadyToWifiCalling();
+            isWifiCallingEnabled = mWfcStateResolver.isReadyToWifiCalling(subId,
+                    queryImsState(subId));
         }
 
         return isWifiCallingEnabled;
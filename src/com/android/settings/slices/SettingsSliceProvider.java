@@ -53,14 +53,18 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.SliceBroadcastRelay;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -75,9 +79,11 @@ import java.util.stream.Collectors;
  * return an stub {@link Slice} with the correct {@link Uri} immediately. In the background, the
  * data corresponding to the key in the {@link Uri} is read by {@link SlicesDatabaseAccessor}, and
  * the entire row is converted into a {@link SliceData}. Once complete, it is stored in
- * {@link #mSliceWeakDataCache}, and then an update sent via the Slice framework to the Slice.
+ * {@link #mSliceDataCache}, and then an update sent via the Slice framework to the Slice.
  * The {@link Slice} displayed by the Slice-presenter will re-query this Slice-provider and find
- * the {@link SliceData} cached to build the full {@link Slice}.
+ * the {@link SliceData} cached to build the full {@link Slice}. The cache keeps the
+ * {@link #MAX_CACHED_SLICE_DATA} most recently bound entries, so hosts rebinding the same Slices
+ * get the full {@link Slice} right away instead of a stub followed by an update.
  *
  * <p>When an action is taken on that {@link Slice}, we receive the action in
  * {@link SliceBroadcastReceiver}, and use the
@@ -135,16 +141,26 @@ public class SettingsSliceProvider extends SliceProvider {
 
     private static final KeyValueListParser KEY_VALUE_LIST_PARSER = new KeyValueListParser(',');
 
+    @VisibleForTesting
+    static final int MAX_CACHED_SLICE_DATA = 64;
+
     @VisibleForTesting
     SlicesDatabaseAccessor mSlicesDatabaseAccessor;
 
     @VisibleForTesting
-    Map<Uri, SliceData> mSliceWeakDataCache;
+    Map<Uri, SliceData> mSliceDataCache;
+
+    @VisibleForTesting
+    final AtomicInteger mCacheHitCount = new AtomicInteger();
+
+    @VisibleForTesting
+    final AtomicInteger mCacheMissCount = new AtomicInteger();
 
     @VisibleForTesting
     final Map<Uri, SliceBackgroundWorker> mPinnedWorkers = new ArrayMap<>();
 
     private Boolean mNightMode;
+    private Locale mCachedLocale;
 
     public SettingsSliceProvider() {
         super(READ_SEARCH_INDEXABLES);
@@ -153,7 +169,10 @@ public class SettingsSliceProvider extends SliceProvider {
     @Override
     public boolean onCreateSliceProvider() {
         mSlicesDatabaseAccessor = new SlicesDatabaseAccessor(getContext());
-        mSliceWeakDataCache = new WeakHashMap<>();
+        mSliceDataCache = createSliceDataCache();
+        // Slices pinned before the process was restarted are likely to be bound again soon, and
+        // their listeners went away with the previous process.
+        ThreadUtils.postOnBackgroundThread(() -> restorePinnedSlices(getPinnedSlices()));
         return true;
     }
 
@@ -187,6 +206,7 @@ public class SettingsSliceProvider extends SliceProvider {
     public void onSliceUnpinned(Uri sliceUri) {
         final Context context = getContext();
         if (!VolumeSliceHelper.unregisterUri(context, sliceUri)) {
+            SliceRelayHelper.unregisterUri(context, sliceUri);
             SliceBroadcastRelay.unregisterReceivers(context, sliceUri);
         }
         ThreadUtils.postOnMainThread(() -> stopBackgroundWorker(sliceUri));
@@ -201,6 +221,8 @@ public class SettingsSliceProvider extends SliceProvider {
                         .permitAll()
                         .build());
             }
+            SliceBackgroundWorker.onSliceBound(sliceUri);
+
             final Set<String> blockedKeys = getBlockedKeys();
             final String key = sliceUri.getLastPathSegment();
             if (blockedKeys.contains(key)) {
@@ -248,16 +270,24 @@ public class SettingsSliceProvider extends SliceProvider {
                         .createWifiCallingPreferenceSlice(sliceUri);
             }
 
-            final SliceData cachedSliceData = mSliceWeakDataCache.get(sliceUri);
+            // Cached titles and summaries are only valid for the locale they were indexed in.
+            final Locale locale = Locale.getDefault();
+            if (mCachedLocale == null) {
+                mCachedLocale = locale;
+            } else if (!mCachedLocale.equals(locale)) {
+                Log.d(TAG, "Locale changed, clear cached slice data");
+                mCachedLocale = locale;
+                mSliceDataCache.clear();
+            }
+
+            final SliceData cachedSliceData = mSliceDataCache.get(sliceUri);
             if (cachedSliceData == null) {
+                mCacheMissCount.incrementAndGet();
                 loadSliceInBackground(sliceUri);
                 return getSliceStub(sliceUri);
             }
 
-            // Remove the SliceData from the cache after it has been used to prevent a memory-leak.
-            if (!getPinnedSlices().contains(sliceUri)) {
-                mSliceWeakDataCache.remove(sliceUri);
-            }
+            mCacheHitCount.incrementAndGet();
             return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
         } finally {
             StrictMode.setThreadPolicy(oldPolicy);
@@ -370,6 +400,18 @@ public class SettingsSliceProvider extends SliceProvider {
         }
     }
 
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        final int hits = mCacheHitCount.get();
+        final int misses = mCacheMissCount.get();
+        final int total = hits + misses;
+        writer.println(TAG + ":");
+        writer.println("  cached slice data: " + mSliceDataCache.size());
+        writer.println("  cache hits: " + hits + ", misses: " + misses + ", hit rate: "
+                + (total == 0 ? 0 : hits * 100 / total) + "%");
+        SliceBackgroundWorker.dump(writer);
+    }
+
     @Override
     public void shutdown() {
         ThreadUtils.postOnMainThread(() -> {
@@ -405,7 +447,7 @@ public class SettingsSliceProvider extends SliceProvider {
 
         ThreadUtils.postOnMainThread(() -> startBackgroundWorker(controller, uri));
 
-        mSliceWeakDataCache.put(uri, sliceData);
+        mSliceDataCache.put(uri, sliceData);
         getContext().getContentResolver().notifyChange(uri, null /* content observer */);
 
         Log.d(TAG, "Built slice (" + uri + ") in: " +
@@ -417,14 +459,36 @@ public class SettingsSliceProvider extends SliceProvider {
         ThreadUtils.postOnBackgroundThread(() -> loadSlice(uri));
     }
 
+    /**
+     * Handles {@param uris} as if they were pinned again, so their broadcast receivers and
+     * background workers are registered and the first bind of each of them can return the full
+     * {@link Slice}.
+     */
+    @VisibleForTesting
+    void restorePinnedSlices(Collection<Uri> uris) {
+        for (Uri uri : uris) {
+            onSlicePinned(uri);
+        }
+    }
+
+    @VisibleForTesting
+    static Map<Uri, SliceData> createSliceDataCache() {
+        return Collections.synchronizedMap(
+                new LinkedHashMap<Uri, SliceData>(16, 0.75f, true /* accessOrder */) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Uri, SliceData> eldest) {
+                        return size() > MAX_CACHED_SLICE_DATA;
+                    }
+                });
+    }
+
     @VisibleForTesting
     /**
      * Registers an IntentFilter in SysUI to notify changes to {@param sliceUri} when broadcasts to
      * {@param intentFilter} happen.
      */
     void registerIntentToUri(IntentFilter intentFilter, Uri sliceUri) {
-        SliceBroadcastRelay.registerReceiver(getContext(), sliceUri, SliceRelayReceiver.class,
-                intentFilter);
+        SliceRelayHelper.registerIntentToUri(getContext(), intentFilter, sliceUri);
     }
 
     @VisibleForTesting
@@ -29,11 +29,13 @@ import android.os.SystemClock;
 import android.util.ArrayMap;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -46,7 +48,9 @@ import java.util.Map;
  * SettingsSliceProvider#shutdown()}.
  *
  * {@link SliceBackgroundWorker} caches the results, uses the cache to compare if there is any data
- * changed, and then notifies the Slice {@link Uri} to update.
+ * changed, and then notifies the Slice {@link Uri} to update. Notifications are throttled per
+ * {@link Uri}: the interval grows when the host is slow to rebind the Slice, and a notification is
+ * dropped if the results went back to what was last notified before it was sent.
  *
  * It also stores all instances of all workers to ensure each worker is a Singleton.
  */
@@ -54,14 +58,21 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
     private static final String TAG = "SliceBackgroundWorker";
 
-    private static final long SLICE_UPDATE_THROTTLE_INTERVAL = 300L;
+    @VisibleForTesting
+    static final long SLICE_UPDATE_THROTTLE_INTERVAL = 300L;
+    @VisibleForTesting
+    static final long SLICE_UPDATE_MAX_THROTTLE_INTERVAL = 3000L;
+    // Number of updates in a row the host may leave unbound before updates stop waiting for it.
+    @VisibleForTesting
+    static final int MAX_UNBOUND_UPDATES = 2;
 
+    // Accessed from the main thread and from binder threads, guarded by itself.
     private static final Map<Uri, SliceBackgroundWorker> LIVE_WORKERS = new ArrayMap<>();
 
     private final Context mContext;
     private final Uri mUri;
 
-    private List<E> mCachedResults;
+    private volatile List<E> mCachedResults;
 
     protected SliceBackgroundWorker(Context context, Uri uri) {
         mContext = context;
@@ -83,7 +94,9 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
     @Nullable
     @SuppressWarnings("TypeParameterUnusedInFormals")
     public static <T extends SliceBackgroundWorker> T getInstance(Uri uri) {
-        return (T) LIVE_WORKERS.get(uri);
+        synchronized (LIVE_WORKERS) {
+            return (T) LIVE_WORKERS.get(uri);
+        }
     }
 
     /**
@@ -91,14 +104,16 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
      * CustomSliceable}
      */
     static SliceBackgroundWorker getInstance(Context context, Sliceable sliceable, Uri uri) {
-        SliceBackgroundWorker worker = getInstance(uri);
-        if (worker == null) {
-            final Class<? extends SliceBackgroundWorker> workerClass =
-                    sliceable.getBackgroundWorkerClass();
-            worker = createInstance(context.getApplicationContext(), uri, workerClass);
-            LIVE_WORKERS.put(uri, worker);
+        synchronized (LIVE_WORKERS) {
+            SliceBackgroundWorker worker = LIVE_WORKERS.get(uri);
+            if (worker == null) {
+                final Class<? extends SliceBackgroundWorker> workerClass =
+                        sliceable.getBackgroundWorkerClass();
+                worker = createInstance(context.getApplicationContext(), uri, workerClass);
+                LIVE_WORKERS.put(uri, worker);
+            }
+            return worker;
         }
-        return worker;
     }
 
     private static SliceBackgroundWorker createInstance(Context context, Uri uri,
@@ -114,14 +129,41 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
     }
 
     static void shutdown() {
-        for (SliceBackgroundWorker worker : LIVE_WORKERS.values()) {
+        final List<SliceBackgroundWorker> workers;
+        synchronized (LIVE_WORKERS) {
+            workers = new ArrayList<>(LIVE_WORKERS.values());
+            LIVE_WORKERS.clear();
+        }
+        for (SliceBackgroundWorker worker : workers) {
             try {
                 worker.close();
             } catch (IOException e) {
                 Log.w(TAG, "Shutting down worker failed", e);
             }
         }
-        LIVE_WORKERS.clear();
+    }
+
+    /**
+     * Called when the Slice with {@link Uri} is bound, so the update interval of its worker can
+     * follow how fast the host consumes updates.
+     */
+    static void onSliceBound(Uri uri) {
+        final SliceBackgroundWorker worker = getInstance(uri);
+        if (worker != null) {
+            NotifySliceChangeHandler.getInstance().onSliceBound(worker);
+        }
+    }
+
+    static void dump(PrintWriter writer) {
+        final List<SliceBackgroundWorker> workers;
+        synchronized (LIVE_WORKERS) {
+            workers = new ArrayList<>(LIVE_WORKERS.values());
+        }
+        writer.println(TAG + ":");
+        for (SliceBackgroundWorker worker : workers) {
+            writer.println("  " + worker.getClass().getSimpleName() + " " + worker.getUri());
+            NotifySliceChangeHandler.getInstance().dump(writer, worker.getUri());
+        }
     }
 
     /**
@@ -161,7 +203,7 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
         if (needNotify) {
             mCachedResults = results;
-            notifySliceChange();
+            notifyResultsChange();
         }
     }
 
@@ -173,7 +215,23 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
      * Notify that data was updated and attempt to sync changes to the Slice.
      */
     protected final void notifySliceChange() {
-        NotifySliceChangeHandler.getInstance().updateSlice(this);
+        NotifySliceChangeHandler.getInstance().updateSlice(this, true /* force */);
+    }
+
+    /**
+     * Like {@link #notifySliceChange()}, but the update is dropped if the results are back to what
+     * was last notified by the time it is sent.
+     */
+    void notifyResultsChange() {
+        NotifySliceChangeHandler.getInstance().updateSlice(this, false /* force */);
+    }
+
+    private boolean isSameAsResults(List<E> results) {
+        final List<E> cachedResults = mCachedResults;
+        if (cachedResults == null || results == null) {
+            return cachedResults == results;
+        }
+        return areListsTheSame(cachedResults, results);
     }
 
     void pin() {
@@ -191,10 +249,9 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
         private static NotifySliceChangeHandler sHandler;
 
-        private final Map<Uri, Long> mLastUpdateTimeLookup = Collections.synchronizedMap(
-                new ArrayMap<>());
+        private final Map<Uri, UpdateState> mUpdateStates = new ArrayMap<>();
 
-        private static NotifySliceChangeHandler getInstance() {
+        private static synchronized NotifySliceChangeHandler getInstance() {
             if (sHandler == null) {
                 final HandlerThread workerThread = new HandlerThread("NotifySliceChangeHandler",
                         Process.THREAD_PRIORITY_BACKGROUND);
@@ -216,33 +273,151 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
             final SliceBackgroundWorker worker = (SliceBackgroundWorker) msg.obj;
             final Uri uri = worker.getUri();
-            final Context context = worker.getContext();
-            mLastUpdateTimeLookup.put(uri, SystemClock.uptimeMillis());
-            context.getContentResolver().notifyChange(uri, null);
+            synchronized (mUpdateStates) {
+                final UpdateState state = getUpdateState(uri);
+                final boolean force = state.mForceNotify;
+                state.mForceNotify = false;
+                if (!force && state.mLastUpdateTime != 0L
+                        && worker.isSameAsResults(state.mNotifiedResults)) {
+                    // The results changed back to what the host already has.
+                    state.mSkippedCount++;
+                    return;
+                }
+                final List results = worker.mCachedResults;
+                state.mNotifiedResults = results == null ? null : new ArrayList<>(results);
+                state.onUpdateSent(SystemClock.uptimeMillis());
+            }
+            worker.getContext().getContentResolver().notifyChange(uri, null);
         }
 
-        private void updateSlice(SliceBackgroundWorker worker) {
-            if (hasMessages(MSG_UPDATE_SLICE, worker)) {
-                return;
+        private void updateSlice(SliceBackgroundWorker worker, boolean force) {
+            synchronized (mUpdateStates) {
+                final UpdateState state = getUpdateState(worker.getUri());
+                state.mRequestedCount++;
+                state.mForceNotify |= force;
+            }
+            if (!hasMessages(MSG_UPDATE_SLICE, worker)) {
+                scheduleUpdate(worker);
+            }
+        }
+
+        private void scheduleUpdate(SliceBackgroundWorker worker) {
+            final long now = SystemClock.uptimeMillis();
+            final long updateTime;
+            synchronized (mUpdateStates) {
+                updateTime = getUpdateState(worker.getUri()).getUpdateTime(now);
             }
 
             final Message message = obtainMessage(MSG_UPDATE_SLICE, worker);
-            final long lastUpdateTime = mLastUpdateTimeLookup.getOrDefault(worker.getUri(), 0L);
-            if (lastUpdateTime == 0L) {
-                // Postpone the first update triggering by onSlicePinned() to avoid being too close
-                // to the first Slice bind.
-                sendMessageDelayed(message, SLICE_UPDATE_THROTTLE_INTERVAL);
-            } else if (SystemClock.uptimeMillis() - lastUpdateTime
-                    > SLICE_UPDATE_THROTTLE_INTERVAL) {
+            if (updateTime <= now) {
                 sendMessage(message);
             } else {
-                sendMessageAtTime(message, lastUpdateTime + SLICE_UPDATE_THROTTLE_INTERVAL);
+                sendMessageAtTime(message, updateTime);
+            }
+        }
+
+        private void onSliceBound(SliceBackgroundWorker worker) {
+            synchronized (mUpdateStates) {
+                final UpdateState state = mUpdateStates.get(worker.getUri());
+                if (state == null || !state.onBound(SystemClock.uptimeMillis())) {
+                    return;
+                }
+            }
+            // An update held back for this bind can be sent on the regular interval now.
+            if (hasMessages(MSG_UPDATE_SLICE, worker)) {
+                removeMessages(MSG_UPDATE_SLICE, worker);
+                scheduleUpdate(worker);
             }
         }
 
         private void cancelSliceUpdate(SliceBackgroundWorker worker) {
             removeMessages(MSG_UPDATE_SLICE, worker);
-            mLastUpdateTimeLookup.remove(worker.getUri());
+            synchronized (mUpdateStates) {
+                mUpdateStates.remove(worker.getUri());
+            }
+        }
+
+        private void dump(PrintWriter writer, Uri uri) {
+            synchronized (mUpdateStates) {
+                final UpdateState state = mUpdateStates.get(uri);
+                if (state == null) {
+                    return;
+                }
+                final long elapsed = SystemClock.uptimeMillis() - state.mCreatedTime;
+                writer.println("    requested: " + state.mRequestedCount
+                        + ", notified: " + state.mNotifiedCount
+                        + ", skipped: " + state.mSkippedCount
+                        + ", notified/min: "
+                        + (elapsed == 0 ? 0 : state.mNotifiedCount * 60000L / elapsed)
+                        + ", interval: " + state.mInterval + "ms");
+            }
+        }
+
+        private UpdateState getUpdateState(Uri uri) {
+            UpdateState state = mUpdateStates.get(uri);
+            if (state == null) {
+                state = new UpdateState();
+                mUpdateStates.put(uri, state);
+            }
+            return state;
         }
-    };
+    }
+
+    /** Update rate state of one Slice {@link Uri}, guarded by the handler's state map. */
+    @VisibleForTesting
+    static class UpdateState {
+        final long mCreatedTime = SystemClock.uptimeMillis();
+        long mInterval = SLICE_UPDATE_THROTTLE_INTERVAL;
+        long mLastUpdateTime;
+        boolean mAwaitingBind;
+        // Updates in a row that were sent without the host rebinding the Slice in between.
+        int mUnboundCount;
+        boolean mForceNotify;
+        List mNotifiedResults;
+        int mRequestedCount;
+        int mNotifiedCount;
+        int mSkippedCount;
+
+        /** Returns the time at which the next update should be sent. */
+        long getUpdateTime(long now) {
+            if (mLastUpdateTime == 0L) {
+                // Postpone the first update triggering by onSlicePinned() to avoid being too
+                // close to the first Slice bind.
+                return now + mInterval;
+            }
+            if (mAwaitingBind) {
+                // The host hasn't picked up the previous update yet, wait for it to rebind.
+                return mLastUpdateTime + SLICE_UPDATE_MAX_THROTTLE_INTERVAL;
+            }
+            return mLastUpdateTime + mInterval;
+        }
+
+        void onUpdateSent(long now) {
+            if (mAwaitingBind) {
+                mUnboundCount++;
+            }
+            // Stop holding updates back for a host that doesn't rebind, e.g. because it doesn't
+            // show the Slice right now, until it binds the Slice again.
+            mAwaitingBind = mUnboundCount < MAX_UNBOUND_UPDATES;
+            mLastUpdateTime = now;
+            mNotifiedCount++;
+        }
+
+        /**
+         * Called when the host binds the Slice, returns {@code true} if the interval changed and
+         * the pending update should be rescheduled.
+         */
+        boolean onBound(long now) {
+            mUnboundCount = 0;
+            if (!mAwaitingBind) {
+                return false;
+            }
+            mAwaitingBind = false;
+            // Move the interval halfway towards the time the host took to rebind.
+            final long bindDelay = now - mLastUpdateTime;
+            mInterval = Math.max(SLICE_UPDATE_THROTTLE_INTERVAL,
+                    Math.min(SLICE_UPDATE_MAX_THROTTLE_INTERVAL, (mInterval + bindDelay) / 2));
+            return true;
+        }
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.content.ContentProvider;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.SliceBroadcastRelay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shares broadcast relay registrations between slices listening to the same broadcasts.
+ *
+ * <p>Slices whose {@link IntentFilter} only matches on actions are grouped by those actions, and
+ * each group is registered once with {@link SliceBroadcastRelay} under its own relay Uri. When a
+ * broadcast for a group is received, every slice of the group is notified, at most once per
+ * {@link #NOTIFY_THROTTLE_INTERVAL} for each slice. Filters matching on anything else are
+ * registered for their slice alone, as before.
+ *
+ * <p>Groups only live in memory, while their relays outlive the process. Relay Uris are therefore
+ * unique to each process, and relays without a group, left over by a previous process, are
+ * unregistered when they deliver a broadcast.
+ */
+public class SliceRelayHelper {
+
+    private static final String TAG = "SliceRelayHelper";
+    private static final String PATH_RELAY = "relay";
+
+    @VisibleForTesting
+    static final long NOTIFY_THROTTLE_INTERVAL = 300L;
+
+    private static final Object sLock = new Object();
+    // Relay uri of each group, keyed by the actions of its filter.
+    @VisibleForTesting
+    static final ArrayMap<String, Uri> sRelayUris = new ArrayMap<>();
+    // Slices of each group, keyed by relay uri.
+    @VisibleForTesting
+    static final Map<Uri, Set<Uri>> sRelayMembers = new ArrayMap<>();
+    private static final Map<Uri, Long> sLastNotifyTimes = new ArrayMap<>();
+    private static final Set<Uri> sPendingNotifications = new ArraySet<>();
+    private static Handler sHandler;
+    // Distinguishes the relays of this process from the ones of previous processes.
+    private static String sRelaySession = UUID.randomUUID().toString();
+    private static int sNextRelayId;
+
+    static void registerIntentToUri(Context context, IntentFilter intentFilter, Uri sliceUri) {
+        final String key = getFilterKey(intentFilter);
+        if (key == null) {
+            SliceBroadcastRelay.registerReceiver(context, sliceUri, SliceRelayReceiver.class,
+                    intentFilter);
+            return;
+        }
+
+        synchronized (sLock) {
+            Uri relayUri = sRelayUris.get(key);
+            if (relayUri == null) {
+                relayUri = new Uri.Builder()
+                        .scheme(ContentResolver.SCHEME_CONTENT)
+                        .authority(SettingsSliceProvider.SLICE_AUTHORITY)
+                        .appendPath(PATH_RELAY)
+                        .appendPath(sRelaySession)
+                        .appendPath(String.valueOf(sNextRelayId++))
+                        .build();
+                Log.d(TAG, "Registering broadcast relay " + relayUri + " for " + key);
+                SliceBroadcastRelay.registerReceiver(context, relayUri, SliceRelayReceiver.class,
+                        intentFilter);
+                sRelayUris.put(key, relayUri);
+                sRelayMembers.put(relayUri, new ArraySet<>());
+            }
+            sRelayMembers.get(relayUri).add(sliceUri);
+        }
+    }
+
+    static void unregisterUri(Context context, Uri sliceUri) {
+        synchronized (sLock) {
+            for (int i = sRelayUris.size() - 1; i >= 0; i--) {
+                final Uri relayUri = sRelayUris.valueAt(i);
+                final Set<Uri> members = sRelayMembers.get(relayUri);
+                if (!members.remove(sliceUri) || !members.isEmpty()) {
+                    continue;
+                }
+                Log.d(TAG, "Unregistering broadcast relay " + relayUri);
+                SliceBroadcastRelay.unregisterReceivers(context, relayUri);
+                sRelayMembers.remove(relayUri);
+                sRelayUris.removeAt(i);
+            }
+            sLastNotifyTimes.remove(sliceUri);
+        }
+    }
+
+    /**
+     * Notify the slices registered under {@code uri} if it is a relay uri, or unregister the relay
+     * if it has no slices anymore.
+     *
+     * @return {@code false} if {@code uri} is not a relay uri.
+     */
+    static boolean onReceive(Context context, Uri uri) {
+        final Uri relayUri = ContentProvider.getUriWithoutUserId(uri);
+        final List<String> segments = relayUri.getPathSegments();
+        if (!TextUtils.equals(relayUri.getAuthority(), SettingsSliceProvider.SLICE_AUTHORITY)
+                || segments.isEmpty() || !PATH_RELAY.equals(segments.get(0))) {
+            return false;
+        }
+
+        final List<Uri> members;
+        synchronized (sLock) {
+            final Set<Uri> registered = sRelayMembers.get(relayUri);
+            members = registered == null ? null : new ArrayList<>(registered);
+        }
+        if (members == null) {
+            Log.d(TAG, "Unregistering stale broadcast relay " + relayUri);
+            SliceBroadcastRelay.unregisterReceivers(context, relayUri);
+            return true;
+        }
+        for (Uri sliceUri : members) {
+            notifyChange(context, sliceUri);
+        }
+        return true;
+    }
+
+    private static void notifyChange(Context context, Uri sliceUri) {
+        synchronized (sLock) {
+            if (sPendingNotifications.contains(sliceUri)) {
+                // A notification is already scheduled and will pick up this change.
+                return;
+            }
+            final long now = SystemClock.uptimeMillis();
+            final Long lastNotifyTime = sLastNotifyTimes.get(sliceUri);
+            if (lastNotifyTime != null && now - lastNotifyTime < NOTIFY_THROTTLE_INTERVAL) {
+                sPendingNotifications.add(sliceUri);
+                getHandler().postAtTime(() -> {
+                    synchronized (sLock) {
+                        sPendingNotifications.remove(sliceUri);
+                        sLastNotifyTimes.put(sliceUri, SystemClock.uptimeMillis());
+                    }
+                    context.getContentResolver().notifyChange(sliceUri, null /* observer */);
+                }, lastNotifyTime + NOTIFY_THROTTLE_INTERVAL);
+                return;
+            }
+            sLastNotifyTimes.put(sliceUri, now);
+        }
+        context.getContentResolver().notifyChange(sliceUri, null /* observer */);
+    }
+
+    private static Handler getHandler() {
+        if (sHandler == null) {
+            sHandler = new Handler(Looper.getMainLooper());
+        }
+        return sHandler;
+    }
+
+    /**
+     * Returns the sorted actions of {@code filter}, or {@code null} if it also matches on
+     * categories or data and can't be shared.
+     */
+    @VisibleForTesting
+    static String getFilterKey(IntentFilter filter) {
+        if (filter.countActions() == 0 || filter.countCategories() > 0
+                || filter.countDataSchemes() > 0 || filter.countDataTypes() > 0) {
+            return null;
+        }
+        final List<String> actions = new ArrayList<>(filter.countActions());
+        for (int i = 0; i < filter.countActions(); i++) {
+            actions.add(filter.getAction(i));
+        }
+        Collections.sort(actions);
+        return TextUtils.join(",", actions);
+    }
+
+    /** Drops all groups, like a restart of the process does. */
+    @VisibleForTesting
+    static void reset() {
+        synchronized (sLock) {
+            sRelaySession = UUID.randomUUID().toString();
+            sNextRelayId = 0;
+            sRelayUris.clear();
+            sRelayMembers.clear();
+            sLastNotifyTimes.clear();
+            sPendingNotifications.clear();
+            if (sHandler != null) {
+                sHandler.removeCallbacksAndMessages(null);
+            }
+        }
+    }
+}
@@ -34,7 +34,9 @@ public class SliceRelayReceiver extends BroadcastReceiver {
         final String uriString = intent.getStringExtra(SliceBroadcastRelay.EXTRA_URI);
         if (!TextUtils.isEmpty(uriString)) {
             final Uri uri = Uri.parse(uriString);
-            context.getContentResolver().notifyChange(uri, null /* observer */);
+            if (!SliceRelayHelper.onReceive(context, uri)) {
+                context.getContentResolver().notifyChange(uri, null /* observer */);
+            }
         }
     }
 }
\ No newline at end of file
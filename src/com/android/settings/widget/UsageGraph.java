@@ -53,7 +53,12 @@ public class UsageGraph extends View {
     private final Drawable mTintedDivider;
     private final int mDividerSize;
 
-    private final Path mPath = new Path();
+    // Drawing paths built from the local paths. They are only rebuilt when the local paths
+    // change, so redraws that don't touch the data (e.g. divider or label updates) are cheap.
+    private final Path mLinePath = new Path();
+    private final Path mFillPath = new Path();
+    private final Path mProjectedPath = new Path();
+    private boolean mDrawPathsDirty = true;
 
     // Paths in coordinates they are passed in.
     private final SparseIntArray mPaths = new SparseIntArray();
@@ -111,10 +116,14 @@ public class UsageGraph extends View {
         mLocalPaths.clear();
         mProjectedPaths.clear();
         mLocalProjectedPaths.clear();
+        mDrawPathsDirty = true;
     }
 
     void setMax(int maxX, int maxY) {
         final long startTime = System.currentTimeMillis();
+        if (mMaxX == maxX && mMaxY == maxY) {
+            return;
+        }
         mMaxX = maxX;
         mMaxY = maxY;
         calculateLocalPaths();
@@ -163,8 +172,12 @@ public class UsageGraph extends View {
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         final long startTime = System.currentTimeMillis();
         super.onSizeChanged(w, h, oldw, oldh);
-        updateGradient();
-        calculateLocalPaths();
+        if (h != oldh) {
+            updateGradient();
+        }
+        if (w != oldw || h != oldh) {
+            calculateLocalPaths();
+        }
         BatteryUtils.logRuntime(LOG_TAG, "onSizeChanged", startTime);
     }
 
@@ -180,6 +193,7 @@ public class UsageGraph extends View {
             return;
         }
         localPaths.clear();
+        mDrawPathsDirty = true;
         // Store the local coordinates of the most recent point.
         int lx = 0;
         int ly = PATH_DELIM;
@@ -256,36 +270,47 @@ public class UsageGraph extends View {
             return;
         }
 
+        if (mDrawPathsDirty) {
+            buildLinePath(mLocalProjectedPaths, mProjectedPath);
+            buildFilledPath(mLocalPaths, mFillPath);
+            buildLinePath(mLocalPaths, mLinePath);
+            mDrawPathsDirty = false;
+        }
+
         canvas.save();
         if (getLayoutDirection() == LAYOUT_DIRECTION_RTL) {
             // Flip the canvas along the y-axis of the center of itself before drawing paths.
             canvas.scale(-1, 1, canvas.getWidth() * 0.5f, 0);
         }
-        drawLinePath(canvas, mLocalProjectedPaths, mDottedPaint);
-        drawFilledPath(canvas, mLocalPaths, mFillPaint);
-        drawLinePath(canvas, mLocalPaths, mLinePaint);
+        if (mLocalProjectedPaths.size() != 0) {
+            canvas.drawPath(mProjectedPath, mDottedPaint);
+        }
+        if (mLocalPaths.size() != 0) {
+            canvas.drawPath(mFillPath, mFillPaint);
+            canvas.drawPath(mLinePath, mLinePaint);
+        }
         canvas.restore();
         BatteryUtils.logRuntime(LOG_TAG, "onDraw", startTime);
     }
 
-    private void drawLinePath(Canvas canvas, SparseIntArray localPaths, Paint paint) {
+    @VisibleForTesting
+    void buildLinePath(SparseIntArray localPaths, Path path) {
+        path.reset();
         if (localPaths.size() == 0) {
             return;
         }
-        mPath.reset();
-        mPath.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
+        path.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
         for (int i = 1; i < localPaths.size(); i++) {
             int x = localPaths.keyAt(i);
             int y = localPaths.valueAt(i);
             if (y == PATH_DELIM) {
                 if (++i < localPaths.size()) {
-                    mPath.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
+                    path.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
                 }
             } else {
-                mPath.lineTo(x, y);
+                path.lineTo(x, y);
             }
         }
-        canvas.drawPath(mPath, paint);
     }
 
     @VisibleForTesting
@@ -293,25 +318,32 @@ public class UsageGraph extends View {
         if (localPaths.size() == 0) {
             return;
         }
-        mPath.reset();
+        buildFilledPath(localPaths, mFillPath);
+        canvas.drawPath(mFillPath, paint);
+    }
+
+    private void buildFilledPath(SparseIntArray localPaths, Path path) {
+        path.reset();
+        if (localPaths.size() == 0) {
+            return;
+        }
         float lastStartX = localPaths.keyAt(0);
-        mPath.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
+        path.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
         for (int i = 1; i < localPaths.size(); i++) {
             int x = localPaths.keyAt(i);
             int y = localPaths.valueAt(i);
             if (y == PATH_DELIM) {
-                mPath.lineTo(localPaths.keyAt(i - 1), getHeight());
-                mPath.lineTo(lastStartX, getHeight());
-                mPath.close();
+                path.lineTo(localPaths.keyAt(i - 1), getHeight());
+                path.lineTo(lastStartX, getHeight());
+                path.close();
                 if (++i < localPaths.size()) {
                     lastStartX = localPaths.keyAt(i);
-                    mPath.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
+                    path.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
                 }
             } else {
-                mPath.lineTo(x, y);
+                path.lineTo(x, y);
             }
         }
-        canvas.drawPath(mPath, paint);
     }
 
     private void drawDivider(int y, Canvas canvas, int tintColor) {
@@ -23,6 +23,7 @@ import android.telephony.CarrierConfigManager;
 import android.util.Log;
 
 import com.android.internal.annotations.VisibleForTesting;
+import com.android.settings.network.CarrierConfigCache;
 
 /**
  * Interface to control disclaimer item from {@link WifiCallingDisclaimerFragment}.
@@ -70,7 +71,8 @@ public abstract class DisclaimerItem {
      * particular phone id, or default values.
      */
     protected PersistableBundle getCarrierConfig() {
-        PersistableBundle config = mCarrierConfigManager.getConfigForSubId(mSubId);
+        PersistableBundle config =
+                CarrierConfigCache.getConfigForSubId(mContext, mCarrierConfigManager, mSubId);
         if (config != null) {
             return config;
         }
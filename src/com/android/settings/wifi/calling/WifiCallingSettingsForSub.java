@@ -54,7 +54,9 @@ import com.android.settings.SettingsActivity;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.Utils;
 import com.android.settings.core.SubSettingLauncher;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ims.WifiCallingQueryImsState;
+import com.android.settings.network.ims.WifiCallingStateResolver;
 import com.android.settings.widget.SwitchBar;
 
 /**
@@ -127,8 +129,8 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
             final CarrierConfigManager configManager = (CarrierConfigManager)
                     activity.getSystemService(Context.CARRIER_CONFIG_SERVICE);
             if (configManager != null) {
-                PersistableBundle b =
-                        configManager.getConfigForSubId(WifiCallingSettingsForSub.this.mSubId);
+                PersistableBundle b = CarrierConfigCache.getConfigForSubId(activity,
+                        configManager, WifiCallingSettingsForSub.this.mSubId);
                 if (b != null) {
                     isWfcModeEditable = b.getBoolean(
                             CarrierConfigManager.KEY_EDITABLE_WFC_MODE_BOOL);
@@ -345,7 +347,8 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
         boolean isWifiOnlySupported = true;
 
         if (configManager != null) {
-            final PersistableBundle b = configManager.getConfigForSubId(mSubId);
+            final PersistableBundle b = CarrierConfigCache.getConfigForSubId(getContext(),
+                    configManager, mSubId);
             if (b != null) {
                 mEditableWfcMode = b.getBoolean(
                         CarrierConfigManager.KEY_EDITABLE_WFC_MODE_BOOL);
@@ -494,7 +497,8 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
                 getActivity().getSystemService(CarrierConfigManager.class);
         if (configManager == null) return null;
 
-        final PersistableBundle bundle = configManager.getConfigForSubId(mSubId);
+        final PersistableBundle bundle = CarrierConfigCache.getConfigForSubId(getActivity(),
+                configManager, mSubId);
         if (bundle == null) return null;
 
         final String carrierApp = bundle.getString(
@@ -517,6 +521,7 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
     private void updateWfcMode(boolean wfcEnabled) {
         Log.i(TAG, "updateWfcMode(" + wfcEnabled + ")");
         mImsMmTelManager.setVoWiFiSettingEnabled(wfcEnabled);
+        invalidateWfcState();
 
         final int wfcMode = mImsMmTelManager.getVoWiFiModeSetting();
         final int wfcRoamingMode = mImsMmTelManager.getVoWiFiRoamingModeSetting();
@@ -609,6 +614,7 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
                     mImsMmTelManager.setVoWiFiRoamingModeSetting(buttonMode);
                     // mButtonWfcRoamingMode.setSummary is not needed; summary is selected value
                 }
+                invalidateWfcState();
             }
         } else if (preference == mButtonWfcRoamingMode) {
             mButtonWfcRoamingMode.setValue((String) newValue);
@@ -616,6 +622,7 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
             final int currentMode = mImsMmTelManager.getVoWiFiRoamingModeSetting();
             if (buttonMode != currentMode) {
                 mImsMmTelManager.setVoWiFiRoamingModeSetting(buttonMode);
+                invalidateWfcState();
                 // mButtonWfcRoamingMode.setSummary is not needed; summary is just selected value.
                 mMetricsFeatureProvider.action(getActivity(), getMetricsCategory(), buttonMode);
             }
@@ -623,6 +630,14 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
         return true;
     }
 
+    // Let the Wi-Fi calling preference and slices read the settings changed by this page.
+    private void invalidateWfcState() {
+        final Context context = getContext();
+        if (context != null) {
+            WifiCallingStateResolver.getInstance(context).invalidate(mSubId);
+        }
+    }
+
     private CharSequence getWfcModeSummary(int wfcMode) {
         int resId = com.android.internal.R.string.wifi_calling_off_summary;
         if (queryImsState(mSubId).isEnabledByUser()) {
@@ -45,17 +45,11 @@ import androidx.slice.builders.SliceAction;
 
 import com.android.settings.R;
 import com.android.settings.Utils;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ims.WifiCallingQueryImsState;
+import com.android.settings.network.ims.WifiCallingStateResolver;
 import com.android.settings.slices.SliceBroadcastReceiver;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.FutureTask;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
 /**
  * Helper class to control slices for wifi calling settings.
  */
@@ -110,10 +104,12 @@ public class WifiCallingSliceHelper {
     private static final int TIMEOUT_MILLIS = 2000;
 
     private final Context mContext;
+    private final WifiCallingStateResolver mWfcStateResolver;
 
     @VisibleForTesting
     public WifiCallingSliceHelper(Context context) {
         mContext = context;
+        mWfcStateResolver = WifiCallingStateResolver.getInstance(context);
     }
 
     /**
@@ -136,7 +132,7 @@ public class WifiCallingSliceHelper {
             return null;
         }
 
-        if (!queryImsState(subId).isWifiCallingProvisioned()) {
+        if (!mWfcStateResolver.isWifiCallingProvisioned(subId, queryImsState(subId))) {
             Log.d(TAG, "Wifi calling is either not provisioned or not enabled by Platform");
             return null;
         }
@@ -161,8 +157,10 @@ public class WifiCallingSliceHelper {
     }
 
     private boolean isWifiCallingEnabled() {
-        final WifiCallingQueryImsState queryState = queryImsState(getDefaultVoiceSubId());
-        return queryState.isEnabledByUser() && queryState.isAllowUserControl();
+        final int subId = getDefaultVoiceSubId();
+        final WifiCallingQueryImsState queryState = queryImsState(subId);
+        return mWfcStateResolver.isEnabledByUser(subId, queryState)
+                && mWfcStateResolver.isAllowUserControl(subId, queryState);
     }
 
     /**
@@ -222,21 +220,12 @@ public class WifiCallingSliceHelper {
             return null;
         }
 
-        if (!queryImsState(subId).isWifiCallingProvisioned()) {
+        if (!mWfcStateResolver.isWifiCallingProvisioned(subId, queryImsState(subId))) {
             Log.d(TAG, "Wifi calling is either not provisioned or not enabled by platform");
             return null;
         }
 
-        boolean isWifiCallingEnabled = false;
-        int wfcMode = -1;
-        try {
-            final ImsMmTelManager imsMmTelManager = getImsMmTelManager(subId);
-            isWifiCallingEnabled = isWifiCallingEnabled();
-            wfcMode = getWfcMode(imsMmTelManager);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            Log.e(TAG, "Unable to get wifi calling preferred mode", e);
-            return null;
-        }
+        final boolean isWifiCallingEnabled = isWifiCallingEnabled();
         if (!isWifiCallingEnabled) {
             // wifi calling is not enabled. Ask user to enable wifi calling
             final Resources res = getResourcesForSubId(subId);
@@ -245,6 +234,17 @@ public class WifiCallingSliceHelper {
                     res.getText(R.string.wifi_calling_turn_on),
                     sliceUri, getActivityIntent(ACTION_WIFI_CALLING_SETTINGS_ACTIVITY));
         }
+        final Integer wfcMode;
+        try {
+            wfcMode = mWfcStateResolver.getWfcMode(subId, getImsMmTelManager(subId),
+                    TIMEOUT_MILLIS);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Unable to get wifi calling preferred mode", e);
+            return null;
+        }
+        if (wfcMode == null) {
+            return null;
+        }
         // Return the slice to change wifi calling preference
         return getWifiCallingPreferenceSlice(
                 isWifiOnlySupported, wfcMode, sliceUri, subId);
@@ -348,19 +348,6 @@ public class WifiCallingSliceHelper {
         return ImsMmTelManager.createForSubscriptionId(subId);
     }
 
-    private int getWfcMode(ImsMmTelManager imsMmTelManager)
-            throws InterruptedException, ExecutionException, TimeoutException {
-        final FutureTask<Integer> wfcModeTask = new FutureTask<>(new Callable<Integer>() {
-            @Override
-            public Integer call() {
-                return imsMmTelManager.getVoWiFiModeSetting();
-            }
-        });
-        final ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(wfcModeTask);
-        return wfcModeTask.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-    }
-
     /**
      * Handles wifi calling setting change from wifi calling slice and posts notification. Should be
      * called when intent action is ACTION_WIFI_CALLING_CHANGED. Executed in @WorkerThread
@@ -385,6 +372,7 @@ public class WifiCallingSliceHelper {
                     if (newValue != currentValue) {
                         final ImsMmTelManager imsMmTelManager = getImsMmTelManager(subId);
                         imsMmTelManager.setVoWiFiSettingEnabled(newValue);
+                        mWfcStateResolver.invalidate(subId);
                     }
                 }
             }
@@ -440,6 +428,7 @@ public class WifiCallingSliceHelper {
                 if (newValue != errorValue && newValue != currentValue) {
                     // Update the setting only when there is a valid update
                     imsMmTelManager.setVoWiFiModeSetting(newValue);
+                    mWfcStateResolver.invalidate(subId);
                 }
             }
         }
@@ -482,7 +471,8 @@ public class WifiCallingSliceHelper {
         final CarrierConfigManager configManager = getCarrierConfigManager(mContext);
         boolean ret = false;
         if (configManager != null) {
-            final PersistableBundle bundle = configManager.getConfigForSubId(subId);
+            final PersistableBundle bundle = CarrierConfigCache.getConfigForSubId(mContext,
+                    configManager, subId);
             if (bundle != null) {
                 ret = bundle.getBoolean(key, defaultValue);
             }
@@ -511,7 +501,8 @@ public class WifiCallingSliceHelper {
             return null;
         }
 
-        final PersistableBundle bundle = configManager.getConfigForSubId(subId);
+        final PersistableBundle bundle = CarrierConfigCache.getConfigForSubId(mContext,
+                configManager, subId);
         if (bundle == null) {
             return null;
         }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.tests.perf;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import android.os.Bundle;
+import android.support.test.uiautomator.UiDevice;
+import android.util.Log;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Iterator;
+
+/**
+ * Launches the most used Settings pages cold (process killed first) and warm (process alive, task
+ * recreated), and reports the phases recorded by the Settings startup trace for each launch, as
+ * exported by SettingsDumpService.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LaunchFragmentStartupTest {
+
+    private static final String TAG = "LaunchFragmentStartup";
+    private static final int TIME_OUT = 5000;
+    // FLAG_ACTIVITY_NEW_TASK | FLAG_ACTIVITY_CLEAR_TASK, so warm launches recreate the activity.
+    private static final String CLEAR_TASK_FLAGS = "0x10008000";
+    private static final String DUMP_COMMAND =
+            "dumpsys activity service com.android.settings/.SettingsDumpService";
+    private static final String[] ACTIONS = {
+            "android.settings.SETTINGS",
+            "android.settings.WIFI_SETTINGS",
+            "android.settings.BLUETOOTH_SETTINGS",
+            "android.settings.WIRELESS_SETTINGS",
+            "android.settings.APPLICATION_SETTINGS",
+            "android.settings.MANAGE_ALL_APPLICATIONS_SETTINGS",
+            "android.settings.DISPLAY_SETTINGS",
+            "android.settings.SOUND_SETTINGS",
+            "android.intent.action.POWER_USAGE_SUMMARY",
+            "android.settings.INTERNAL_STORAGE_SETTINGS",
+            "android.settings.LOCATION_SOURCE_SETTINGS",
+            "android.settings.SECURITY_SETTINGS",
+            "android.settings.PRIVACY_SETTINGS",
+            "android.settings.ACCESSIBILITY_SETTINGS",
+            "android.settings.DATE_SETTINGS",
+            "android.settings.LOCALE_SETTINGS",
+            "android.settings.INPUT_METHOD_SETTINGS",
+            "android.settings.SYNC_SETTINGS",
+            "android.settings.ZEN_MODE_SETTINGS",
+            "android.settings.DEVICE_INFO_SETTINGS",
+    };
+
+    private UiDevice mDevice;
+    private Bundle mResults;
+
+    @Before
+    public void setUp() throws Exception {
+        mDevice = UiDevice.getInstance(getInstrumentation());
+        mResults = new Bundle();
+        mDevice.pressHome();
+        mDevice.waitForIdle(TIME_OUT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        getInstrumentation().sendStatus(0, mResults);
+        mDevice.executeShellCommand("am force-stop com.android.settings");
+    }
+
+    @Test
+    public void launchFragments_coldAndWarm() throws Exception {
+        for (String action : ACTIONS) {
+            final String name = action.substring(action.lastIndexOf('.') + 1);
+
+            mDevice.executeShellCommand("am force-stop com.android.settings");
+            Thread.sleep(1000);
+            mDevice.executeShellCommand("am start -W -a " + action);
+            mDevice.waitForIdle(TIME_OUT);
+            putLastTrace(name + "_cold");
+
+            mDevice.pressHome();
+            mDevice.waitForIdle(TIME_OUT);
+            mDevice.executeShellCommand("am start -W -f " + CLEAR_TASK_FLAGS + " -a " + action);
+            mDevice.waitForIdle(TIME_OUT);
+            putLastTrace(name + "_warm");
+
+            mDevice.pressHome();
+        }
+    }
+
+    private void putLastTrace(String key) throws Exception {
+        final JSONObject trace = getLastTrace(mDevice.executeShellCommand(DUMP_COMMAND));
+        if (trace == null) {
+            Log.e(TAG, "No startup trace for " + key);
+            return;
+        }
+        final Iterator<String> phases = trace.keys();
+        while (phases.hasNext()) {
+            final String phase = phases.next();
+            mResults.putString(String.format("LaunchFragmentStartup_%s_%s", key, phase),
+                    trace.getString(phase));
+        }
+    }
+
+    private static JSONObject getLastTrace(String dump) throws JSONException {
+        for (String line : dump.split("\n")) {
+            if (!line.startsWith("{")) {
+                continue;
+            }
+            final JSONArray traces = new JSONObject(line).optJSONArray("startup");
+            if (traces == null || traces.length() == 0) {
+                return null;
+            }
+            return traces.getJSONObject(traces.length() - 1);
+        }
+        return null;
+    }
+}
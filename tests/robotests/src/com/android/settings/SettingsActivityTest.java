@@ -30,6 +30,7 @@ import static org.mockito.Mockito.when;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.content.Intent;
+import android.content.pm.PackageInfo;
 
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
@@ -46,6 +47,9 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowPackageManager;
+import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -111,6 +115,47 @@ public class SettingsActivityTest {
         assertThat(((ListenerFragment) fragments.get(1)).mOnActivityResultCalled).isTrue();
     }
 
+    @Test
+    public void isTileStateUpToDate_neverSaved_shouldReturnFalse() {
+        SettingsActivity.clearTileState(mContext);
+
+        assertThat(SettingsActivity.isTileStateUpToDate(mContext,
+                SettingsActivity.TILE_STATE_ADMIN)).isFalse();
+    }
+
+    @Test
+    public void isTileStateUpToDate_sameInputsSaved_shouldReturnTrue() {
+        SettingsActivity.clearTileState(mContext);
+        final int inputs = SettingsActivity.TILE_STATE_ADMIN;
+
+        SettingsActivity.saveTileState(mContext, inputs);
+
+        assertThat(SettingsActivity.isTileStateUpToDate(mContext, inputs)).isTrue();
+        assertThat(SettingsActivity.isTileStateUpToDate(mContext,
+                SettingsActivity.TILE_STATE_ADMIN | SettingsActivity.TILE_STATE_WIFI)).isFalse();
+    }
+
+    @Test
+    public void isTileStateUpToDate_savedBeforeSettingsUpdate_shouldReturnFalse() {
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = mContext.getPackageName();
+        packageInfo.lastUpdateTime = 1000L;
+        final ShadowPackageManager shadowPackageManager =
+                Shadows.shadowOf(mContext.getPackageManager());
+        shadowPackageManager.installPackage(packageInfo);
+        SettingsActivity.clearTileState(mContext);
+        final int inputs = SettingsActivity.TILE_STATE_ADMIN;
+        SettingsActivity.saveTileState(mContext, inputs);
+
+        // A new process is started after the update.
+        ReflectionHelpers.setStaticField(SettingsActivity.class, "sAppliedTileStateInputs",
+                null);
+        packageInfo.lastUpdateTime = 2000L;
+        shadowPackageManager.installPackage(packageInfo);
+
+        assertThat(SettingsActivity.isTileStateUpToDate(mContext, inputs)).isFalse();
+    }
+
     public static class ListenerFragment extends Fragment implements OnActivityResultListener {
 
         private boolean mOnActivityResultCalled;
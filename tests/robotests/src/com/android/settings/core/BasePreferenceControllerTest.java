@@ -24,6 +24,8 @@ import static com.android.settings.core.BasePreferenceController.UNSUPPORTED_ON_
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.junit.Assert.fail;
+
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -34,6 +36,7 @@ import android.content.Context;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
+import com.android.settings.slices.FakePreferenceController;
 import com.android.settings.slices.SliceData;
 
 import org.junit.Before;
@@ -215,6 +218,62 @@ public class BasePreferenceControllerTest {
         assertThat(category).isEqualTo(SettingsEnums.DISPLAY);
     }
 
+    @Test
+    public void createInstance_calledTwice_shouldReturnNewInstances() {
+        final String className = FakePreferenceController.class.getName();
+
+        final BasePreferenceController controller1 =
+                BasePreferenceController.createInstance(mContext, className, KEY);
+        final BasePreferenceController controller2 =
+                BasePreferenceController.createInstance(mContext, className, KEY);
+
+        assertThat(controller1).isInstanceOf(FakePreferenceController.class);
+        assertThat(controller2).isInstanceOf(FakePreferenceController.class);
+        assertThat(controller2).isNotSameInstanceAs(controller1);
+    }
+
+    @Test
+    public void createInstance_noContextOnlyConstructor_shouldCrashEveryTime() {
+        final String className = FakePreferenceController.class.getName();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                BasePreferenceController.createInstance(mContext, className);
+                fail("Should have thrown IllegalStateException");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void createInstance_missingClass_shouldReportClassNotFoundEveryTime() {
+        final String className = "com.android.settings.NoSuchController";
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                BasePreferenceController.createInstance(mContext, className, KEY);
+                fail("Should have thrown IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertThat(e.getCause()).isInstanceOf(ClassNotFoundException.class);
+            }
+        }
+    }
+
+    @Test
+    public void createInstance_noContextOnlyConstructor_shouldReportNoSuchMethodEveryTime() {
+        final String className = FakePreferenceController.class.getName();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                BasePreferenceController.createInstance(mContext, className);
+                fail("Should have thrown IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertThat(e.getCause()).isInstanceOf(NoSuchMethodException.class);
+            }
+        }
+    }
+
     private class FakeBasePreferenceController extends BasePreferenceController {
 
         private int mAvailable;
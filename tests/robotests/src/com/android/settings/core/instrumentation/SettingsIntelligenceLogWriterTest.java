@@ -45,34 +45,77 @@ public class SettingsIntelligenceLogWriterTest {
 
     @Test
     public void serialize_hasSizeOne_returnCorrectData() throws IOException {
-        final SettingsLog event = SettingsLog.newBuilder()
-                .setAttribution(SettingsEnums.DASHBOARD_SUMMARY)
-                .setAction(SettingsEnums.ACTION_SET_NEW_PASSWORD)
-                .setPageId(SettingsEnums.SET_NEW_PASSWORD_ACTIVITY)
-                .setChangedPreferenceKey("package")
-                .setChangedPreferenceIntValue(100)
-                .build();
-        List<SettingsLog> events = new ArrayList<>();
-        events.add(event);
+        final SettingsIntelligenceLogWriter.LogBuffer buffer =
+                new SettingsIntelligenceLogWriter.LogBuffer(4);
+        buffer.add(SettingsEnums.DASHBOARD_SUMMARY, SettingsEnums.ACTION_SET_NEW_PASSWORD,
+                SettingsEnums.SET_NEW_PASSWORD_ACTIVITY, "package", 100, 0L /* timestamp */);
 
         // execute
-        final byte[] data = SettingsIntelligenceLogWriter.serialize(events);
-
-        // parse data
-        final ByteArrayInputStream bin = new ByteArrayInputStream(data);
-        final DataInputStream inputStream = new DataInputStream(bin);
-        final int size = inputStream.readInt();
-        final byte[] change = new byte[inputStream.readInt()];
-        inputStream.read(change);
-        inputStream.close();
-        final SettingsLog settingsLog = SettingsLog.parseFrom(change);
+        final List<SettingsLog> events = parse(buffer.serialize());
 
         // assert
-        assertThat(events.size()).isEqualTo(size);
+        assertThat(events).hasSize(1);
+        final SettingsLog settingsLog = events.get(0);
         assertThat(settingsLog.getAttribution()).isEqualTo(SettingsEnums.DASHBOARD_SUMMARY);
         assertThat(settingsLog.getAction()).isEqualTo(SettingsEnums.ACTION_SET_NEW_PASSWORD);
         assertThat(settingsLog.getPageId()).isEqualTo(SettingsEnums.SET_NEW_PASSWORD_ACTIVITY);
         assertThat(settingsLog.getChangedPreferenceKey()).isEqualTo("package");
         assertThat(settingsLog.getChangedPreferenceIntValue()).isEqualTo(100);
+        assertThat(settingsLog.getTimestamp()).isNotEmpty();
+    }
+
+    @Test
+    public void serialize_nullKey_returnEmptyKey() throws IOException {
+        final SettingsIntelligenceLogWriter.LogBuffer buffer =
+                new SettingsIntelligenceLogWriter.LogBuffer(4);
+        buffer.add(SettingsEnums.PAGE_UNKNOWN, SettingsEnums.ACTION_SET_NEW_PASSWORD,
+                SettingsEnums.PAGE_UNKNOWN, null, 0, 0L /* timestamp */);
+
+        final List<SettingsLog> events = parse(buffer.serialize());
+
+        assertThat(events.get(0).getChangedPreferenceKey()).isEmpty();
+    }
+
+    @Test
+    public void add_overCapacity_shouldDropOldest() throws IOException {
+        final SettingsIntelligenceLogWriter.LogBuffer buffer =
+                new SettingsIntelligenceLogWriter.LogBuffer(2);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(SettingsEnums.PAGE_UNKNOWN, SettingsEnums.ACTION_SET_NEW_PASSWORD,
+                    SettingsEnums.PAGE_UNKNOWN, "key", i /* value */, 0L /* timestamp */);
+        }
+
+        final List<SettingsLog> events = parse(buffer.serialize());
+
+        assertThat(buffer.getDroppedCount()).isEqualTo(1);
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getChangedPreferenceIntValue()).isEqualTo(1);
+        assertThat(events.get(1).getChangedPreferenceIntValue()).isEqualTo(2);
+    }
+
+    @Test
+    public void clear_shouldResetBuffer() throws IOException {
+        final SettingsIntelligenceLogWriter.LogBuffer buffer =
+                new SettingsIntelligenceLogWriter.LogBuffer(2);
+        buffer.add(SettingsEnums.PAGE_UNKNOWN, SettingsEnums.ACTION_SET_NEW_PASSWORD,
+                SettingsEnums.PAGE_UNKNOWN, "key", 0, 0L /* timestamp */);
+
+        buffer.clear();
+
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(parse(buffer.serialize())).isEmpty();
+    }
+
+    private static List<SettingsLog> parse(byte[] data) throws IOException {
+        final List<SettingsLog> events = new ArrayList<>();
+        try (DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(data))) {
+            final int size = inputStream.readInt();
+            for (int i = 0; i < size; i++) {
+                final byte[] change = new byte[inputStream.readInt()];
+                inputStream.readFully(change);
+                events.add(SettingsLog.parseFrom(change));
+            }
+        }
+        return events;
     }
 }
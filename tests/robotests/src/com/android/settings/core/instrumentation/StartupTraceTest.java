@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupTraceTest {
+
+    @After
+    public void tearDown() {
+        StartupTrace.reset();
+    }
+
+    @Test
+    public void beginPhase_noActiveTrace_shouldDoNothing() {
+        StartupTrace.beginPhase(StartupTrace.PHASE_RESOLVE_INTENT);
+        StartupTrace.endPhase(StartupTrace.PHASE_RESOLVE_INTENT);
+
+        assertThat(StartupTrace.getActive()).isNull();
+    }
+
+    @Test
+    public void endPhase_activeTrace_shouldRecordDuration() {
+        final StartupTrace trace = StartupTrace.begin("activity");
+
+        StartupTrace.beginPhase(StartupTrace.PHASE_RESOLVE_INTENT);
+        StartupTrace.endPhase(StartupTrace.PHASE_RESOLVE_INTENT);
+
+        assertThat(trace.getPhaseDuration(StartupTrace.PHASE_RESOLVE_INTENT)).isAtLeast(0L);
+        assertThat(trace.getPhaseDuration(StartupTrace.PHASE_FIRST_UPDATE_STATE)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void beginPhase_alreadyRecorded_shouldKeepFirstDuration() {
+        final StartupTrace trace = StartupTrace.begin("activity");
+        StartupTrace.beginPhase(StartupTrace.PHASE_FIRST_UPDATE_STATE);
+        StartupTrace.endPhase(StartupTrace.PHASE_FIRST_UPDATE_STATE);
+        final long duration = trace.getPhaseDuration(StartupTrace.PHASE_FIRST_UPDATE_STATE);
+
+        StartupTrace.beginPhase(StartupTrace.PHASE_FIRST_UPDATE_STATE);
+        StartupTrace.endPhase(StartupTrace.PHASE_FIRST_UPDATE_STATE);
+
+        assertThat(trace.getPhaseDuration(StartupTrace.PHASE_FIRST_UPDATE_STATE))
+                .isEqualTo(duration);
+    }
+
+    @Test
+    public void finish_shouldDeactivateAndAddToHistory() throws JSONException {
+        final StartupTrace trace = new StartupTrace("activity", 100L /* startTime */);
+        trace.setTarget("fragment");
+
+        trace.finish(350L /* firstFrameTime */);
+
+        assertThat(trace.getFirstFrameLatency()).isEqualTo(250L);
+        final JSONArray history = StartupTrace.dumpHistory();
+        assertThat(history.length()).isEqualTo(1);
+        assertThat(history.getJSONObject(0).getString("target")).isEqualTo("fragment");
+        assertThat(history.getJSONObject(0).getLong("first_frame")).isEqualTo(250L);
+    }
+
+    @Test
+    public void onDestroy_activeTrace_shouldDeactivateWithoutAddingToHistory()
+            throws JSONException {
+        final StartupTrace trace = StartupTrace.begin("activity");
+        StartupTrace.beginPhase(StartupTrace.PHASE_RESOLVE_INTENT);
+
+        trace.onDestroy();
+        trace.finish(0L /* firstFrameTime */);
+
+        assertThat(StartupTrace.getActive()).isNull();
+        assertThat(trace.getFirstFrameLatency()).isEqualTo(-1L);
+        assertThat(StartupTrace.dumpHistory().length()).isEqualTo(0);
+    }
+
+    @Test
+    public void onDestroy_replacedTrace_shouldKeepNewTraceActive() {
+        final StartupTrace trace = StartupTrace.begin("activity1");
+        final StartupTrace newTrace = StartupTrace.begin("activity2");
+
+        trace.onDestroy();
+
+        assertThat(StartupTrace.getActive()).isSameAs(newTrace);
+    }
+
+    @Test
+    public void begin_phaseOfReplacedTraceOpen_shouldNotEndItOnNewTrace() {
+        final StartupTrace trace = StartupTrace.begin("activity1");
+        StartupTrace.beginPhase(StartupTrace.PHASE_CREATE_CONTROLLERS);
+        final StartupTrace newTrace = StartupTrace.begin("activity2");
+
+        StartupTrace.endPhase(StartupTrace.PHASE_CREATE_CONTROLLERS);
+
+        assertThat(trace.getPhaseDuration(StartupTrace.PHASE_CREATE_CONTROLLERS))
+                .isEqualTo(-1L);
+        assertThat(newTrace.getPhaseDuration(StartupTrace.PHASE_CREATE_CONTROLLERS))
+                .isEqualTo(-1L);
+    }
+
+    @Test
+    public void finish_overMaxHistory_shouldKeepLatestTraces() throws JSONException {
+        for (int i = 0; i <= StartupTrace.MAX_HISTORY; i++) {
+            final StartupTrace trace = StartupTrace.begin("activity" + i);
+            trace.finish(0L /* firstFrameTime */);
+        }
+
+        final JSONArray history = StartupTrace.dumpHistory();
+
+        assertThat(history.length()).isEqualTo(StartupTrace.MAX_HISTORY);
+        assertThat(history.getJSONObject(0).getString("name")).isEqualTo("activity1");
+        assertThat(StartupTrace.getActive()).isNull();
+    }
+}
@@ -22,11 +22,23 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_KEYH
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
 import android.content.Context;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
+import android.content.ComponentName;
 import android.os.Bundle;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.provider.Settings;
 import android.util.Pair;
 
 import com.android.settingslib.drawer.ActivityTile;
@@ -40,8 +52,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
@@ -70,6 +85,101 @@ public class CategoryManagerTest {
         assertThat(mCategoryManager).isSameInstanceAs(CategoryManager.get(mContext));
     }
 
+    @Test
+    public void reloadAllCategories_noPackageChange_shouldKeepLoadedCategories() {
+        final Context context = createContextWithoutPackageChange();
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isSameInstanceAs(categories);
+    }
+
+    @Test
+    public void reloadAllCategories_packageChanged_shouldReloadCategories() {
+        final Context context = spy(RuntimeEnvironment.application);
+        final PackageManager packageManager = mock(PackageManager.class);
+        doReturn(packageManager).when(context).getPackageManager();
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+        when(packageManager.getChangedPackages(anyInt()))
+                .thenReturn(new ChangedPackages(1 /* sequenceNumber */, List.of("pkg")));
+
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isNotSameInstanceAs(categories);
+    }
+
+    @Test
+    public void reloadAllCategories_provisioningChanged_shouldReloadCategories() {
+        final Context context = createContextWithoutPackageChange();
+        Settings.Global.putInt(context.getContentResolver(), Settings.Global.DEVICE_PROVISIONED, 0);
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+        Settings.Global.putInt(context.getContentResolver(), Settings.Global.DEVICE_PROVISIONED, 1);
+
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isNotSameInstanceAs(categories);
+    }
+
+    @Test
+    public void reloadAllCategories_profileAdded_shouldReloadCategories() {
+        final Context context = createContextWithoutPackageChange();
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+        Shadows.shadowOf(context.getSystemService(UserManager.class))
+                .addUserProfile(UserHandle.of(10));
+
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isNotSameInstanceAs(categories);
+    }
+
+    @Test
+    public void reloadAllCategories_workProfilePresent_shouldReloadCategories() {
+        final Context context = createContextWithoutPackageChange();
+        Shadows.shadowOf(context.getSystemService(UserManager.class))
+                .addUserProfile(UserHandle.of(10));
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isNotSameInstanceAs(categories);
+    }
+
+    @Test
+    public void reloadAllCategories_tileRemovedByBlacklist_shouldReloadCategories() {
+        final Context context = createContextWithoutPackageChange();
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+        final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+        category.addTile(new ActivityTile(mActivityInfo, CATEGORY_HOMEPAGE));
+        categories.add(category);
+        categoryManager.updateCategoryFromBlacklist(
+                Collections.singleton(new ComponentName("pkg", "class")));
+
+        // The tile may be removed from the blacklist by the time of the next reload.
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isNotSameInstanceAs(categories);
+    }
+
+    @Test
+    public void updateCategoryFromBlacklist_noTileRemoved_shouldKeepCategoriesOnReload() {
+        final Context context = createContextWithoutPackageChange();
+        final CategoryManager categoryManager = new CategoryManager(context);
+        final List<DashboardCategory> categories = categoryManager.getCategories(context);
+        categoryManager.updateCategoryFromBlacklist(
+                Collections.singleton(new ComponentName("pkg", "class")));
+
+        categoryManager.reloadAllCategories(context);
+
+        assertThat(categoryManager.getCategories(context)).isSameInstanceAs(categories);
+    }
+
     @Test
     public void backwardCompatCleanupForCategory_shouldNotChangeCategoryForNewKeys() {
         final Tile tile1 = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_ACCOUNT);
@@ -334,4 +444,12 @@ public class CategoryManagerTest {
         metaData.putInt(META_DATA_KEY_ORDER, order);
         return new ProviderTile(providerInfo, categoryKey, metaData);
     }
+
+    private static Context createContextWithoutPackageChange() {
+        final Context context = spy(RuntimeEnvironment.application);
+        final PackageManager packageManager = mock(PackageManager.class);
+        doReturn(packageManager).when(context).getPackageManager();
+        when(packageManager.getChangedPackages(anyInt())).thenReturn(null);
+        return context;
+    }
 }
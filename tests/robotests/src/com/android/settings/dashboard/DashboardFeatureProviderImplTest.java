@@ -47,8 +47,14 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.content.pm.ResolveInfo;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.GradientDrawable;
 import android.graphics.drawable.Icon;
+import android.graphics.drawable.VectorDrawable;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.os.UserManager;
@@ -83,6 +89,7 @@ import org.robolectric.RuntimeEnvironment;
 import org.robolectric.Shadows;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowActivity;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
@@ -139,6 +146,7 @@ public class DashboardFeatureProviderImplTest {
                 .thenReturn(new ResolveInfo());
         mFeatureFactory = FakeFeatureFactory.setupForTest();
         mImpl = new DashboardFeatureProviderImpl(mContext);
+        DashboardFeatureProviderImpl.clearTileIconCache();
     }
 
     @Test
@@ -414,6 +422,95 @@ public class DashboardFeatureProviderImplTest {
         assertThat(preference.getIcon()).isNotNull();
     }
 
+    @Test
+    public void bindIcon_sameResourceIcon_shouldBindIconToEachPreference() {
+        final Tile tile = spy(new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE));
+        doReturn(Icon.createWithResource(mContext, R.drawable.ic_settings_accent))
+                .when(tile).getIcon(any(Context.class));
+        final Preference preference1 = new Preference(RuntimeEnvironment.application);
+        final Preference preference2 = new Preference(RuntimeEnvironment.application);
+
+        mImpl.bindIcon(preference1, tile, false /* forceRoundedIcon */);
+        mImpl.bindIcon(preference2, tile, false /* forceRoundedIcon */);
+
+        assertThat(preference1.getIcon()).isInstanceOf(VectorDrawable.class);
+        assertThat(preference2.getIcon()).isInstanceOf(VectorDrawable.class);
+        assertThat(preference2.getIcon()).isNotSameAs(preference1.getIcon());
+        assertThat(DashboardFeatureProviderImpl.sTileIconCache.get(
+                DashboardFeatureProviderImpl.getIconCacheKey(preference1.getContext(),
+                        tile.getIcon(mContext)))).isNotNull();
+    }
+
+    @Test
+    public void bindIcon_cachedIcon_shouldBindCachedIconWithoutLoadingResource() {
+        final Tile tile = spy(new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE));
+        // The package doesn't exist, so loading the resource would fail.
+        final Icon icon = Icon.createWithResource("com.android.unknown", 1 /* resId */);
+        doReturn(icon).when(tile).getIcon(any(Context.class));
+        final Preference preference = new Preference(RuntimeEnvironment.application);
+        DashboardFeatureProviderImpl.sTileIconCache.put(
+                DashboardFeatureProviderImpl.getIconCacheKey(preference.getContext(), icon),
+                new ColorDrawable(Color.RED).getConstantState());
+
+        mImpl.bindIcon(preference, tile, false /* forceRoundedIcon */);
+
+        assertThat(preference.getIcon()).isInstanceOf(ColorDrawable.class);
+        assertThat(((ColorDrawable) preference.getIcon()).getColor()).isEqualTo(Color.RED);
+    }
+
+    @Test
+    public void bindIcon_packageReplaced_shouldDropCachedIconsOfPackage() {
+        final Tile tile = spy(new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE));
+        final Icon icon = Icon.createWithResource(mContext, R.drawable.ic_settings_accent);
+        doReturn(icon).when(tile).getIcon(any(Context.class));
+        final Preference preference = new Preference(RuntimeEnvironment.application);
+        final String key = DashboardFeatureProviderImpl.getIconCacheKey(
+                preference.getContext(), icon);
+        final String otherKey = DashboardFeatureProviderImpl.getIconCacheKey(
+                preference.getContext(), Icon.createWithResource("com.android.other", 1));
+        DashboardFeatureProviderImpl.sTileIconCache.put(otherKey,
+                new ColorDrawable(Color.RED).getConstantState());
+        mImpl.bindIcon(preference, tile, false /* forceRoundedIcon */);
+
+        RuntimeEnvironment.application.sendBroadcast(new Intent(Intent.ACTION_PACKAGE_REPLACED,
+                Uri.fromParts("package", mContext.getPackageName(), null /* fragment */)));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(DashboardFeatureProviderImpl.sTileIconCache.get(key)).isNull();
+        assertThat(DashboardFeatureProviderImpl.sTileIconCache.get(otherKey)).isNotNull();
+    }
+
+    @Test
+    public void bindIcon_iconNotDecodedYet_shouldSetPlaceholder() {
+        final Tile tile = spy(new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE));
+        doReturn(Icon.createWithResource("com.android.unknown", 1 /* resId */))
+                .when(tile).getIcon(any(Context.class));
+        final Preference preference = new Preference(RuntimeEnvironment.application);
+
+        mImpl.bindIcon(preference, tile, false /* forceRoundedIcon */);
+
+        // R.drawable.empty_icon
+        assertThat(preference.getIcon()).isInstanceOf(GradientDrawable.class);
+    }
+
+    @Test
+    public void getIconCacheKey_otherUiModeOrDensity_shouldDiffer() {
+        final Icon icon = Icon.createWithResource(mContext, R.drawable.ic_settings_accent);
+        final Configuration nightConfig = new Configuration(
+                mContext.getResources().getConfiguration());
+        nightConfig.uiMode = Configuration.UI_MODE_NIGHT_YES | Configuration.UI_MODE_TYPE_NORMAL;
+        final Configuration densityConfig = new Configuration(
+                mContext.getResources().getConfiguration());
+        densityConfig.densityDpi = densityConfig.densityDpi * 2;
+
+        final String key = DashboardFeatureProviderImpl.getIconCacheKey(mContext, icon);
+
+        assertThat(DashboardFeatureProviderImpl.getIconCacheKey(
+                mContext.createConfigurationContext(nightConfig), icon)).isNotEqualTo(key);
+        assertThat(DashboardFeatureProviderImpl.getIconCacheKey(
+                mContext.createConfigurationContext(densityConfig), icon)).isNotEqualTo(key);
+    }
+
     @Test
     public void bindPreference_withBaseOrder_shouldOffsetOrder() {
         final int baseOrder = 100;
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class TileDataFetcherTest {
+
+    private TileDataFetcher mFetcher;
+
+    @Before
+    public void setUp() {
+        mFetcher = new TileDataFetcher();
+    }
+
+    @Test
+    public void enqueue_shouldFetchAndApplyUpdate() {
+        final AtomicInteger fetchCount = new AtomicInteger();
+        final AtomicInteger updateCount = new AtomicInteger();
+
+        mFetcher.enqueue(providerMap -> {
+            fetchCount.incrementAndGet();
+            return updateCount::incrementAndGet;
+        });
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        assertThat(updateCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueue_noUpdate_shouldNotCrash() {
+        final AtomicInteger fetchCount = new AtomicInteger();
+
+        mFetcher.enqueue(providerMap -> {
+            fetchCount.incrementAndGet();
+            return null;
+        });
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueue_whileBatchRunning_shouldRunInSameBatch() {
+        final List<Object> providerMaps = new ArrayList<>();
+        final AtomicInteger fetchCount = new AtomicInteger();
+
+        mFetcher.enqueue(providerMap -> {
+            providerMaps.add(providerMap);
+            mFetcher.enqueue(innerProviderMap -> {
+                providerMaps.add(innerProviderMap);
+                fetchCount.incrementAndGet();
+                return null;
+            });
+            // The request joins the running batch instead of starting a new one.
+            assertThat(fetchCount.get()).isEqualTo(0);
+            return null;
+        });
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        assertThat(providerMaps).hasSize(2);
+        assertThat(providerMaps.get(1)).isSameInstanceAs(providerMaps.get(0));
+    }
+
+    @Test
+    public void enqueue_severalRequests_shouldApplyEachUpdateWhenFetched() {
+        final List<String> events = new ArrayList<>();
+
+        mFetcher.enqueue(providerMap -> {
+            events.add("fetch1");
+            mFetcher.enqueue(innerProviderMap -> {
+                events.add("fetch2");
+                return () -> events.add("update2");
+            });
+            return () -> events.add("update1");
+        });
+
+        assertThat(events).containsExactly("fetch1", "update1", "fetch2", "update2").inOrder();
+    }
+
+    @Test
+    public void enqueue_requestFailed_shouldRunOtherRequests() {
+        final AtomicInteger updateCount = new AtomicInteger();
+
+        mFetcher.enqueue(providerMap -> {
+            mFetcher.enqueue(innerProviderMap -> {
+                throw new IllegalStateException();
+            });
+            mFetcher.enqueue(innerProviderMap -> updateCount::incrementAndGet);
+            return updateCount::incrementAndGet;
+        });
+        mFetcher.enqueue(providerMap -> updateCount::incrementAndGet);
+
+        assertThat(updateCount.get()).isEqualTo(3);
+    }
+}
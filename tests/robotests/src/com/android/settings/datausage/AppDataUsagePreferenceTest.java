@@ -18,6 +18,8 @@ package com.android.settings.datausage;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.graphics.Color;
@@ -73,13 +75,28 @@ public class AppDataUsagePreferenceTest {
     }
 
     @Test
-    public void createPref_noCachedUidDetail_shouldSetAppInfo() {
+    public void createPref_noCachedUidDetail_shouldNotLoadAppInfo() {
         when(mUidDetailProvider.getUidDetail(mAppItem.key, true /* blocking */))
                 .thenReturn(mUidDetail);
 
         mPreference = new AppDataUsagePreference(RuntimeEnvironment.application, mAppItem,
                 50 /* percent */, mUidDetailProvider);
 
+        verify(mUidDetailProvider, never()).getUidDetail(mAppItem.key, true /* blocking */);
+        assertThat(mPreference.getTitle()).isNull();
+    }
+
+    @Test
+    public void bindPref_noCachedUidDetail_shouldSetAppInfo() {
+        when(mUidDetailProvider.getUidDetail(mAppItem.key, true /* blocking */))
+                .thenReturn(mUidDetail);
+        mPreference = new AppDataUsagePreference(RuntimeEnvironment.application, mAppItem,
+                50 /* percent */, mUidDetailProvider);
+        final View view = LayoutInflater.from(RuntimeEnvironment.application).inflate(
+                com.android.settingslib.R.layout.preference_app, null);
+
+        mPreference.onBindViewHolder(PreferenceViewHolder.createInstanceForTests(view));
+
         assertThat(mPreference.getTitle()).isEqualTo(mUidDetail.label);
         assertThat(mPreference.getIcon()).isEqualTo(mUidDetail.icon);
     }
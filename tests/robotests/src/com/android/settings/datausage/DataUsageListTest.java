@@ -18,10 +18,14 @@ package com.android.settings.datausage;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,10 +43,14 @@ import android.widget.Spinner;
 
 import androidx.fragment.app.FragmentActivity;
 import androidx.loader.app.LoaderManager;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceGroup;
 import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
 import com.android.settings.SettingsActivity;
+import com.android.settings.datausage.lib.NetworkUsageCache;
 import com.android.settings.network.MobileDataEnabledListener;
 import com.android.settings.testutils.FakeFeatureFactory;
 import com.android.settings.widget.LoadingViewController;
@@ -123,6 +131,54 @@ public class DataUsageListTest {
         verify(mMobileDataEnabledListener).stop();
     }
 
+    @Test
+    public void resume_freshCachedCycleData_shouldShowItWithoutReloading() {
+        ReflectionHelpers.setField(
+                mDataUsageList, "mVisibilityLoggerMixin", mock(VisibilityLoggerMixin.class));
+        ReflectionHelpers.setField(
+                mDataUsageList, "mPreferenceManager", mock(PreferenceManager.class));
+        ReflectionHelpers.setField(mDataUsageList, "mCycleAdapter", mock(CycleAdapter.class));
+        mDataUsageList.mLoadingViewController = mock(LoadingViewController.class);
+        mDataUsageList.mCycleSpinner = mock(Spinner.class);
+        doNothing().when(mDataUsageList).updatePolicy();
+        final NetworkUsageCache usageCache = mock(NetworkUsageCache.class);
+        final List<NetworkCycleChartData> cycleData = new ArrayList<>();
+        when(usageCache.getCycleData(any())).thenReturn(cycleData);
+        when(usageCache.isCycleDataStale(any(), anyLong())).thenReturn(false);
+        mDataUsageList.mUsageCache = usageCache;
+
+        mDataUsageList.onResume();
+
+        assertThat((Object) ReflectionHelpers.getField(mDataUsageList, "mCycleData"))
+                .isSameAs(cycleData);
+        verify(mLoaderManager, never()).restartLoader(eq(DataUsageList.LOADER_CHART_DATA),
+                any(), any());
+
+        mDataUsageList.onPause();
+    }
+
+    @Test
+    public void resume_staleCachedCycleData_shouldReload() {
+        ReflectionHelpers.setField(
+                mDataUsageList, "mVisibilityLoggerMixin", mock(VisibilityLoggerMixin.class));
+        ReflectionHelpers.setField(
+                mDataUsageList, "mPreferenceManager", mock(PreferenceManager.class));
+        ReflectionHelpers.setField(mDataUsageList, "mCycleAdapter", mock(CycleAdapter.class));
+        mDataUsageList.mLoadingViewController = mock(LoadingViewController.class);
+        mDataUsageList.mCycleSpinner = mock(Spinner.class);
+        doNothing().when(mDataUsageList).updatePolicy();
+        final NetworkUsageCache usageCache = mock(NetworkUsageCache.class);
+        when(usageCache.getCycleData(any())).thenReturn(new ArrayList<>());
+        when(usageCache.isCycleDataStale(any(), anyLong())).thenReturn(true);
+        mDataUsageList.mUsageCache = usageCache;
+
+        mDataUsageList.onResume();
+
+        verify(mLoaderManager).restartLoader(eq(DataUsageList.LOADER_CHART_DATA), any(), any());
+
+        mDataUsageList.onPause();
+    }
+
     @Test
     public void processArgument_shouldGetTemplateFromArgument() {
         final Bundle args = new Bundle();
@@ -220,6 +276,22 @@ public class DataUsageListTest {
         assertThat(spinner.getVisibility()).isEqualTo(View.VISIBLE);
     }
 
+    @Test
+    public void onLoadFinished_networkStatsNull_shouldClearAppsWithoutCaching() {
+        final PreferenceGroup apps = mock(PreferenceGroup.class);
+        final NetworkUsageCache usageCache = mock(NetworkUsageCache.class);
+        ReflectionHelpers.setField(mDataUsageList, "mApps", apps);
+        mDataUsageList.mUsageCache = usageCache;
+        doReturn(mock(PreferenceScreen.class)).when(mDataUsageList).getPreferenceScreen();
+
+        mDataUsageList.mNetworkStatsDetailCallbacks.onLoadFinished(null /* loader */,
+                null /* data */);
+
+        verify(apps).removeAll();
+        verify(apps, never()).addPreference(any(Preference.class));
+        verify(usageCache, never()).putUidUsage(any(), anyLong(), anyLong(), any(), anyLong());
+    }
+
     @Test
     public void onPause_shouldDestroyLoaders() {
         mDataUsageList.onPause();
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage.lib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.net.NetworkTemplate;
+import android.util.SparseLongArray;
+
+import com.android.settingslib.net.NetworkCycleChartData;
+import com.android.settingslib.net.NetworkCycleDataForUid;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkUsageCacheTest {
+
+    private static final long START = 1000L;
+    private static final long END = 2000L;
+
+    private NetworkTemplate mTemplate;
+    private NetworkUsageCache mCache;
+
+    @Before
+    public void setUp() {
+        mTemplate = mock(NetworkTemplate.class);
+        mCache = new NetworkUsageCache();
+    }
+
+    @Test
+    public void getCycleData_notLoaded_shouldReturnNull() {
+        assertThat(mCache.getCycleData(mTemplate)).isNull();
+    }
+
+    @Test
+    public void getCycleData_loaded_shouldReturnLoadedData() {
+        final List<NetworkCycleChartData> data = new ArrayList<>();
+        mCache.putCycleData(mTemplate, data, START);
+
+        assertThat(mCache.getCycleData(mTemplate)).isSameAs(data);
+    }
+
+    @Test
+    public void isCycleDataStale_notLoaded_shouldReturnTrue() {
+        assertThat(mCache.isCycleDataStale(mTemplate, START)).isTrue();
+    }
+
+    @Test
+    public void isCycleDataStale_loaded_shouldExpireAfterTtl() {
+        final List<NetworkCycleChartData> data = new ArrayList<>();
+        mCache.putCycleData(mTemplate, data, START);
+
+        assertThat(mCache.isCycleDataStale(mTemplate, START)).isFalse();
+        assertThat(mCache.isCycleDataStale(mTemplate,
+                START + NetworkUsageCache.OPEN_CYCLE_TTL_MS + 1)).isTrue();
+        // Still shown while it is loaded again.
+        assertThat(mCache.getCycleData(mTemplate)).isSameAs(data);
+    }
+
+    @Test
+    public void getUidUsage_closedCycle_shouldNeverExpire() {
+        final SparseLongArray usage = new SparseLongArray();
+        mCache.putUidUsage(mTemplate, START, END, usage, END + 1);
+
+        assertThat(mCache.getUidUsage(mTemplate, START, END, Long.MAX_VALUE)).isSameAs(usage);
+    }
+
+    @Test
+    public void getUidUsage_openCycle_shouldExpireAfterTtl() {
+        final SparseLongArray usage = new SparseLongArray();
+        final long loadedTime = START + 1;
+        mCache.putUidUsage(mTemplate, START, END, usage, loadedTime);
+
+        assertThat(mCache.getUidUsage(mTemplate, START, END, loadedTime)).isSameAs(usage);
+        assertThat(mCache.getUidUsage(mTemplate, START, END,
+                loadedTime + NetworkUsageCache.OPEN_CYCLE_TTL_MS + 1)).isNull();
+    }
+
+    @Test
+    public void getUidUsage_otherCycle_shouldReturnNull() {
+        mCache.putUidUsage(mTemplate, START, END, new SparseLongArray(), END + 1);
+
+        assertThat(mCache.getUidUsage(mTemplate, START, END + 1, END + 1)).isNull();
+    }
+
+    @Test
+    public void getUidCycleData_sameUidsInOtherOrder_shouldReturnLoadedData() {
+        final List<NetworkCycleDataForUid> data = new ArrayList<>();
+        data.add(new NetworkCycleDataForUid.Builder()
+                .setStartTime(START).setEndTime(END).build());
+        mCache.putUidCycleData(mTemplate, new int[] {1001, 1000}, null, data, END + 1);
+
+        assertThat(mCache.getUidCycleData(mTemplate, new int[] {1000, 1001}, null, END + 1))
+                .isSameAs(data);
+        assertThat(mCache.getUidCycleData(mTemplate, new int[] {1000}, null, END + 1)).isNull();
+    }
+
+    @Test
+    public void getUidCycleData_openCycle_shouldExpireAfterTtl() {
+        final List<NetworkCycleDataForUid> data = new ArrayList<>();
+        data.add(new NetworkCycleDataForUid.Builder()
+                .setStartTime(START).setEndTime(END).build());
+        final int[] uids = new int[] {1000};
+        mCache.putUidCycleData(mTemplate, uids, null, data, START + 1);
+
+        assertThat(mCache.getUidCycleData(mTemplate, uids, null,
+                START + 1 + NetworkUsageCache.OPEN_CYCLE_TTL_MS + 1)).isNull();
+    }
+
+    @Test
+    public void getUidCycleData_noUsageInRequestedOpenCycle_shouldExpireAfterTtl() {
+        final List<Long> cycles = Arrays.asList(END, START);
+        final int[] uids = new int[] {1000};
+        mCache.putUidCycleData(mTemplate, uids, cycles, new ArrayList<>(), START + 1);
+
+        assertThat(mCache.getUidCycleData(mTemplate, uids, cycles, START + 1)).isNotNull();
+        assertThat(mCache.getUidCycleData(mTemplate, uids, cycles,
+                START + 1 + NetworkUsageCache.OPEN_CYCLE_TTL_MS + 1)).isNull();
+    }
+
+    @Test
+    public void getUidCycleData_requestedCyclesClosed_shouldNeverExpire() {
+        final List<Long> cycles = Arrays.asList(END, START);
+        final int[] uids = new int[] {1000};
+        final List<NetworkCycleDataForUid> data = new ArrayList<>();
+        mCache.putUidCycleData(mTemplate, uids, cycles, data, END + 1);
+
+        assertThat(mCache.getUidCycleData(mTemplate, uids, cycles, Long.MAX_VALUE))
+                .isSameAs(data);
+    }
+
+    @Test
+    public void getUidCycleData_requestedCyclesChangedAfterPut_shouldKeepLoadedData() {
+        final List<Long> cycles = new ArrayList<>(Arrays.asList(END, START));
+        final int[] uids = new int[] {1000};
+        final List<NetworkCycleDataForUid> data = new ArrayList<>();
+        mCache.putUidCycleData(mTemplate, uids, cycles, data, END + 1);
+
+        cycles.add(START - 1);
+
+        assertThat(mCache.getUidCycleData(mTemplate, uids, Arrays.asList(END, START), END + 1))
+                .isSameAs(data);
+    }
+
+    @Test
+    public void putUidCycleData_nullData_shouldNotCache() {
+        final int[] uids = new int[] {1000};
+        mCache.putUidCycleData(mTemplate, uids, null, null, END + 1);
+
+        assertThat(mCache.getUidCycleData(mTemplate, uids, null, END + 1)).isNull();
+    }
+
+    @Test
+    public void collectUidUsage_nullStats_shouldReturnEmpty() {
+        assertThat(NetworkUsageCache.collectUidUsage(null).size()).isEqualTo(0);
+    }
+}
@@ -37,8 +37,11 @@ import static com.android.settings.deviceinfo.simstatus.SimStatusDialogControlle
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -424,6 +427,65 @@ public class SimStatusDialogControllerTest {
         verify(mDialog).setText(ICCID_INFO_VALUE_ID, iccid);
     }
 
+    @Test
+    public void initialize_serviceStateReportedWhileLoading_shouldNotShowLoadedServiceState() {
+        when(mServiceState.getState()).thenReturn(ServiceState.STATE_IN_SERVICE);
+        final ServiceState reportedServiceState = mock(ServiceState.class);
+        when(reportedServiceState.getState()).thenReturn(ServiceState.STATE_POWER_OFF);
+        final PhoneStateListener listener = getRealPhoneStateListener();
+        // Report the new state after the loaded one was read, before it is shown.
+        doAnswer(invocation -> {
+            listener.onServiceStateChanged(reportedServiceState);
+            return TelephonyManager.NETWORK_TYPE_LTE;
+        }).when(mTelephonyManager).getVoiceNetworkType();
+
+        mController.initialize();
+
+        verify(mDialog).setText(SERVICE_STATE_VALUE_ID,
+                mContext.getString(R.string.radioInfo_service_off));
+        verify(mDialog, never()).setText(SERVICE_STATE_VALUE_ID,
+                mContext.getString(R.string.radioInfo_service_in));
+    }
+
+    @Test
+    public void initialize_signalStrengthReportedWhileLoading_shouldNotShowLoadedSignalStrength() {
+        when(mServiceState.getState()).thenReturn(ServiceState.STATE_IN_SERVICE);
+        doReturn(50).when(mCellSignalStrengthLte).getDbm();
+        doReturn(50).when(mCellSignalStrengthLte).getAsuLevel();
+        final List<CellSignalStrength> cellSignalStrengthList = new ArrayList<>(1);
+        cellSignalStrengthList.add(mCellSignalStrengthLte);
+        final SignalStrength reportedSignalStrength = mock(SignalStrength.class);
+        doReturn(cellSignalStrengthList).when(reportedSignalStrength).getCellSignalStrengths();
+        final PhoneStateListener listener = getRealPhoneStateListener();
+        doAnswer(invocation -> {
+            listener.onSignalStrengthsChanged(reportedSignalStrength);
+            return TelephonyManager.NETWORK_TYPE_LTE;
+        }).when(mTelephonyManager).getVoiceNetworkType();
+
+        mController.initialize();
+
+        verify(mDialog, never()).setText(SIGNAL_STRENGTH_VALUE_ID,
+                mContext.getString(R.string.sim_signal_strength, 0, 0));
+        verify(mDialog, times(2)).setText(SIGNAL_STRENGTH_VALUE_ID,
+                mContext.getString(R.string.sim_signal_strength, 50, 50));
+    }
+
+    @Test
+    public void initialize_reloadedAfterListenerUpdate_shouldShowLoadedServiceState() {
+        when(mServiceState.getState()).thenReturn(ServiceState.STATE_IN_SERVICE);
+        final ServiceState reportedServiceState = mock(ServiceState.class);
+        when(reportedServiceState.getState()).thenReturn(ServiceState.STATE_POWER_OFF);
+        final PhoneStateListener listener = getRealPhoneStateListener();
+        mController.initialize();
+        listener.onServiceStateChanged(reportedServiceState);
+
+        // A new load starts over, so its state is shown again.
+        mController.initialize();
+
+        verify(mDialog, times(2)).setText(SERVICE_STATE_VALUE_ID,
+                mContext.getString(R.string.radioInfo_service_in));
+    }
+
     @Test
     public void initialize_updateEid_shouldNotSetEid() {
         when(mTelephonyManager.getActiveModemCount()).thenReturn(MAX_PHONE_COUNT_DUAL_SIM);
@@ -774,6 +836,11 @@ public class SimStatusDialogControllerTest {
         mController.initialize();
     }
 
+    private PhoneStateListener getRealPhoneStateListener() {
+        doCallRealMethod().when(mController).getPhoneStateListener();
+        return mController.getPhoneStateListener();
+    }
+
     private void setupCellSignalStrength_lteWcdma(int lteDbm, int lteAsu, int wcdmaDbm,
             int wcdmaAsu) {
         doReturn(lteDbm).when(mCellSignalStrengthLte).getDbm();
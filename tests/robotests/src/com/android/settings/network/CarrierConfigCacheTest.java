@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.os.PersistableBundle;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class CarrierConfigCacheTest {
+
+    private static final int SUB_ID = 2;
+    private static final int OTHER_SUB_ID = 3;
+
+    @Mock
+    private CarrierConfigManager mCarrierConfigManager;
+    @Mock
+    private CarrierConfigManager mOtherCarrierConfigManager;
+
+    private Context mContext;
+    private PersistableBundle mCarrierConfig;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mContext).when(mContext).getApplicationContext();
+        doReturn(mCarrierConfigManager).when(mContext)
+                .getSystemService(CarrierConfigManager.class);
+
+        mCarrierConfig = new PersistableBundle();
+        mCarrierConfig.putBoolean(CarrierConfigManager.KEY_WORLD_PHONE_BOOL, true);
+        mCarrierConfig.putInt(CarrierConfigManager.KEY_VOLTE_REPLACEMENT_RAT_INT, 5);
+        mCarrierConfig.putString(CarrierConfigManager.KEY_CARRIER_CONFIG_VERSION_STRING, "v1");
+        doReturn(mCarrierConfig).when(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+        doReturn(new PersistableBundle()).when(mCarrierConfigManager)
+                .getConfigForSubId(OTHER_SUB_ID);
+    }
+
+    @After
+    public void tearDown() {
+        CarrierConfigCache.reset();
+    }
+
+    @Test
+    public void getConfigForSubId_calledTwice_shouldFetchOnce() {
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, SUB_ID))
+                .isSameInstanceAs(mCarrierConfig);
+        verify(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+    }
+
+    @Test
+    public void getConfigForSubId_configNotLoaded_shouldFetchAgain() {
+        doReturn(null).when(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, SUB_ID)).isNull();
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, SUB_ID)).isNull();
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID);
+    }
+
+    @Test
+    public void getConfigForSubId_invalidSubId_shouldNotCache() {
+        final int subId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+        doReturn(mCarrierConfig).when(mCarrierConfigManager).getConfigForSubId(subId);
+
+        CarrierConfigCache.getConfigForSubId(mContext, subId);
+        CarrierConfigCache.getConfigForSubId(mContext, subId);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(subId);
+    }
+
+    @Test
+    public void getConfigForSubId_noManager_returnNull() {
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, null /* manager */, SUB_ID))
+                .isNull();
+    }
+
+    @Test
+    public void getConfigForSubId_invalidatedWhileFetching_shouldFetchAgain() {
+        doAnswer(invocation -> {
+            CarrierConfigCache.invalidate(SUB_ID);
+            return mCarrierConfig;
+        }).when(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID);
+    }
+
+    @Test
+    public void getConfigForSubId_otherSubInvalidatedWhileFetching_shouldKeepConfig() {
+        doAnswer(invocation -> {
+            CarrierConfigCache.invalidate(OTHER_SUB_ID);
+            return mCarrierConfig;
+        }).when(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+
+        verify(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+    }
+
+    @Test
+    public void typedAccessors_shouldReadCachedConfig() {
+        assertThat(CarrierConfigCache.getBoolean(mContext, SUB_ID,
+                CarrierConfigManager.KEY_WORLD_PHONE_BOOL, false)).isTrue();
+        assertThat(CarrierConfigCache.getInt(mContext, SUB_ID,
+                CarrierConfigManager.KEY_VOLTE_REPLACEMENT_RAT_INT, 0)).isEqualTo(5);
+        assertThat(CarrierConfigCache.getString(mContext, SUB_ID,
+                CarrierConfigManager.KEY_CARRIER_CONFIG_VERSION_STRING)).isEqualTo("v1");
+        verify(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+    }
+
+    @Test
+    public void typedAccessors_configNotLoaded_returnDefault() {
+        doReturn(null).when(mCarrierConfigManager).getConfigForSubId(SUB_ID);
+
+        assertThat(CarrierConfigCache.getBoolean(mContext, SUB_ID,
+                CarrierConfigManager.KEY_WORLD_PHONE_BOOL, false)).isFalse();
+        assertThat(CarrierConfigCache.getInt(mContext, SUB_ID,
+                CarrierConfigManager.KEY_VOLTE_REPLACEMENT_RAT_INT, 1)).isEqualTo(1);
+        assertThat(CarrierConfigCache.getString(mContext, SUB_ID,
+                CarrierConfigManager.KEY_CARRIER_CONFIG_VERSION_STRING)).isNull();
+    }
+
+    @Test
+    public void carrierConfigChanged_forSub_shouldOnlyDropThatSub() {
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, OTHER_SUB_ID);
+
+        mContext.sendBroadcast(new Intent(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED)
+                .putExtra(CarrierConfigManager.EXTRA_SUBSCRIPTION_INDEX, SUB_ID));
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, OTHER_SUB_ID);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID);
+        verify(mCarrierConfigManager).getConfigForSubId(OTHER_SUB_ID);
+    }
+
+    @Test
+    public void invalidate_invalidSubId_shouldDropAllSubs() {
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, OTHER_SUB_ID);
+
+        CarrierConfigCache.invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, OTHER_SUB_ID);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID);
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(OTHER_SUB_ID);
+    }
+
+    @Test
+    public void getConfigForSubId_otherManagerOfSameApplication_shouldUseCachedConfig() {
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+
+        assertThat(CarrierConfigCache.getConfigForSubId(
+                new ContextWrapper(mContext), mOtherCarrierConfigManager, SUB_ID))
+                .isSameInstanceAs(mCarrierConfig);
+        verify(mOtherCarrierConfigManager, never()).getConfigForSubId(SUB_ID);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.provider.Settings;
+import android.telephony.TelephonyManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(RobolectricTestRunner.class)
+public class MobileDataStateObserverTest {
+
+    private static final int SUB_ID = 2;
+
+    @Mock
+    private TelephonyManager mBaseManager;
+    @Mock
+    private TelephonyManager mSubManager;
+    @Mock
+    private MobileDataStateObserver.Listener mListener1;
+    @Mock
+    private MobileDataStateObserver.Listener mListener2;
+
+    private Context mContext;
+    private MobileDataStateObserver mObserver;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        when(mBaseManager.createForSubscriptionId(SUB_ID)).thenReturn(mSubManager);
+        mObserver = new MobileDataStateObserver(mContext, mBaseManager);
+    }
+
+    @Test
+    public void onChange_mobileDataOfSubscription_shouldNotifyAllListeners() {
+        mObserver.addListener(SUB_ID, mListener1);
+        mObserver.addListener(SUB_ID, mListener2);
+
+        notifyChange(Settings.Global.MOBILE_DATA + SUB_ID);
+
+        verify(mListener1).onMobileDataStateChanged(SUB_ID);
+        verify(mListener2).onMobileDataStateChanged(SUB_ID);
+    }
+
+    @Test
+    public void onChange_dataRoaming_shouldOnlyNotifyListenersOfRoaming() {
+        mObserver.addListener(SUB_ID, MobileDataStateObserver.CHANGE_MOBILE_DATA, mListener1);
+        mObserver.addListener(SUB_ID, MobileDataStateObserver.CHANGE_DATA_ROAMING, mListener2);
+
+        notifyChange(Settings.Global.DATA_ROAMING + SUB_ID);
+
+        verify(mListener1, never()).onMobileDataStateChanged(SUB_ID);
+        verify(mListener2).onMobileDataStateChanged(SUB_ID);
+    }
+
+    @Test
+    public void onChange_listenerRemovedByEarlierListener_shouldNotNotifyIt() {
+        // Each listener removes the other, whichever is notified first.
+        final int[] notifyCount = new int[1];
+        final MobileDataStateObserver.Listener[] listeners =
+                new MobileDataStateObserver.Listener[2];
+        listeners[0] = subId -> {
+            notifyCount[0]++;
+            mObserver.removeListener(SUB_ID, listeners[1]);
+        };
+        listeners[1] = subId -> {
+            notifyCount[0]++;
+            mObserver.removeListener(SUB_ID, listeners[0]);
+        };
+        mObserver.addListener(SUB_ID, listeners[0]);
+        mObserver.addListener(SUB_ID, listeners[1]);
+
+        notifyChange(Settings.Global.MOBILE_DATA + SUB_ID);
+
+        assertThat(notifyCount[0]).isEqualTo(1);
+    }
+
+    @Test
+    public void isDataEnabled_whileListening_shouldReadOnce() {
+        when(mSubManager.isDataEnabled()).thenReturn(true);
+        mObserver.addListener(SUB_ID, mListener1);
+
+        assertThat(mObserver.isDataEnabled(SUB_ID)).isTrue();
+        assertThat(mObserver.isDataEnabled(SUB_ID)).isTrue();
+
+        verify(mSubManager, times(1)).isDataEnabled();
+    }
+
+    @Test
+    public void isDataEnabled_afterMobileDataChanged_shouldReadAgain() {
+        when(mSubManager.isDataEnabled()).thenReturn(true);
+        mObserver.addListener(SUB_ID, mListener1);
+        mObserver.isDataEnabled(SUB_ID);
+
+        when(mSubManager.isDataEnabled()).thenReturn(false);
+        notifyChange(Settings.Global.MOBILE_DATA + SUB_ID);
+
+        assertThat(mObserver.isDataEnabled(SUB_ID)).isFalse();
+        verify(mSubManager, times(2)).isDataEnabled();
+    }
+
+    @Test
+    public void isDataEnabled_afterRoamingChanged_shouldKeepValue() {
+        when(mSubManager.isDataEnabled()).thenReturn(true);
+        when(mSubManager.isDataRoamingEnabled()).thenReturn(false);
+        mObserver.addListener(SUB_ID, mListener1);
+        mObserver.isDataEnabled(SUB_ID);
+        mObserver.isDataRoamingEnabled(SUB_ID);
+
+        when(mSubManager.isDataRoamingEnabled()).thenReturn(true);
+        notifyChange(Settings.Global.DATA_ROAMING + SUB_ID);
+
+        assertThat(mObserver.isDataEnabled(SUB_ID)).isTrue();
+        assertThat(mObserver.isDataRoamingEnabled(SUB_ID)).isTrue();
+        verify(mSubManager, times(1)).isDataEnabled();
+        verify(mSubManager, times(2)).isDataRoamingEnabled();
+    }
+
+    @Test
+    public void isDataEnabled_withoutListener_shouldReadEveryTime() {
+        mObserver.isDataEnabled(SUB_ID);
+        mObserver.isDataEnabled(SUB_ID);
+
+        verify(mSubManager, times(2)).isDataEnabled();
+    }
+
+    @Test
+    public void isDataEnabled_mobileDataChangedWhileReading_shouldReadAgain() {
+        mObserver.addListener(SUB_ID, mListener1);
+        doAnswer(invocation -> {
+            notifyChange(Settings.Global.MOBILE_DATA + SUB_ID);
+            return true;
+        }).when(mSubManager).isDataEnabled();
+        mObserver.isDataEnabled(SUB_ID);
+
+        when(mSubManager.isDataEnabled()).thenReturn(false);
+
+        assertThat(mObserver.isDataEnabled(SUB_ID)).isFalse();
+        verify(mSubManager, times(2)).isDataEnabled();
+    }
+
+    @Test
+    public void getInstance_contextsOfSameApplication_shouldReturnSameObserver() {
+        assertThat(MobileDataStateObserver.getInstance(new ContextWrapper(mContext)))
+                .isSameInstanceAs(MobileDataStateObserver.getInstance(mContext));
+    }
+
+    @Test
+    public void isDataEnabled_invalidSubId_shouldUseBaseManager() {
+        mObserver.isDataEnabled(-1 /* subId */);
+
+        verify(mBaseManager).isDataEnabled();
+        verify(mSubManager, never()).isDataEnabled();
+    }
+
+    @Test
+    public void removeListener_lastListener_shouldStopObserving() {
+        mObserver.addListener(SUB_ID, mListener1);
+        mObserver.addListener(SUB_ID, mListener2);
+
+        mObserver.removeListener(SUB_ID, mListener1);
+        assertThat(mObserver.getListenerCount(SUB_ID)).isEqualTo(1);
+
+        mObserver.removeListener(SUB_ID, mListener2);
+        assertThat(mObserver.getListenerCount(SUB_ID)).isEqualTo(0);
+
+        notifyChange(Settings.Global.MOBILE_DATA + SUB_ID);
+        verify(mListener1, never()).onMobileDataStateChanged(SUB_ID);
+        verify(mListener2, never()).onMobileDataStateChanged(SUB_ID);
+    }
+
+    private void notifyChange(String name) {
+        mContext.getContentResolver().notifyChange(Settings.Global.getUriFor(name), null);
+        ShadowLooper.idleMainLooper();
+    }
+}
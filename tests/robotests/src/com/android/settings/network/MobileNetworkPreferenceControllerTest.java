@@ -20,6 +20,7 @@ import static androidx.lifecycle.Lifecycle.Event.ON_STOP;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -48,6 +49,7 @@ import com.android.settingslib.core.lifecycle.Lifecycle;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
@@ -75,6 +77,7 @@ public class MobileNetworkPreferenceControllerTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
         mLifecycleOwner = () -> mLifecycle;
         mLifecycle = new Lifecycle(mLifecycleOwner);
         when(mContext.getSystemService(Context.TELEPHONY_SERVICE)).thenReturn(mTelephonyManager);
@@ -108,13 +111,14 @@ public class MobileNetworkPreferenceControllerTest {
         mLifecycle.addObserver(mController);
         doReturn(true).when(mController).isAvailable();
 
+        final ArgumentCaptor<PhoneStateListener> captor =
+                ArgumentCaptor.forClass(PhoneStateListener.class);
         mLifecycle.handleLifecycleEvent(ON_START);
-        verify(mTelephonyManager).listen(mController.mPhoneStateListener,
-                PhoneStateListener.LISTEN_SERVICE_STATE);
+        verify(mTelephonyManager).listen(captor.capture(),
+                eq(PhoneStateListener.LISTEN_SERVICE_STATE));
 
         mLifecycle.handleLifecycleEvent(ON_STOP);
-        verify(mTelephonyManager).listen(mController.mPhoneStateListener,
-                PhoneStateListener.LISTEN_NONE);
+        verify(mTelephonyManager).listen(captor.getValue(), PhoneStateListener.LISTEN_NONE);
     }
 
     @Test
@@ -131,12 +135,14 @@ public class MobileNetworkPreferenceControllerTest {
         mController.displayPreference(mScreen);
         mLifecycle.handleLifecycleEvent(ON_START);
         verify(mController).onStart();
-        verify(mTelephonyManager).listen(mController.mPhoneStateListener,
-                PhoneStateListener.LISTEN_SERVICE_STATE);
+        final ArgumentCaptor<PhoneStateListener> captor =
+                ArgumentCaptor.forClass(PhoneStateListener.class);
+        verify(mTelephonyManager).listen(captor.capture(),
+                eq(PhoneStateListener.LISTEN_SERVICE_STATE));
 
         doReturn(testCarrierName).when(mController).getSummary();
 
-        mController.mPhoneStateListener.onServiceStateChanged(null);
+        captor.getValue().onServiceStateChanged(null);
 
         // Carrier name should be set.
         verify(mPreference).setSummary(testCarrierName);
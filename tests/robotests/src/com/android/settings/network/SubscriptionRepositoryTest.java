@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SubscriptionRepositoryTest {
+
+    @Mock
+    private SubscriptionManager mSubscriptionManager;
+    @Mock
+    private SubscriptionRepository.Listener mListener;
+
+    private Context mContext;
+    private SubscriptionRepository mRepository;
+    private SubscriptionRepository.Snapshot mSnapshot;
+    private SubscriptionInfo mSub1;
+    private SubscriptionInfo mSub2;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getSystemService(SubscriptionManager.class)).thenReturn(mSubscriptionManager);
+        mRepository = new SubscriptionRepository(mContext);
+        mSnapshot = new SubscriptionRepository.Snapshot();
+        mSub1 = createSubscription(1);
+        mSub2 = createSubscription(2);
+        when(mSubscriptionManager.getAvailableSubscriptionInfoList())
+                .thenReturn(Arrays.asList(mSub1, mSub2));
+    }
+
+    @After
+    public void tearDown() {
+        SubscriptionRepository.reset();
+    }
+
+    @Test
+    public void getInstance_contextsOfSameApplication_shouldReturnSameRepository() {
+        final Context context = RuntimeEnvironment.application;
+
+        assertThat(SubscriptionRepository.getInstance(new ContextWrapper(context)))
+                .isSameAs(SubscriptionRepository.getInstance(context));
+    }
+
+    @Test
+    public void getSelectableSubscriptions_listening_shouldLoadOnce() {
+        mRepository.addListener(mListener);
+
+        assertThat(mRepository.getSelectableSubscriptions()).containsExactly(mSub1, mSub2);
+        assertThat(mRepository.getSelectableSubscriptions()).containsExactly(mSub1, mSub2);
+
+        verify(mSubscriptionManager, times(1)).getAvailableSubscriptionInfoList();
+        mRepository.removeListener(mListener);
+    }
+
+    @Test
+    public void getSelectableSubscriptions_notListening_shouldLoadEveryTime() {
+        mRepository.getSelectableSubscriptions();
+        mRepository.getSelectableSubscriptions();
+
+        verify(mSubscriptionManager, times(2)).getAvailableSubscriptionInfoList();
+    }
+
+    @Test
+    public void onSubscriptionsChanged_shouldNotifyListenersAndReload() {
+        mRepository.addListener(mListener);
+        mRepository.getSelectableSubscriptions();
+        when(mSubscriptionManager.getAvailableSubscriptionInfoList())
+                .thenReturn(Arrays.asList(mSub2));
+
+        mRepository.onSubscriptionsChanged();
+
+        verify(mListener).onSubscriptionsChanged();
+        assertThat(mRepository.getSelectableSubscriptions()).containsExactly(mSub2);
+        mRepository.removeListener(mListener);
+    }
+
+    @Test
+    public void onSubscriptionsChanged_listenerRemovedByEarlierListener_shouldNotNotifyIt() {
+        final SubscriptionRepository.Listener removedListener =
+                mock(SubscriptionRepository.Listener.class);
+        mRepository.addListener(() -> mRepository.removeListener(removedListener));
+        mRepository.addListener(removedListener);
+
+        mRepository.onSubscriptionsChanged();
+
+        verify(removedListener, never()).onSubscriptionsChanged();
+    }
+
+    @Test
+    public void getSubscriptions_notLoaded_returnEmptyList() {
+        assertThat(mSnapshot.isLoaded()).isFalse();
+        assertThat(mSnapshot.getSubscriptions()).isEmpty();
+    }
+
+    @Test
+    public void update_firstLoad_allAdded() {
+        final SubscriptionRepository.ChangeSet changes =
+                mSnapshot.update(Arrays.asList(mSub1, mSub2));
+
+        assertThat(mSnapshot.isLoaded()).isTrue();
+        assertThat(changes.getAdded()).containsExactly(1, 2);
+        assertThat(changes.getRemoved()).isEmpty();
+        assertThat(changes.getChanged()).isEmpty();
+    }
+
+    @Test
+    public void update_sameSubscriptions_isEmpty() {
+        mSnapshot.update(Arrays.asList(mSub1, mSub2));
+
+        assertThat(mSnapshot.update(Arrays.asList(mSub1, mSub2)).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void update_subscriptionRemoved_reportRemoved() {
+        mSnapshot.update(Arrays.asList(mSub1, mSub2));
+
+        final SubscriptionRepository.ChangeSet changes = mSnapshot.update(Arrays.asList(mSub2));
+
+        assertThat(changes.getAdded()).isEmpty();
+        assertThat(changes.getRemoved()).containsExactly(1);
+        assertThat(changes.getChanged()).isEmpty();
+    }
+
+    @Test
+    public void update_infoReplaced_reportChanged() {
+        mSnapshot.update(Arrays.asList(mSub1, mSub2));
+
+        final SubscriptionRepository.ChangeSet changes =
+                mSnapshot.update(Arrays.asList(mSub1, createSubscription(2)));
+
+        assertThat(changes.getAdded()).isEmpty();
+        assertThat(changes.getRemoved()).isEmpty();
+        assertThat(changes.getChanged()).containsExactly(2);
+        assertThat(changes.isOrderChanged()).isFalse();
+    }
+
+    @Test
+    public void update_reordered_reportOrderChanged() {
+        mSnapshot.update(Arrays.asList(mSub1, mSub2));
+
+        final SubscriptionRepository.ChangeSet changes =
+                mSnapshot.update(Arrays.asList(mSub2, mSub1));
+
+        assertThat(changes.isOrderChanged()).isTrue();
+        assertThat(changes.getChanged()).isEmpty();
+        assertThat(changes.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void update_listModifiedLater_snapshotUnchanged() {
+        final List<SubscriptionInfo> subscriptions = new ArrayList<>(Arrays.asList(mSub1));
+        mSnapshot.update(subscriptions);
+
+        subscriptions.add(mSub2);
+
+        assertThat(mSnapshot.getSubscriptions()).containsExactly(mSub1);
+    }
+
+    @Test
+    public void invalidate_shouldDropSnapshot() {
+        mSnapshot.update(Arrays.asList(mSub1));
+
+        mSnapshot.invalidate();
+
+        assertThat(mSnapshot.isLoaded()).isFalse();
+        assertThat(mSnapshot.getSubscriptions()).isEmpty();
+    }
+
+    private static SubscriptionInfo createSubscription(int subId) {
+        final SubscriptionInfo info = mock(SubscriptionInfo.class);
+        when(info.getSubscriptionId()).thenReturn(subId);
+        return info;
+    }
+}
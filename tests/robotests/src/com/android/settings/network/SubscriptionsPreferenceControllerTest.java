@@ -32,6 +32,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -246,6 +247,28 @@ public class SubscriptionsPreferenceControllerTest {
         assertThat(captor.getValue().getTitle()).isEqualTo("sub3");
     }
 
+    @Test
+    public void onSubscriptionsChanged_subscriptionRenamed_onlyTitleUpdated() {
+        final List<SubscriptionInfo> subs = setupMockSubscriptions(2);
+        mController.onResume();
+        mController.displayPreference(mScreen);
+        final ArgumentCaptor<Preference> captor = ArgumentCaptor.forClass(Preference.class);
+        verify(mPreferenceCategory, times(2)).addPreference(captor.capture());
+        final Preference sub2Pref = captor.getAllValues().get(1);
+
+        final SubscriptionInfo renamedSub2 = mock(SubscriptionInfo.class);
+        when(renamedSub2.getSubscriptionId()).thenReturn(2);
+        when(renamedSub2.getDisplayName()).thenReturn("renamed");
+        final int updateCountBeforeSubscriptionChange = mOnChildUpdatedCount;
+        SubscriptionUtil.setActiveSubscriptionsForTesting(Arrays.asList(subs.get(0), renamedSub2));
+        mController.onSubscriptionsChanged();
+
+        assertThat(sub2Pref.getTitle()).isEqualTo("renamed");
+        assertThat(mOnChildUpdatedCount).isEqualTo(updateCountBeforeSubscriptionChange);
+        verify(mPreferenceCategory, times(2)).addPreference(any(Preference.class));
+        verify(mPreferenceCategory, never()).removePreference(any(Preference.class));
+    }
+
 
     /**
      * Helper to create a specified number of subscriptions, display them, and then click on one and
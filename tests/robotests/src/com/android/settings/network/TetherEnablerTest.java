@@ -37,12 +37,14 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothPan;
 import android.content.Context;
+import android.content.Intent;
 import android.net.ConnectivityManager;
 import android.net.NetworkPolicyManager;
 import android.net.TetheringManager;
@@ -61,6 +63,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
@@ -82,6 +85,8 @@ public class TetherEnablerTest {
     @Mock
     private BluetoothAdapter mBluetoothAdapter;
 
+    private Context mContext;
+    private AtomicReference<BluetoothPan> mPanReference;
     private SwitchBar mSwitchBar;
     private TetherEnabler mEnabler;
     private SwitchWidgetController mSwitchWidgetController;
@@ -93,6 +98,8 @@ public class TetherEnablerTest {
 
         Context context = spy(ApplicationProvider.getApplicationContext());
         AtomicReference<BluetoothPan> panReference = spy(AtomicReference.class);
+        mContext = context;
+        mPanReference = panReference;
         mSwitchBar = spy(new SwitchBar(context));
         mSwitchWidgetController = spy(new SwitchBarController(mSwitchBar));
         when(context.getSystemService(Context.WIFI_SERVICE)).thenReturn(mWifiManager);
@@ -311,4 +318,74 @@ public class TetherEnablerTest {
         assertThat(TetherEnabler.isTethering(TETHERING_ETHERNET_ON, TETHERING_ETHERNET)).isTrue();
         assertThat(TetherEnabler.isTethering(~TETHERING_ETHERNET_ON, TETHERING_ETHERNET)).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void addListener_whileHandlingSameMessage_shouldQueryStateOnce() {
+        // Not a spy, so the state expires on the enabler the listeners are added to.
+        final TetherEnabler enabler = createEnabler();
+        ShadowLooper.pauseMainLooper();
+        try {
+            enabler.addListener(mock(OnTetherStateUpdateListener.class));
+            enabler.addListener(mock(OnTetherStateUpdateListener.class));
+            verify(mTetheringManager, times(1)).getTetheredIfaces();
+
+            ShadowLooper.idleMainLooper();
+            enabler.addListener(mock(OnTetherStateUpdateListener.class));
+            verify(mTetheringManager, times(2)).getTetheredIfaces();
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test
+    public void isTetherable_noTetherStateBroadcast_returnNull() {
+        final TetherEnabler enabler = createEnabler();
+
+        assertThat(enabler.isTetherable(TETHERING_USB)).isNull();
+    }
+
+    @Test
+    public void onReceive_tetherStateChanged_shouldKeepTetherableTypes() {
+        when(mTetheringManager.getTetherableUsbRegexs()).thenReturn(USB_TETHERED);
+        final TetherEnabler enabler = createEnabler();
+
+        enabler.mTetherChangeReceiver.onReceive(mContext, createTetherStateIntent(USB_TETHERED));
+
+        assertThat(enabler.isTetherable(TETHERING_USB)).isTrue();
+        assertThat(enabler.isTetherable(TETHERING_ETHERNET)).isFalse();
+    }
+
+    @Test
+    public void onReceive_tetherableTypesChanged_shouldUpdateListeners() {
+        when(mTetheringManager.getTetherableUsbRegexs()).thenReturn(USB_TETHERED);
+        final TetherEnabler enabler = createEnabler();
+        final OnTetherStateUpdateListener listener = mock(OnTetherStateUpdateListener.class);
+        enabler.addListener(listener);
+        enabler.mTetherChangeReceiver.onReceive(mContext, createTetherStateIntent(USB_TETHERED));
+        // The first broadcast only sets the types.
+        verify(listener, times(1)).onTetherStateUpdated(anyInt());
+
+        enabler.mTetherChangeReceiver.onReceive(mContext, createTetherStateIntent(USB_TETHERED));
+        verify(listener, times(1)).onTetherStateUpdated(anyInt());
+
+        enabler.mTetherChangeReceiver.onReceive(mContext, createTetherStateIntent(new String[0]));
+        verify(listener, times(2)).onTetherStateUpdated(anyInt());
+        assertThat(enabler.isTetherable(TETHERING_USB)).isFalse();
+    }
+
+    private TetherEnabler createEnabler() {
+        final TetherEnabler enabler =
+                new TetherEnabler(mContext, mSwitchWidgetController, mPanReference);
+        ReflectionHelpers.setField(enabler, "mBluetoothAdapter", mBluetoothAdapter);
+        return enabler;
+    }
+
+    private static Intent createTetherStateIntent(String[] available) {
+        final ArrayList<String> availableList = new ArrayList<>();
+        for (String iface : available) {
+            availableList.add(iface);
+        }
+        return new Intent(TetheringManager.ACTION_TETHER_STATE_CHANGED)
+                .putStringArrayListExtra(TetheringManager.EXTRA_AVAILABLE_TETHER, availableList);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.android.settings.network.TetherEnabler.TETHERING_BLUETOOTH_ON;
+import static com.android.settings.network.TetherEnabler.TETHERING_ETHERNET_ON;
+import static com.android.settings.network.TetherEnabler.TETHERING_OFF;
+import static com.android.settings.network.TetherEnabler.TETHERING_USB_ON;
+import static com.android.settings.network.TetherEnabler.TETHERING_WIFI_ON;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.net.TetheringManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+@RunWith(RobolectricTestRunner.class)
+public class TetherInterfaceMatcherTest {
+
+    @Mock
+    private TetheringManager mTetheringManager;
+
+    private TetherInterfaceMatcher mMatcher;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mTetheringManager.getTetherableUsbRegexs()).thenReturn(new String[]{"rndis\\d"});
+        when(mTetheringManager.getTetherableWifiRegexs()).thenReturn(new String[]{"wlan\\d"});
+        when(mTetheringManager.getTetherableBluetoothRegexs()).thenReturn(null);
+        mMatcher = new TetherInterfaceMatcher(mTetheringManager, "eth\\d");
+    }
+
+    @Test
+    public void getTypes_singleInterface_shouldMatchItsType() {
+        assertThat(mMatcher.getTypes("rndis0")).isEqualTo(TETHERING_USB_ON);
+        assertThat(mMatcher.getTypes("wlan1")).isEqualTo(TETHERING_WIFI_ON);
+        assertThat(mMatcher.getTypes("eth0")).isEqualTo(TETHERING_ETHERNET_ON);
+        assertThat(mMatcher.getTypes("bt-pan")).isEqualTo(TETHERING_OFF);
+    }
+
+    @Test
+    public void getTypes_interfaceList_shouldCombineTypes() {
+        assertThat(mMatcher.getTypes(new String[]{"rndis0", "eth1", "rmnet0"}))
+                .isEqualTo(TETHERING_USB_ON | TETHERING_ETHERNET_ON);
+        assertThat(mMatcher.getTypes(Arrays.asList("wlan0", "eth0")))
+                .isEqualTo(TETHERING_WIFI_ON | TETHERING_ETHERNET_ON);
+        assertThat(mMatcher.getTypes((String[]) null)).isEqualTo(TETHERING_OFF);
+        assertThat(mMatcher.getTypes("rndis0") & TETHERING_BLUETOOTH_ON).isEqualTo(0);
+    }
+
+    @Test
+    public void getTypes_calledTwice_shouldReadRegexsOnce() {
+        mMatcher.getTypes(new String[]{"rndis0"});
+        mMatcher.getTypes(new String[]{"rndis1"});
+
+        verify(mTetheringManager, times(1)).getTetherableUsbRegexs();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.ims;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ContextWrapper;
+import android.telephony.ims.ImsMmTelManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class WifiCallingStateResolverTest {
+
+    private static final int SUB_ID = 2;
+    private static final long START_TIME = 1000L;
+    private static final long TIMEOUT_MILLIS = 2000L;
+
+    @Mock
+    private ImsMmTelManager mImsMmTelManager;
+
+    private WifiCallingStateResolver mResolver;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mResolver = spy(new WifiCallingStateResolver(RuntimeEnvironment.application));
+        doReturn(START_TIME).when(mResolver).getElapsedRealtime();
+        when(mImsMmTelManager.getVoWiFiModeSetting())
+                .thenReturn(ImsMmTelManager.WIFI_MODE_WIFI_PREFERRED);
+    }
+
+    @Test
+    public void getWfcMode_calledTwice_shouldQueryOnce() {
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager))
+                .isEqualTo(ImsMmTelManager.WIFI_MODE_WIFI_PREFERRED);
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager))
+                .isEqualTo(ImsMmTelManager.WIFI_MODE_WIFI_PREFERRED);
+
+        verify(mImsMmTelManager, times(1)).getVoWiFiModeSetting();
+    }
+
+    @Test
+    public void getWfcMode_afterMaxAge_shouldQueryAgain() {
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager);
+
+        doReturn(START_TIME + WifiCallingStateResolver.MAX_AGE_MILLIS)
+                .when(mResolver).getElapsedRealtime();
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager);
+
+        verify(mImsMmTelManager, times(2)).getVoWiFiModeSetting();
+    }
+
+    @Test
+    public void getWfcMode_afterInvalidate_shouldReturnNewValue() {
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager);
+
+        when(mImsMmTelManager.getVoWiFiModeSetting())
+                .thenReturn(ImsMmTelManager.WIFI_MODE_CELLULAR_PREFERRED);
+        mResolver.invalidate(SUB_ID);
+
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager))
+                .isEqualTo(ImsMmTelManager.WIFI_MODE_CELLULAR_PREFERRED);
+    }
+
+    @Test
+    public void getWfcModeWithTimeout_queryFailed_shouldReturnNullAndQueryAgain() {
+        when(mImsMmTelManager.getVoWiFiModeSetting())
+                .thenThrow(new IllegalArgumentException())
+                .thenReturn(ImsMmTelManager.WIFI_MODE_WIFI_ONLY);
+
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager, TIMEOUT_MILLIS)).isNull();
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager, TIMEOUT_MILLIS))
+                .isEqualTo(ImsMmTelManager.WIFI_MODE_WIFI_ONLY);
+        verify(mImsMmTelManager, times(2)).getVoWiFiModeSetting();
+    }
+
+    @Test
+    public void getWfcModeWithTimeout_calledTwice_shouldQueryOnce() {
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager, TIMEOUT_MILLIS);
+
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager))
+                .isEqualTo(ImsMmTelManager.WIFI_MODE_WIFI_PREFERRED);
+        verify(mImsMmTelManager, times(1)).getVoWiFiModeSetting();
+    }
+
+    @Test
+    public void getWfcModeWithTimeout_slowQueryOfOtherCaller_shouldReturnNullInTime()
+            throws Exception {
+        final CountDownLatch queryStarted = new CountDownLatch(1);
+        final CountDownLatch releaseQuery = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await();
+            return ImsMmTelManager.WIFI_MODE_WIFI_ONLY;
+        }).when(mImsMmTelManager).getVoWiFiModeSetting();
+        final AtomicInteger slowCallerMode = new AtomicInteger();
+        final Thread slowCaller = new Thread(() ->
+                slowCallerMode.set(mResolver.getWfcMode(SUB_ID, mImsMmTelManager)));
+        slowCaller.start();
+        assertThat(queryStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager, 100L /* timeoutMillis */))
+                .isNull();
+
+        releaseQuery.countDown();
+        slowCaller.join(TIMEOUT_MILLIS);
+        assertThat(slowCallerMode.get()).isEqualTo(ImsMmTelManager.WIFI_MODE_WIFI_ONLY);
+        // The timed caller waited for the running query instead of starting its own.
+        assertThat(mResolver.getWfcMode(SUB_ID, mImsMmTelManager, TIMEOUT_MILLIS))
+                .isEqualTo(ImsMmTelManager.WIFI_MODE_WIFI_ONLY);
+        verify(mImsMmTelManager, times(1)).getVoWiFiModeSetting();
+    }
+
+    @Test
+    public void getWfcMode_invalidatedWhileQuerying_shouldNotKeepValue() {
+        doAnswer(invocation -> {
+            mResolver.invalidate(SUB_ID);
+            return ImsMmTelManager.WIFI_MODE_WIFI_ONLY;
+        }).when(mImsMmTelManager).getVoWiFiModeSetting();
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager);
+
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager);
+
+        verify(mImsMmTelManager, times(2)).getVoWiFiModeSetting();
+    }
+
+    @Test
+    public void getInstance_contextsOfSameApplication_shouldReturnSameResolver() {
+        assertThat(WifiCallingStateResolver.getInstance(
+                new ContextWrapper(RuntimeEnvironment.application)))
+                .isSameInstanceAs(WifiCallingStateResolver.getInstance(
+                        RuntimeEnvironment.application));
+    }
+
+    @Test
+    public void getWfcMode_otherSubscription_shouldQuerySeparately() {
+        mResolver.getWfcMode(SUB_ID, mImsMmTelManager);
+        mResolver.getWfcMode(SUB_ID + 1, mImsMmTelManager);
+
+        verify(mImsMmTelManager, times(2)).getVoWiFiModeSetting();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.telephony;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.telephony.CellIdentityLte;
+import android.telephony.CellIdentityWcdma;
+import android.telephony.CellInfo;
+import android.telephony.CellInfoLte;
+import android.telephony.CellInfoWcdma;
+import android.telephony.CellSignalStrengthLte;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkScanResultsTest {
+
+    private NetworkScanResults mScanResults;
+
+    @Before
+    public void setUp() {
+        mScanResults = new NetworkScanResults();
+    }
+
+    @Test
+    public void merge_sameOperatorTwice_keepOneEntry() {
+        final CellInfo first = createLteCell("310", "260", false);
+        final CellInfo second = createLteCell("310", "260", false);
+
+        assertThat(mScanResults.merge(Arrays.asList(first))).isTrue();
+        assertThat(mScanResults.merge(Arrays.asList(second))).isTrue();
+
+        assertThat(mScanResults.getCellInfoList()).containsExactly(second);
+    }
+
+    @Test
+    public void merge_sameCellReportedLater_returnFalse() {
+        final CellIdentityLte cellId = createLteCellIdentity("310", "260");
+        final CellInfo first = createLteCell(cellId, false, 3, 1000L);
+        final CellInfo second = createLteCell(cellId, false, 3, 2000L);
+        mScanResults.merge(Arrays.asList(first));
+
+        assertThat(mScanResults.merge(Arrays.asList(second))).isFalse();
+        assertThat(mScanResults.getCellInfoList()).containsExactly(first);
+    }
+
+    @Test
+    public void merge_signalLevelChanged_returnTrue() {
+        final CellIdentityLte cellId = createLteCellIdentity("310", "260");
+        final CellInfo first = createLteCell(cellId, false, 3, 1000L);
+        final CellInfo second = createLteCell(cellId, false, 2, 2000L);
+        mScanResults.merge(Arrays.asList(first));
+
+        assertThat(mScanResults.merge(Arrays.asList(second))).isTrue();
+        assertThat(mScanResults.getCellInfoList()).containsExactly(second);
+    }
+
+    @Test
+    public void merge_registrationChanged_returnTrue() {
+        final CellIdentityLte cellId = createLteCellIdentity("310", "260");
+        final CellInfo first = createLteCell(cellId, false, 3, 1000L);
+        final CellInfo second = createLteCell(cellId, true, 3, 2000L);
+        mScanResults.merge(Arrays.asList(first));
+
+        assertThat(mScanResults.merge(Arrays.asList(second))).isTrue();
+        assertThat(mScanResults.getCellInfoList()).containsExactly(second);
+    }
+
+    @Test
+    public void merge_sameOperatorOtherRat_keepBoth() {
+        final CellInfo lte = createLteCell("310", "260", false);
+        final CellInfo wcdma = createWcdmaCell("310", "260", false);
+
+        mScanResults.merge(Arrays.asList(lte, wcdma));
+
+        assertThat(mScanResults.getCellInfoList()).containsExactly(lte, wcdma).inOrder();
+    }
+
+    @Test
+    public void merge_sameBatch_keepRegisteredCell() {
+        final CellInfo registered = createLteCell("310", "260", true);
+        final CellInfo other = createLteCell("310", "260", false);
+
+        mScanResults.merge(Arrays.asList(registered, other));
+
+        assertThat(mScanResults.getCellInfoList()).containsExactly(registered);
+    }
+
+    @Test
+    public void getCellInfoList_registeredFirstThenFoundOrder() {
+        final CellInfo cell1 = createLteCell("310", "260", false);
+        final CellInfo cell2 = createLteCell("310", "410", false);
+        final CellInfo cell3 = createLteCell("311", "480", true);
+        mScanResults.merge(Arrays.asList(cell1, cell2));
+        mScanResults.merge(Arrays.asList(cell3));
+
+        assertThat(mScanResults.getCellInfoList()).containsExactly(cell3, cell1, cell2).inOrder();
+    }
+
+    @Test
+    public void clear_shouldDropResults() {
+        mScanResults.merge(Arrays.asList(createLteCell("310", "260", false)));
+
+        mScanResults.clear();
+
+        assertThat(mScanResults.getCellInfoList()).isEmpty();
+    }
+
+    @Test
+    public void getKey_mncDigitsDiffer_differentKeys() {
+        assertThat(NetworkScanResults.getKey(createLteCell("310", "01", false)))
+                .isNotEqualTo(NetworkScanResults.getKey(createLteCell("310", "001", false)));
+    }
+
+    private static CellInfo createLteCell(String mcc, String mnc, boolean registered) {
+        return createLteCell(createLteCellIdentity(mcc, mnc), registered, 0, 0L);
+    }
+
+    private static CellInfo createLteCell(CellIdentityLte cellId, boolean registered, int level,
+            long timestampMillis) {
+        final CellInfoLte cellInfo = mock(CellInfoLte.class);
+        final CellSignalStrengthLte signalStrength = mock(CellSignalStrengthLte.class);
+        when(signalStrength.getLevel()).thenReturn(level);
+        when(cellInfo.getCellIdentity()).thenReturn(cellId);
+        when(cellInfo.getCellSignalStrength()).thenReturn(signalStrength);
+        when(cellInfo.isRegistered()).thenReturn(registered);
+        when(cellInfo.getTimestampMillis()).thenReturn(timestampMillis);
+        return cellInfo;
+    }
+
+    private static CellIdentityLte createLteCellIdentity(String mcc, String mnc) {
+        final CellIdentityLte cellId = mock(CellIdentityLte.class);
+        when(cellId.getMccString()).thenReturn(mcc);
+        when(cellId.getMncString()).thenReturn(mnc);
+        return cellId;
+    }
+
+    private static CellInfo createWcdmaCell(String mcc, String mnc, boolean registered) {
+        final CellInfoWcdma cellInfo = mock(CellInfoWcdma.class);
+        final CellIdentityWcdma cellId = mock(CellIdentityWcdma.class);
+        when(cellId.getMccString()).thenReturn(mcc);
+        when(cellId.getMncString()).thenReturn(mnc);
+        when(cellInfo.getCellIdentity()).thenReturn(cellId);
+        when(cellInfo.isRegistered()).thenReturn(registered);
+        return cellInfo;
+    }
+}
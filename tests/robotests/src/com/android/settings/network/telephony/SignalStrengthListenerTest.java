@@ -68,6 +68,7 @@ public class SignalStrengthListenerTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
         when(mContext.getSystemService(TelephonyManager.class)).thenReturn(mBaseManager);
         when(mBaseManager.createForSubscriptionId(SUB_ID_1)).thenReturn(mManager1);
         when(mBaseManager.createForSubscriptionId(SUB_ID_2)).thenReturn(mManager2);
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.telephony;
+
+import static android.telephony.PhoneStateListener.LISTEN_CALL_STATE;
+import static android.telephony.PhoneStateListener.LISTEN_NONE;
+import static android.telephony.PhoneStateListener.LISTEN_SIGNAL_STRENGTHS;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.telephony.PhoneStateListener;
+import android.telephony.SignalStrength;
+import android.telephony.TelephonyManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class TelephonyEventHubTest {
+
+    private static final int SUB_ID = 2;
+
+    @Mock
+    private TelephonyManager mBaseManager;
+    @Mock
+    private TelephonyManager mSubManager;
+    @Mock
+    private TelephonyEventHub.Listener mListener1;
+    @Mock
+    private TelephonyEventHub.Listener mListener2;
+
+    private TelephonyEventHub mEventHub;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mBaseManager.createForSubscriptionId(SUB_ID)).thenReturn(mSubManager);
+        mEventHub = new TelephonyEventHub(mBaseManager);
+    }
+
+    @Test
+    public void getInstance_contextsOfSameApplication_shouldReturnSameHub() {
+        final Context context = RuntimeEnvironment.application;
+
+        assertThat(TelephonyEventHub.getInstance(new ContextWrapper(context)))
+                .isSameInstanceAs(TelephonyEventHub.getInstance(context));
+    }
+
+    @Test
+    public void subscribe_twoListeners_shouldRegisterOnce() {
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener1);
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener2);
+
+        verify(mSubManager).listen(any(PhoneStateListener.class), eq(LISTEN_CALL_STATE));
+        assertThat(mEventHub.getListenerCount(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE))
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void onCallStateChanged_shouldNotifyAllListeners() {
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener1);
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener2);
+
+        captureListener(LISTEN_CALL_STATE).onCallStateChanged(
+                TelephonyManager.CALL_STATE_RINGING, "" /* incomingNumber */);
+
+        verify(mListener1).onTelephonyEvent(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE,
+                TelephonyManager.CALL_STATE_RINGING);
+        verify(mListener2).onTelephonyEvent(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE,
+                TelephonyManager.CALL_STATE_RINGING);
+    }
+
+    @Test
+    public void subscribe_afterValueReceived_shouldReplayLastValue() {
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener1);
+        captureListener(LISTEN_CALL_STATE).onCallStateChanged(
+                TelephonyManager.CALL_STATE_OFFHOOK, "" /* incomingNumber */);
+
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener2);
+        ShadowLooper.idleMainLooper();
+
+        verify(mListener2).onTelephonyEvent(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE,
+                TelephonyManager.CALL_STATE_OFFHOOK);
+    }
+
+    @Test
+    public void unsubscribe_lastListener_shouldUnregister() {
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener1);
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener2);
+
+        mEventHub.unsubscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener1);
+        verify(mSubManager, never()).listen(any(PhoneStateListener.class), eq(LISTEN_NONE));
+
+        mEventHub.unsubscribe(SUB_ID, TelephonyEventHub.EVENT_CALL_STATE, mListener2);
+        verify(mSubManager).listen(any(PhoneStateListener.class), eq(LISTEN_NONE));
+    }
+
+    @Test
+    public void subscribe_invalidSubId_shouldUseBaseManager() {
+        mEventHub.subscribe(-1 /* subId */, TelephonyEventHub.EVENT_CALL_STATE, mListener1);
+
+        verify(mBaseManager).listen(any(PhoneStateListener.class), eq(LISTEN_CALL_STATE));
+        verify(mSubManager, never()).listen(any(PhoneStateListener.class), anyInt());
+    }
+
+    @Test
+    public void onSignalStrengthsChanged_burst_shouldCoalesce() {
+        mEventHub.subscribe(SUB_ID, TelephonyEventHub.EVENT_SIGNAL_STRENGTHS, mListener1);
+        final PhoneStateListener listener = captureListener(LISTEN_SIGNAL_STRENGTHS);
+        final SignalStrength first = mock(SignalStrength.class);
+        final SignalStrength last = mock(SignalStrength.class);
+
+        listener.onSignalStrengthsChanged(first);
+        listener.onSignalStrengthsChanged(mock(SignalStrength.class));
+        listener.onSignalStrengthsChanged(last);
+        verify(mListener1).onTelephonyEvent(SUB_ID, TelephonyEventHub.EVENT_SIGNAL_STRENGTHS,
+                first);
+        verify(mListener1, times(1)).onTelephonyEvent(anyInt(), anyInt(), any());
+
+        ShadowLooper.idleMainLooper(TelephonyEventHub.SIGNAL_STRENGTH_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        verify(mListener1).onTelephonyEvent(SUB_ID, TelephonyEventHub.EVENT_SIGNAL_STRENGTHS,
+                last);
+        verify(mListener1, times(2)).onTelephonyEvent(anyInt(), anyInt(), any());
+    }
+
+    private PhoneStateListener captureListener(int events) {
+        final ArgumentCaptor<PhoneStateListener> captor =
+                ArgumentCaptor.forClass(PhoneStateListener.class);
+        verify(mSubManager).listen(captor.capture(), eq(events));
+        return captor.getValue();
+    }
+}
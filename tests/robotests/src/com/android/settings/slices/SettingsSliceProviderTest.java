@@ -90,6 +90,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -149,7 +151,7 @@ public class SettingsSliceProviderTest {
 
         mProvider = spy(new SettingsSliceProvider());
         ShadowStrictMode.reset();
-        mProvider.mSliceWeakDataCache = new HashMap<>();
+        mProvider.mSliceDataCache = new HashMap<>();
         mProvider.mSlicesDatabaseAccessor = new SlicesDatabaseAccessor(mContext);
         when(mProvider.getContext()).thenReturn(mContext);
 
@@ -184,7 +186,7 @@ public class SettingsSliceProviderTest {
         SliceTestUtils.insertSliceToDb(mContext, KEY);
 
         mProvider.loadSlice(INTENT_SLICE_URI);
-        SliceData data = mProvider.mSliceWeakDataCache.get(INTENT_SLICE_URI);
+        SliceData data = mProvider.mSliceDataCache.get(INTENT_SLICE_URI);
 
         assertThat(data.getKey()).isEqualTo(KEY);
         assertThat(data.getTitle()).isEqualTo(SliceTestUtils.FAKE_TITLE);
@@ -214,15 +216,94 @@ public class SettingsSliceProviderTest {
     }
 
     @Test
-    public void testLoadSlice_cachedEntryRemovedOnBuild() {
+    public void testLoadSlice_cachedEntryKeptOnBuild() {
         SliceData data = getDummyData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
         SliceTestUtils.insertSliceToDb(mContext, data.getKey());
 
-        SliceData cachedData = mProvider.mSliceWeakDataCache.get(data.getUri());
+        SliceData cachedData = mProvider.mSliceDataCache.get(data.getUri());
 
-        assertThat(cachedData).isNull();
+        assertThat(cachedData).isEqualTo(data);
+    }
+
+    @Test
+    public void onBindSlice_cachedEntry_shouldCountHit() {
+        SliceData data = getDummyData();
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+
+        mProvider.onBindSlice(data.getUri());
+        mProvider.onBindSlice(data.getUri());
+
+        assertThat(mProvider.mCacheHitCount.get()).isEqualTo(2);
+        assertThat(mProvider.mCacheMissCount.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void onBindSlice_noCachedEntry_shouldCountMissAndLoad() {
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+
+        mProvider.onBindSlice(INTENT_SLICE_URI);
+
+        assertThat(mProvider.mCacheMissCount.get()).isEqualTo(1);
+        verify(mProvider).loadSliceInBackground(INTENT_SLICE_URI);
+    }
+
+    @Test
+    public void onBindSlice_localeChanged_shouldClearCache() {
+        final Locale defaultLocale = Locale.getDefault();
+        SliceData data = getDummyData();
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+        mProvider.onBindSlice(data.getUri());
+
+        try {
+            Locale.setDefault(Locale.FRANCE.equals(defaultLocale) ? Locale.US : Locale.FRANCE);
+            mProvider.onBindSlice(data.getUri());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        assertThat(mProvider.mCacheHitCount.get()).isEqualTo(1);
+        assertThat(mProvider.mCacheMissCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void createSliceDataCache_overCapacity_shouldEvictLeastRecentlyUsed() {
+        final Map<Uri, SliceData> cache = SettingsSliceProvider.createSliceDataCache();
+        final SliceData data = getDummyData();
+        final Uri first = Uri.parse("content://com.android.settings.slices/action/key0");
+        cache.put(first, data);
+        for (int i = 1; i <= SettingsSliceProvider.MAX_CACHED_SLICE_DATA; i++) {
+            // Keep the first entry recently used so the second one is evicted instead.
+            cache.get(first);
+            cache.put(Uri.parse("content://com.android.settings.slices/action/key" + i), data);
+        }
+
+        assertThat(cache).hasSize(SettingsSliceProvider.MAX_CACHED_SLICE_DATA);
+        assertThat(cache).containsKey(first);
+        assertThat(cache).doesNotContainKey(
+                Uri.parse("content://com.android.settings.slices/action/key1"));
+    }
+
+    @Test
+    public void restorePinnedSlices_indexedUri_shouldCacheAndRegister() {
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+
+        mProvider.restorePinnedSlices(Collections.singletonList(INTENT_SLICE_URI));
+
+        assertThat(mProvider.mSliceDataCache.get(INTENT_SLICE_URI).getKey()).isEqualTo(KEY);
+        verify(mProvider)
+                .registerIntentToUri(eq(FakeToggleController.INTENT_FILTER), eq(INTENT_SLICE_URI));
+        assertThat(mProvider.mPinnedWorkers.get(INTENT_SLICE_URI).getClass())
+                .isEqualTo(FakeToggleController.TestWorker.class);
+    }
+
+    @Test
+    public void restorePinnedSlices_customSliceUri_shouldStartBackgroundWorker() {
+        mProvider.restorePinnedSlices(
+                Collections.singletonList(CustomSliceRegistry.WIFI_SLICE_URI));
+
+        verify(ShadowWifiScanWorker.getWifiTracker()).onStart();
     }
 
     @Test
@@ -230,7 +311,7 @@ public class SettingsSliceProviderTest {
         ShadowThreadUtils.setIsMainThread(true);
         final StrictMode.ThreadPolicy oldThreadPolicy = StrictMode.getThreadPolicy();
         SliceData data = getDummyData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         final StrictMode.ThreadPolicy newThreadPolicy = StrictMode.getThreadPolicy();
@@ -244,7 +325,7 @@ public class SettingsSliceProviderTest {
         ShadowThreadUtils.setIsMainThread(false);
 
         SliceData data = getDummyData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         assertThat(ShadowStrictMode.isThreadPolicyOverridden()).isTrue();
@@ -272,7 +353,7 @@ public class SettingsSliceProviderTest {
     public void onBindSlice_nightModeChanged_shouldReloadTheme() {
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
         final SliceData data = getDummyData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_YES;
@@ -285,7 +366,7 @@ public class SettingsSliceProviderTest {
     public void onBindSlice_nightModeNotChanged_shouldNotReloadTheme() {
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
         SliceData data = getDummyData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
@@ -30,4 +30,9 @@ public class ShadowSliceBackgroundWorker {
     protected final void notifySliceChange() {
         mRealWorker.getContext().getContentResolver().notifyChange(mRealWorker.getUri(), null);
     }
+
+    @Implementation
+    protected void notifyResultsChange() {
+        notifySliceChange();
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.android.settings.slices.SliceBackgroundWorker.MAX_UNBOUND_UPDATES;
+import static com.android.settings.slices.SliceBackgroundWorker.SLICE_UPDATE_MAX_THROTTLE_INTERVAL;
+import static com.android.settings.slices.SliceBackgroundWorker.SLICE_UPDATE_THROTTLE_INTERVAL;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.settings.slices.SliceBackgroundWorker.UpdateState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceBackgroundWorkerTest {
+
+    private static final long START_TIME = 1000L;
+
+    private UpdateState mState;
+
+    @Before
+    public void setUp() {
+        mState = new UpdateState();
+    }
+
+    @Test
+    public void getUpdateTime_firstUpdate_shouldWaitMinInterval() {
+        assertThat(mState.getUpdateTime(START_TIME))
+                .isEqualTo(START_TIME + SLICE_UPDATE_THROTTLE_INTERVAL);
+    }
+
+    @Test
+    public void getUpdateTime_notBoundSinceLastUpdate_shouldWaitMaxInterval() {
+        mState.onUpdateSent(START_TIME);
+
+        assertThat(mState.getUpdateTime(START_TIME + 100L))
+                .isEqualTo(START_TIME + SLICE_UPDATE_MAX_THROTTLE_INTERVAL);
+    }
+
+    @Test
+    public void onBound_fastHost_shouldKeepMinInterval() {
+        mState.onUpdateSent(START_TIME);
+
+        assertThat(mState.onBound(START_TIME + 100L)).isTrue();
+        assertThat(mState.getUpdateTime(START_TIME + 200L))
+                .isEqualTo(START_TIME + SLICE_UPDATE_THROTTLE_INTERVAL);
+    }
+
+    @Test
+    public void onBound_slowHost_shouldMoveIntervalHalfwayToBindDelay() {
+        mState.onUpdateSent(START_TIME);
+
+        mState.onBound(START_TIME + 1000L);
+
+        final long interval = (SLICE_UPDATE_THROTTLE_INTERVAL + 1000L) / 2;
+        assertThat(mState.mInterval).isEqualTo(interval);
+        assertThat(mState.getUpdateTime(START_TIME + 1000L)).isEqualTo(START_TIME + interval);
+    }
+
+    @Test
+    public void onBound_verySlowHost_shouldNotExceedMaxInterval() {
+        mState.onUpdateSent(START_TIME);
+
+        mState.onBound(START_TIME + 10 * SLICE_UPDATE_MAX_THROTTLE_INTERVAL);
+
+        assertThat(mState.mInterval).isEqualTo(SLICE_UPDATE_MAX_THROTTLE_INTERVAL);
+    }
+
+    @Test
+    public void onBound_fastHostAfterSlowHost_shouldShrinkInterval() {
+        mState.onUpdateSent(START_TIME);
+        mState.onBound(START_TIME + 2000L);
+        final long slowInterval = mState.mInterval;
+
+        mState.onUpdateSent(START_TIME + 3000L);
+        mState.onBound(START_TIME + 3000L);
+
+        assertThat(mState.mInterval).isLessThan(slowInterval);
+    }
+
+    @Test
+    public void onBound_boundAgainWithoutUpdate_shouldNotChangeInterval() {
+        mState.onUpdateSent(START_TIME);
+        mState.onBound(START_TIME + 1000L);
+        final long interval = mState.mInterval;
+
+        assertThat(mState.onBound(START_TIME + 2000L)).isFalse();
+        assertThat(mState.mInterval).isEqualTo(interval);
+    }
+
+    @Test
+    public void onUpdateSent_hostNeverRebinds_shouldStopWaitingForBind() {
+        long updateTime = START_TIME;
+        for (int i = 0; i <= MAX_UNBOUND_UPDATES; i++) {
+            mState.onUpdateSent(updateTime);
+            updateTime = mState.getUpdateTime(updateTime);
+        }
+
+        assertThat(updateTime - mState.mLastUpdateTime).isEqualTo(SLICE_UPDATE_THROTTLE_INTERVAL);
+    }
+
+    @Test
+    public void onBound_afterHostStoppedRebinding_shouldWaitForBindAgain() {
+        long updateTime = START_TIME;
+        for (int i = 0; i <= MAX_UNBOUND_UPDATES; i++) {
+            mState.onUpdateSent(updateTime);
+            updateTime = mState.getUpdateTime(updateTime);
+        }
+
+        mState.onBound(updateTime);
+        mState.onUpdateSent(updateTime + 100L);
+
+        assertThat(mState.getUpdateTime(updateTime + 200L))
+                .isEqualTo(updateTime + 100L + SLICE_UPDATE_MAX_THROTTLE_INTERVAL);
+    }
+}
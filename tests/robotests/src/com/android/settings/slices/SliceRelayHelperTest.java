@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+
+import com.android.settingslib.SliceBroadcastRelay;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = SliceRelayHelperTest.ShadowSliceBroadcastRelay.class)
+public class SliceRelayHelperTest {
+
+    private static final Uri SLICE_URI_1 = createSliceUri("key1");
+    private static final Uri SLICE_URI_2 = createSliceUri("key2");
+
+    @Mock
+    private ContentResolver mResolver;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getContentResolver()).thenReturn(mResolver);
+    }
+
+    @After
+    public void cleanUp() {
+        ShadowSliceBroadcastRelay.reset();
+        SliceRelayHelper.reset();
+    }
+
+    @Test
+    public void registerIntentToUri_sameActions_shouldRegisterRelayOnce() {
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a", "b"), SLICE_URI_1);
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("b", "a"), SLICE_URI_2);
+
+        assertThat(ShadowSliceBroadcastRelay.sRegisteredUris).hasSize(1);
+        assertThat(SliceRelayHelper.sRelayMembers.get(ShadowSliceBroadcastRelay.sRegisteredUris
+                .get(0))).containsExactly(SLICE_URI_1, SLICE_URI_2);
+    }
+
+    @Test
+    public void registerIntentToUri_filterWithCategory_shouldRegisterSliceUri() {
+        final IntentFilter filter = createFilter("a");
+        filter.addCategory("category");
+
+        SliceRelayHelper.registerIntentToUri(mContext, filter, SLICE_URI_1);
+
+        assertThat(ShadowSliceBroadcastRelay.sRegisteredUris).containsExactly(SLICE_URI_1);
+        assertThat(SliceRelayHelper.sRelayUris).isEmpty();
+    }
+
+    @Test
+    public void unregisterUri_lastSliceOfRelay_shouldUnregisterRelay() {
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_1);
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_2);
+
+        SliceRelayHelper.unregisterUri(mContext, SLICE_URI_1);
+        assertThat(ShadowSliceBroadcastRelay.sRegisteredUris).hasSize(1);
+
+        SliceRelayHelper.unregisterUri(mContext, SLICE_URI_2);
+        assertThat(ShadowSliceBroadcastRelay.sRegisteredUris).isEmpty();
+        assertThat(SliceRelayHelper.sRelayUris).isEmpty();
+    }
+
+    @Test
+    public void onReceive_relayUri_shouldNotifyAllSlices() {
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_1);
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_2);
+
+        final boolean handled = SliceRelayHelper.onReceive(mContext,
+                ShadowSliceBroadcastRelay.sRegisteredUris.get(0));
+
+        assertThat(handled).isTrue();
+        verify(mResolver).notifyChange(SLICE_URI_1, null);
+        verify(mResolver).notifyChange(SLICE_URI_2, null);
+    }
+
+    @Test
+    public void onReceive_relayOfPreviousProcess_shouldUnregisterRelay() {
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_1);
+        final Uri staleRelayUri = ShadowSliceBroadcastRelay.sRegisteredUris.get(0);
+        // Settings restarted, its groups are gone but the relay is still registered.
+        SliceRelayHelper.reset();
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_2);
+
+        final boolean handled = SliceRelayHelper.onReceive(mContext, staleRelayUri);
+
+        assertThat(handled).isTrue();
+        assertThat(ShadowSliceBroadcastRelay.sRegisteredUris).hasSize(1);
+        assertThat(ShadowSliceBroadcastRelay.sRegisteredUris).doesNotContain(staleRelayUri);
+        verify(mResolver, never()).notifyChange(any(Uri.class), any());
+    }
+
+    @Test
+    public void onReceive_sliceUri_shouldNotHandle() {
+        assertThat(SliceRelayHelper.onReceive(mContext, SLICE_URI_1)).isFalse();
+    }
+
+    @Test
+    public void onReceive_burst_shouldNotifyOncePerInterval() {
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_1);
+        final Uri relayUri = ShadowSliceBroadcastRelay.sRegisteredUris.get(0);
+
+        SliceRelayHelper.onReceive(mContext, relayUri);
+        SliceRelayHelper.onReceive(mContext, relayUri);
+        SliceRelayHelper.onReceive(mContext, relayUri);
+        verify(mResolver).notifyChange(SLICE_URI_1, null);
+
+        ShadowLooper.idleMainLooper(SliceRelayHelper.NOTIFY_THROTTLE_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        verify(mResolver, times(2)).notifyChange(SLICE_URI_1, null);
+    }
+
+    @Test
+    public void sliceRelayReceiver_relayUri_shouldNotifySlices() {
+        SliceRelayHelper.registerIntentToUri(mContext, createFilter("a"), SLICE_URI_1);
+        final Intent intent = new Intent("a").putExtra(SliceBroadcastRelay.EXTRA_URI,
+                ShadowSliceBroadcastRelay.sRegisteredUris.get(0).toString());
+
+        new SliceRelayReceiver().onReceive(mContext, intent);
+
+        verify(mResolver).notifyChange(SLICE_URI_1, null);
+    }
+
+    private static IntentFilter createFilter(String... actions) {
+        final IntentFilter filter = new IntentFilter();
+        for (String action : actions) {
+            filter.addAction(action);
+        }
+        return filter;
+    }
+
+    private static Uri createSliceUri(String key) {
+        return new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSliceProvider.SLICE_AUTHORITY)
+                .appendPath("action")
+                .appendPath(key)
+                .build();
+    }
+
+    @Implements(SliceBroadcastRelay.class)
+    public static class ShadowSliceBroadcastRelay {
+
+        private static final List<Uri> sRegisteredUris = new ArrayList<>();
+
+        @Implementation
+        public static void registerReceiver(Context context, Uri sliceUri,
+                Class<? extends BroadcastReceiver> receiver, IntentFilter filter) {
+            sRegisteredUris.add(sliceUri);
+        }
+
+        @Implementation
+        public static void unregisterReceivers(Context context, Uri sliceUri) {
+            sRegisteredUris.remove(sliceUri);
+        }
+
+        @Resetter
+        static void reset() {
+            sRegisteredUris.clear();
+        }
+    }
+}
@@ -18,14 +18,19 @@ package com.android.settings.widget;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.util.SparseIntArray;
 
 import com.android.settingslib.R;
@@ -189,4 +194,32 @@ public class UsageGraphTest {
         // Should not crash
         mGraph.drawFilledPath(canvas, localPaths, paint);
     }
+
+    @Test
+    public void buildLinePath_emptyPath_shouldResetPath() {
+        final Path path = new Path();
+        path.lineTo(10, 10);
+
+        mGraph.buildLinePath(new SparseIntArray(), path);
+
+        assertThat(path.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void setMax_sameValues_shouldNotRecalculateLocalPaths() {
+        clearInvocations(mGraph);
+
+        mGraph.setMax(500, 100);
+
+        verify(mGraph, never()).calculateLocalPaths(any(), any());
+    }
+
+    @Test
+    public void onSizeChanged_sameSize_shouldNotRecalculateLocalPaths() {
+        clearInvocations(mGraph);
+
+        mGraph.onSizeChanged(1000, 200, 1000, 200);
+
+        verify(mGraph, never()).calculateLocalPaths(any(), any());
+    }
 }
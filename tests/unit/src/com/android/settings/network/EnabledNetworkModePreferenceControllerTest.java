@@ -34,6 +34,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -51,6 +53,7 @@ import androidx.test.annotation.UiThreadTest;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.telephony.TelephonyConstants.TelephonyManagerConstants;
 import com.android.settingslib.core.lifecycle.Lifecycle;
 
@@ -442,6 +445,96 @@ public class EnabledNetworkModePreferenceControllerTest {
         assertEquals(3, entryValues.length);
     }
 
+    @UiThreadTest
+    @Test
+    public void updateState_calledTwice_buildEntriesOnce() {
+        mockEnabledNetworkMode(TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA);
+        mockPreferredNetworkTypes(LTE | GSM | WCDMA);
+
+        mController.updateState(mPreference);
+        mController.updateState(mPreference);
+
+        verify(mTelephonyManager, times(1)).getAllowedNetworkTypesForReason(
+                TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_USER);
+    }
+
+    @UiThreadTest
+    @Test
+    public void updateState_allowedNetworkTypesChanged_rebuildEntries() {
+        mockEnabledNetworkMode(TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA);
+        mockPreferredNetworkTypes(LTE | GSM | WCDMA);
+        mController.updateState(mPreference);
+
+        mockPreferredNetworkTypes(LTE | CDMA | EVDO | GSM | WCDMA);
+        mController.mAllowedNetworkTypesListener.onAllowedNetworkTypesChanged(
+                TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_USER,
+                LTE | CDMA | EVDO | GSM | WCDMA);
+        mController.updateState(mPreference);
+
+        verify(mTelephonyManager, times(2)).getAllowedNetworkTypesForReason(
+                TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_USER);
+        assertThat(mPreference.getValue()).isEqualTo(
+                String.valueOf(TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA));
+    }
+
+    @UiThreadTest
+    @Test
+    public void updateState_carrierConfigChanged_rebuildEntries() {
+        mockEnabledNetworkMode(TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA);
+        mockPreferredNetworkTypes(LTE | GSM | WCDMA);
+        mController.updateState(mPreference);
+
+        doReturn(new PersistableBundle(mPersistableBundle)).when(mCarrierConfigManager)
+                .getConfigForSubId(SUB_ID);
+        CarrierConfigCache.invalidate(SUB_ID);
+        mController.updateState(mPreference);
+
+        verify(mTelephonyManager, times(2)).getAllowedNetworkTypesForReason(
+                TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_USER);
+    }
+
+    @Test
+    public void addNrToLteNetworkType_lteModes_reduceNrToLteNetworkTypeRevertsIt() {
+        final int[] lteModes = {
+                TelephonyManagerConstants.NETWORK_MODE_LTE_ONLY,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_GSM_WCDMA,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_CDMA_EVDO_GSM_WCDMA,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_WCDMA,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_WCDMA,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_GSM_WCDMA,
+                TelephonyManagerConstants.NETWORK_MODE_LTE_TDSCDMA_CDMA_EVDO_GSM_WCDMA};
+
+        for (int lteMode : lteModes) {
+            final int nrMode = EnabledNetworkModePreferenceController.addNrToLteNetworkType(
+                    lteMode);
+            assertThat(getRafFromNetworkType(nrMode))
+                    .isEqualTo(getRafFromNetworkType(lteMode) | NR);
+            assertThat(EnabledNetworkModePreferenceController.reduceNrToLteNetworkType(nrMode))
+                    .isEqualTo(lteMode);
+        }
+    }
+
+    @Test
+    public void addNrToLteNetworkType_notLte_unchanged() {
+        assertThat(EnabledNetworkModePreferenceController.addNrToLteNetworkType(
+                TelephonyManagerConstants.NETWORK_MODE_WCDMA_PREF))
+                .isEqualTo(TelephonyManagerConstants.NETWORK_MODE_WCDMA_PREF);
+        assertThat(EnabledNetworkModePreferenceController.reduceNrToLteNetworkType(
+                TelephonyManagerConstants.NETWORK_MODE_GLOBAL))
+                .isEqualTo(TelephonyManagerConstants.NETWORK_MODE_GLOBAL);
+    }
+
+    @Test
+    public void checkSupportedRadioBitmask() {
+        assertThat(EnabledNetworkModePreferenceController.checkSupportedRadioBitmask(
+                ALLOWED_ALL_NETWORK_TYPE, TelephonyManager.NETWORK_TYPE_BITMASK_NR)).isTrue();
+        assertThat(EnabledNetworkModePreferenceController.checkSupportedRadioBitmask(
+                DISABLED_5G_NETWORK_TYPE, TelephonyManager.NETWORK_TYPE_BITMASK_NR)).isFalse();
+    }
+
     private void mockEnabledNetworkMode(int networkMode) {
         if (networkMode == TelephonyManagerConstants.NETWORK_MODE_TDSCDMA_GSM_WCDMA) {
             mockPhoneType(TelephonyManager.PHONE_TYPE_GSM);
@@ -463,6 +556,11 @@ public class EnabledNetworkModePreferenceControllerTest {
         }
     }
 
+    private void mockPreferredNetworkTypes(long networkTypes) {
+        doReturn(networkTypes).when(mTelephonyManager).getAllowedNetworkTypesForReason(
+                TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_USER);
+    }
+
     private void mockAllowedNetworkTypes(long allowedNetworkType) {
         doReturn(allowedNetworkType).when(mTelephonyManager).getAllowedNetworkTypesForReason(
                 TelephonyManager.ALLOWED_NETWORK_TYPES_REASON_CARRIER);